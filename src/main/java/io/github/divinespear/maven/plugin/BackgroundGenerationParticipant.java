@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.lifecycle.DefaultLifecycles;
+import org.apache.maven.lifecycle.Lifecycle;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.SessionData;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Joins schema generation run in background by {@code generate} goal (see
+ * {@link JpaSchemaGeneratorMojo#isBackground()}): before join phase of project, and at end of session for all left.
+ * Failure of generation fails build there.
+ * <p>
+ * Active only if plugin is declared with {@code <extensions>true</extensions>}. Generations pending are kept in
+ * session data, by project, with JDK types only, as class realm of mojo may be other than one of this participant.
+ */
+public class BackgroundGenerationParticipant extends AbstractMavenLifecycleParticipant {
+
+    private static final String PENDING_KEY = BackgroundGenerationParticipant.class.getName() + ".pending";
+
+    /**
+     * injected by container, see {@code META-INF/plexus/components.xml}
+     */
+    private DefaultLifecycles defaultLifecycles;
+
+    public BackgroundGenerationParticipant() {
+    }
+
+    BackgroundGenerationParticipant(DefaultLifecycles defaultLifecycles) {
+        this.defaultLifecycles = defaultLifecycles;
+    }
+
+    /**
+     * @return generations pending of project, with phase to join them before ({@code null} for end of session), or
+     * {@code null} if participant is not active
+     */
+    @SuppressWarnings("unchecked")
+    static Queue<Map.Entry<String, Future<?>>> getPending(MavenSession session,
+                                                          MavenProject project) {
+        if (session == null || session.getRepositorySession() == null) {
+            return null;
+        }
+        final ConcurrentMap<String, Queue<Map.Entry<String, Future<?>>>> pending =
+                (ConcurrentMap<String, Queue<Map.Entry<String, Future<?>>>>) session.getRepositorySession().getData()
+                        .get(PENDING_KEY);
+        if (pending == null) {
+            return null;
+        }
+        pending.putIfAbsent(project.getId(), new ConcurrentLinkedQueue<Map.Entry<String, Future<?>>>());
+        return pending.get(project.getId());
+    }
+
+    @Override
+    public void afterProjectsRead(MavenSession session) throws MavenExecutionException {
+        final SessionData data = session.getRepositorySession().getData();
+        data.set(PENDING_KEY, null, new ConcurrentHashMap<String, Queue<Map.Entry<String, Future<?>>>>());
+        session.getRequest().setExecutionListener(new JoiningListener(session.getRequest().getExecutionListener()));
+    }
+
+    @Override
+    public void afterSessionEnd(MavenSession session) throws MavenExecutionException {
+        if (session.getRepositorySession() == null) {
+            return;
+        }
+        Exception failure = null;
+        for (MavenProject project : session.getProjects()) {
+            final Queue<Map.Entry<String, Future<?>>> pending = getPending(session, project);
+            if (pending == null) {
+                continue;
+            }
+            try {
+                join(project, pending, null);
+            } catch (Exception e) {
+                // wait for others still, not to leave them running
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw new MavenExecutionException(failure.getMessage(), failure.getCause());
+        }
+    }
+
+    /**
+     * join generations pending of project, if phase is reached
+     *
+     * @param phase phase to be run, {@code null} to join all
+     * @throws Exception with failure of generation as cause
+     */
+    private void join(MavenProject project,
+                      Queue<Map.Entry<String, Future<?>>> pending,
+                      String phase) throws Exception {
+        for (Iterator<Map.Entry<String, Future<?>>> it = pending.iterator(); it.hasNext(); ) {
+            final Map.Entry<String, Future<?>> generation = it.next();
+            if (phase != null && !this.isReached(generation.getKey(), phase)) {
+                continue;
+            }
+            it.remove();
+            try {
+                generation.getValue().get();
+            } catch (ExecutionException e) {
+                throw new Exception("background schema generation of " + project.getId() + " failed: "
+                        + e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new Exception("interrupted while joining background schema generation of " + project.getId(),
+                        e);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if phase is join phase, or after it in same lifecycle
+     */
+    private boolean isReached(String joinPhase,
+                              String phase) {
+        if (joinPhase == null || this.defaultLifecycles == null) {
+            return false;
+        }
+        final Lifecycle lifecycle = this.defaultLifecycles.get(joinPhase);
+        if (lifecycle == null) {
+            return false;
+        }
+        final List<String> phases = lifecycle.getPhases();
+        return phases.contains(phase) && phases.indexOf(phase) >= phases.indexOf(joinPhase);
+    }
+
+    /**
+     * joins generations of project before its mojo in join phase starts, delegating all events.
+     */
+    private final class JoiningListener implements ExecutionListener {
+
+        private final ExecutionListener delegate;
+
+        private JoiningListener(ExecutionListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void mojoStarted(ExecutionEvent event) {
+            final String phase = event.getMojoExecution() == null ? null
+                    : event.getMojoExecution().getLifecyclePhase();
+            final Queue<Map.Entry<String, Future<?>>> pending = phase == null || event.getProject() == null ? null
+                    : getPending(event.getSession(), event.getProject());
+            if (pending != null && !pending.isEmpty()) {
+                try {
+                    join(event.getProject(), pending, phase);
+                } catch (Exception e) {
+                    // fails project, like failure of mojo
+                    throw new IllegalStateException(e.getMessage(), e.getCause());
+                }
+            }
+            if (delegate != null) {
+                delegate.mojoStarted(event);
+            }
+        }
+
+        @Override
+        public void projectDiscoveryStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectDiscoveryStarted(event);
+            }
+        }
+
+        @Override
+        public void sessionStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.sessionStarted(event);
+            }
+        }
+
+        @Override
+        public void sessionEnded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.sessionEnded(event);
+            }
+        }
+
+        @Override
+        public void projectSkipped(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectSkipped(event);
+            }
+        }
+
+        @Override
+        public void projectStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectStarted(event);
+            }
+        }
+
+        @Override
+        public void projectSucceeded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectSucceeded(event);
+            }
+        }
+
+        @Override
+        public void projectFailed(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.projectFailed(event);
+            }
+        }
+
+        @Override
+        public void mojoSkipped(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.mojoSkipped(event);
+            }
+        }
+
+        @Override
+        public void mojoSucceeded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.mojoSucceeded(event);
+            }
+        }
+
+        @Override
+        public void mojoFailed(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.mojoFailed(event);
+            }
+        }
+
+        @Override
+        public void forkStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkStarted(event);
+            }
+        }
+
+        @Override
+        public void forkSucceeded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkSucceeded(event);
+            }
+        }
+
+        @Override
+        public void forkFailed(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkFailed(event);
+            }
+        }
+
+        @Override
+        public void forkedProjectStarted(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkedProjectStarted(event);
+            }
+        }
+
+        @Override
+        public void forkedProjectSucceeded(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkedProjectSucceeded(event);
+            }
+        }
+
+        @Override
+        public void forkedProjectFailed(ExecutionEvent event) {
+            if (delegate != null) {
+                delegate.forkedProjectFailed(event);
+            }
+        }
+    }
+}
@@ -36,6 +36,7 @@ import java.sql.SQLXML;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.sql.Struct;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
@@ -46,13 +47,47 @@ final class ConnectionMock
     private final String productName;
     private final int majorVersion;
     private final int minorVersion;
+    private final MetadataProfile profile;
+    private final StatementRecorder recorder;
 
     public ConnectionMock(String productName,
                           Integer majorVersion,
                           Integer minorVersion) {
+        this(productName, majorVersion, minorVersion, MetadataProfile.find(productName,
+                majorVersion == null ? 0 : majorVersion, minorVersion == null ? 0 : minorVersion));
+    }
+
+    /**
+     * @param profile metadata values returned for product
+     */
+    public ConnectionMock(String productName,
+                          Integer majorVersion,
+                          Integer minorVersion,
+                          MetadataProfile profile) {
+        this(productName, majorVersion, minorVersion, profile, null);
+    }
+
+    /**
+     * @param profile metadata values returned for product
+     * @param schema  schema described by metadata, {@code null} for empty schema
+     */
+    public ConnectionMock(String productName,
+                          Integer majorVersion,
+                          Integer minorVersion,
+                          MetadataProfile profile,
+                          SchemaModel schema) {
         this.productName = productName;
         this.majorVersion = majorVersion == null ? 0 : majorVersion;
         this.minorVersion = minorVersion == null ? 0 : minorVersion;
+        this.profile = profile;
+        this.recorder = new StatementRecorder(this, schema);
+    }
+
+    /**
+     * @return statements executed on this connection, recorded instead of being run
+     */
+    List<String> getStatements() {
+        return recorder.getStatements();
     }
 
     @Override
@@ -67,17 +102,17 @@ final class ConnectionMock
 
     @Override
     public Statement createStatement() throws SQLException {
-        return null;
+        return recorder.statement();
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql) throws SQLException {
-        return null;
+        return recorder.prepare(sql);
     }
 
     @Override
     public CallableStatement prepareCall(String sql) throws SQLException {
-        return null;
+        return (CallableStatement) recorder.prepare(sql);
     }
 
     @Override
@@ -157,21 +192,21 @@ final class ConnectionMock
     @Override
     public Statement createStatement(int resultSetType,
                                      int resultSetConcurrency) throws SQLException {
-        return null;
+        return recorder.statement();
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql,
                                               int resultSetType,
                                               int resultSetConcurrency) throws SQLException {
-        return null;
+        return recorder.prepare(sql);
     }
 
     @Override
     public CallableStatement prepareCall(String sql,
                                          int resultSetType,
                                          int resultSetConcurrency) throws SQLException {
-        return null;
+        return (CallableStatement) recorder.prepare(sql);
     }
 
     @Override
@@ -214,7 +249,7 @@ final class ConnectionMock
     public Statement createStatement(int resultSetType,
                                      int resultSetConcurrency,
                                      int resultSetHoldability) throws SQLException {
-        return null;
+        return recorder.statement();
     }
 
     @Override
@@ -222,7 +257,7 @@ final class ConnectionMock
                                               int resultSetType,
                                               int resultSetConcurrency,
                                               int resultSetHoldability) throws SQLException {
-        return null;
+        return recorder.prepare(sql);
     }
 
     @Override
@@ -230,25 +265,25 @@ final class ConnectionMock
                                          int resultSetType,
                                          int resultSetConcurrency,
                                          int resultSetHoldability) throws SQLException {
-        return null;
+        return (CallableStatement) recorder.prepare(sql);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql,
                                               int autoGeneratedKeys) throws SQLException {
-        return null;
+        return recorder.prepare(sql);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql,
                                               int[] columnIndexes) throws SQLException {
-        return null;
+        return recorder.prepare(sql);
     }
 
     @Override
     public PreparedStatement prepareStatement(String sql,
                                               String[] columnNames) throws SQLException {
-        return null;
+        return recorder.prepare(sql);
     }
 
     @Override
@@ -346,12 +381,12 @@ final class ConnectionMock
 
         @Override
         public boolean usesLocalFiles() throws SQLException {
-            return false;
+            return profile.getBoolean("usesLocalFiles", false);
         }
 
         @Override
         public boolean usesLocalFilePerTable() throws SQLException {
-            return false;
+            return profile.getBoolean("usesLocalFilePerTable", false);
         }
 
         @Override
@@ -361,17 +396,17 @@ final class ConnectionMock
 
         @Override
         public boolean supportsUnionAll() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsUnionAll", false);
         }
 
         @Override
         public boolean supportsUnion() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsUnion", false);
         }
 
         @Override
         public boolean supportsTransactions() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsTransactions", false);
         }
 
         @Override
@@ -381,77 +416,77 @@ final class ConnectionMock
 
         @Override
         public boolean supportsTableCorrelationNames() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsTableCorrelationNames", false);
         }
 
         @Override
         public boolean supportsSubqueriesInQuantifieds() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsSubqueriesInQuantifieds", false);
         }
 
         @Override
         public boolean supportsSubqueriesInIns() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsSubqueriesInIns", false);
         }
 
         @Override
         public boolean supportsSubqueriesInExists() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsSubqueriesInExists", false);
         }
 
         @Override
         public boolean supportsSubqueriesInComparisons() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsSubqueriesInComparisons", false);
         }
 
         @Override
         public boolean supportsStoredProcedures() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsStoredProcedures", false);
         }
 
         @Override
         public boolean supportsStoredFunctionsUsingCallSyntax() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsStoredFunctionsUsingCallSyntax", false);
         }
 
         @Override
         public boolean supportsStatementPooling() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsStatementPooling", false);
         }
 
         @Override
         public boolean supportsSelectForUpdate() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsSelectForUpdate", false);
         }
 
         @Override
         public boolean supportsSchemasInTableDefinitions() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsSchemasInTableDefinitions", false);
         }
 
         @Override
         public boolean supportsSchemasInProcedureCalls() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsSchemasInProcedureCalls", false);
         }
 
         @Override
         public boolean supportsSchemasInPrivilegeDefinitions() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsSchemasInPrivilegeDefinitions", false);
         }
 
         @Override
         public boolean supportsSchemasInIndexDefinitions() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsSchemasInIndexDefinitions", false);
         }
 
         @Override
         public boolean supportsSchemasInDataManipulation() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsSchemasInDataManipulation", false);
         }
 
         @Override
         public boolean supportsSavepoints() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsSavepoints", false);
         }
 
         @Override
@@ -472,157 +507,157 @@ final class ConnectionMock
 
         @Override
         public boolean supportsPositionedUpdate() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsPositionedUpdate", false);
         }
 
         @Override
         public boolean supportsPositionedDelete() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsPositionedDelete", false);
         }
 
         @Override
         public boolean supportsOuterJoins() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsOuterJoins", false);
         }
 
         @Override
         public boolean supportsOrderByUnrelated() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsOrderByUnrelated", false);
         }
 
         @Override
         public boolean supportsOpenStatementsAcrossRollback() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsOpenStatementsAcrossRollback", false);
         }
 
         @Override
         public boolean supportsOpenStatementsAcrossCommit() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsOpenStatementsAcrossCommit", false);
         }
 
         @Override
         public boolean supportsOpenCursorsAcrossRollback() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsOpenCursorsAcrossRollback", false);
         }
 
         @Override
         public boolean supportsOpenCursorsAcrossCommit() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsOpenCursorsAcrossCommit", false);
         }
 
         @Override
         public boolean supportsNonNullableColumns() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsNonNullableColumns", false);
         }
 
         @Override
         public boolean supportsNamedParameters() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsNamedParameters", false);
         }
 
         @Override
         public boolean supportsMultipleTransactions() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsMultipleTransactions", false);
         }
 
         @Override
         public boolean supportsMultipleResultSets() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsMultipleResultSets", false);
         }
 
         @Override
         public boolean supportsMultipleOpenResults() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsMultipleOpenResults", false);
         }
 
         @Override
         public boolean supportsMixedCaseQuotedIdentifiers() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsMixedCaseQuotedIdentifiers", false);
         }
 
         @Override
         public boolean supportsMixedCaseIdentifiers() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsMixedCaseIdentifiers", false);
         }
 
         @Override
         public boolean supportsMinimumSQLGrammar() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsMinimumSQLGrammar", false);
         }
 
         @Override
         public boolean supportsLimitedOuterJoins() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsLimitedOuterJoins", false);
         }
 
         @Override
         public boolean supportsLikeEscapeClause() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsLikeEscapeClause", false);
         }
 
         @Override
         public boolean supportsIntegrityEnhancementFacility() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsIntegrityEnhancementFacility", false);
         }
 
         @Override
         public boolean supportsGroupByUnrelated() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsGroupByUnrelated", false);
         }
 
         @Override
         public boolean supportsGroupByBeyondSelect() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsGroupByBeyondSelect", false);
         }
 
         @Override
         public boolean supportsGroupBy() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsGroupBy", false);
         }
 
         @Override
         public boolean supportsGetGeneratedKeys() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsGetGeneratedKeys", false);
         }
 
         @Override
         public boolean supportsFullOuterJoins() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsFullOuterJoins", false);
         }
 
         @Override
         public boolean supportsExtendedSQLGrammar() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsExtendedSQLGrammar", false);
         }
 
         @Override
         public boolean supportsExpressionsInOrderBy() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsExpressionsInOrderBy", false);
         }
 
         @Override
         public boolean supportsDifferentTableCorrelationNames() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsDifferentTableCorrelationNames", false);
         }
 
         @Override
         public boolean supportsDataManipulationTransactionsOnly() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsDataManipulationTransactionsOnly", false);
         }
 
         @Override
         public boolean supportsDataDefinitionAndDataManipulationTransactions() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsDataDefinitionAndDataManipulationTransactions", false);
         }
 
         @Override
         public boolean supportsCorrelatedSubqueries() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsCorrelatedSubqueries", false);
         }
 
         @Override
         public boolean supportsCoreSQLGrammar() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsCoreSQLGrammar", false);
         }
 
         @Override
@@ -633,97 +668,97 @@ final class ConnectionMock
 
         @Override
         public boolean supportsConvert() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsConvert", false);
         }
 
         @Override
         public boolean supportsColumnAliasing() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsColumnAliasing", false);
         }
 
         @Override
         public boolean supportsCatalogsInTableDefinitions() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsCatalogsInTableDefinitions", false);
         }
 
         @Override
         public boolean supportsCatalogsInProcedureCalls() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsCatalogsInProcedureCalls", false);
         }
 
         @Override
         public boolean supportsCatalogsInPrivilegeDefinitions() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsCatalogsInPrivilegeDefinitions", false);
         }
 
         @Override
         public boolean supportsCatalogsInIndexDefinitions() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsCatalogsInIndexDefinitions", false);
         }
 
         @Override
         public boolean supportsCatalogsInDataManipulation() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsCatalogsInDataManipulation", false);
         }
 
         @Override
         public boolean supportsBatchUpdates() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsBatchUpdates", false);
         }
 
         @Override
         public boolean supportsAlterTableWithDropColumn() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsAlterTableWithDropColumn", false);
         }
 
         @Override
         public boolean supportsAlterTableWithAddColumn() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsAlterTableWithAddColumn", false);
         }
 
         @Override
         public boolean supportsANSI92IntermediateSQL() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsANSI92IntermediateSQL", false);
         }
 
         @Override
         public boolean supportsANSI92FullSQL() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsANSI92FullSQL", false);
         }
 
         @Override
         public boolean supportsANSI92EntryLevelSQL() throws SQLException {
-            return false;
+            return profile.getBoolean("supportsANSI92EntryLevelSQL", false);
         }
 
         @Override
         public boolean storesUpperCaseQuotedIdentifiers() throws SQLException {
-            return false;
+            return profile.getBoolean("storesUpperCaseQuotedIdentifiers", false);
         }
 
         @Override
         public boolean storesUpperCaseIdentifiers() throws SQLException {
-            return false;
+            return profile.getBoolean("storesUpperCaseIdentifiers", false);
         }
 
         @Override
         public boolean storesMixedCaseQuotedIdentifiers() throws SQLException {
-            return false;
+            return profile.getBoolean("storesMixedCaseQuotedIdentifiers", false);
         }
 
         @Override
         public boolean storesMixedCaseIdentifiers() throws SQLException {
-            return false;
+            return profile.getBoolean("storesMixedCaseIdentifiers", false);
         }
 
         @Override
         public boolean storesLowerCaseQuotedIdentifiers() throws SQLException {
-            return false;
+            return profile.getBoolean("storesLowerCaseQuotedIdentifiers", false);
         }
 
         @Override
         public boolean storesLowerCaseIdentifiers() throws SQLException {
-            return false;
+            return profile.getBoolean("storesLowerCaseIdentifiers", false);
         }
 
         @Override
@@ -758,42 +793,42 @@ final class ConnectionMock
 
         @Override
         public boolean nullsAreSortedLow() throws SQLException {
-            return false;
+            return profile.getBoolean("nullsAreSortedLow", false);
         }
 
         @Override
         public boolean nullsAreSortedHigh() throws SQLException {
-            return false;
+            return profile.getBoolean("nullsAreSortedHigh", false);
         }
 
         @Override
         public boolean nullsAreSortedAtStart() throws SQLException {
-            return false;
+            return profile.getBoolean("nullsAreSortedAtStart", false);
         }
 
         @Override
         public boolean nullsAreSortedAtEnd() throws SQLException {
-            return false;
+            return profile.getBoolean("nullsAreSortedAtEnd", false);
         }
 
         @Override
         public boolean nullPlusNonNullIsNull() throws SQLException {
-            return false;
+            return profile.getBoolean("nullPlusNonNullIsNull", false);
         }
 
         @Override
         public boolean locatorsUpdateCopy() throws SQLException {
-            return false;
+            return profile.getBoolean("locatorsUpdateCopy", false);
         }
 
         @Override
         public boolean isReadOnly() throws SQLException {
-            return false;
+            return profile.getBoolean("isReadOnly", false);
         }
 
         @Override
         public boolean isCatalogAtStart() throws SQLException {
-            return false;
+            return profile.getBoolean("isCatalogAtStart", false);
         }
 
         @Override
@@ -810,12 +845,12 @@ final class ConnectionMock
 
         @Override
         public String getUserName() throws SQLException {
-            return null;
+            return profile.getString("getUserName", null);
         }
 
         @Override
         public String getURL() throws SQLException {
-            return null;
+            return profile.getString("getURL", null);
         }
 
         @Override
@@ -833,7 +868,7 @@ final class ConnectionMock
 
         @Override
         public String getTimeDateFunctions() throws SQLException {
-            return null;
+            return profile.getString("getTimeDateFunctions", null);
         }
 
         @Override
@@ -841,12 +876,12 @@ final class ConnectionMock
                                    String schemaPattern,
                                    String tableNamePattern,
                                    String[] types) throws SQLException {
-            return null;
+            return recorder.tables(tableNamePattern, types);
         }
 
         @Override
         public ResultSet getTableTypes() throws SQLException {
-            return null;
+            return recorder.tableTypes();
         }
 
         @Override
@@ -858,7 +893,7 @@ final class ConnectionMock
 
         @Override
         public String getSystemFunctions() throws SQLException {
-            return null;
+            return profile.getString("getSystemFunctions", null);
         }
 
         @Override
@@ -877,12 +912,12 @@ final class ConnectionMock
 
         @Override
         public String getStringFunctions() throws SQLException {
-            return null;
+            return profile.getString("getStringFunctions", null);
         }
 
         @Override
         public String getSearchStringEscape() throws SQLException {
-            return null;
+            return profile.getString("getSearchStringEscape", null);
         }
 
         @Override
@@ -898,17 +933,17 @@ final class ConnectionMock
 
         @Override
         public String getSchemaTerm() throws SQLException {
-            return null;
+            return profile.getString("getSchemaTerm", null);
         }
 
         @Override
         public int getSQLStateType() throws SQLException {
-            return 0;
+            return profile.getInt("getSQLStateType", 0);
         }
 
         @Override
         public String getSQLKeywords() throws SQLException {
-            return null;
+            return profile.getString("getSQLKeywords", null);
         }
 
         @Override
@@ -918,7 +953,7 @@ final class ConnectionMock
 
         @Override
         public int getResultSetHoldability() throws SQLException {
-            return 0;
+            return profile.getInt("getResultSetHoldability", 0);
         }
 
         @Override
@@ -930,7 +965,7 @@ final class ConnectionMock
 
         @Override
         public String getProcedureTerm() throws SQLException {
-            return null;
+            return profile.getString("getProcedureTerm", null);
         }
 
         @Override
@@ -945,122 +980,122 @@ final class ConnectionMock
         public ResultSet getPrimaryKeys(String catalog,
                                         String schema,
                                         String table) throws SQLException {
-            return null;
+            return recorder.primaryKeys(table);
         }
 
         @Override
         public String getNumericFunctions() throws SQLException {
-            return null;
+            return profile.getString("getNumericFunctions", null);
         }
 
         @Override
         public int getMaxUserNameLength() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxUserNameLength", 0);
         }
 
         @Override
         public int getMaxTablesInSelect() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxTablesInSelect", 0);
         }
 
         @Override
         public int getMaxTableNameLength() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxTableNameLength", 0);
         }
 
         @Override
         public int getMaxStatements() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxStatements", 0);
         }
 
         @Override
         public int getMaxStatementLength() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxStatementLength", 0);
         }
 
         @Override
         public int getMaxSchemaNameLength() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxSchemaNameLength", 0);
         }
 
         @Override
         public int getMaxRowSize() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxRowSize", 0);
         }
 
         @Override
         public int getMaxProcedureNameLength() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxProcedureNameLength", 0);
         }
 
         @Override
         public int getMaxIndexLength() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxIndexLength", 0);
         }
 
         @Override
         public int getMaxCursorNameLength() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxCursorNameLength", 0);
         }
 
         @Override
         public int getMaxConnections() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxConnections", 0);
         }
 
         @Override
         public int getMaxColumnsInTable() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxColumnsInTable", 0);
         }
 
         @Override
         public int getMaxColumnsInSelect() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxColumnsInSelect", 0);
         }
 
         @Override
         public int getMaxColumnsInOrderBy() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxColumnsInOrderBy", 0);
         }
 
         @Override
         public int getMaxColumnsInIndex() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxColumnsInIndex", 0);
         }
 
         @Override
         public int getMaxColumnsInGroupBy() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxColumnsInGroupBy", 0);
         }
 
         @Override
         public int getMaxColumnNameLength() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxColumnNameLength", 0);
         }
 
         @Override
         public int getMaxCharLiteralLength() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxCharLiteralLength", 0);
         }
 
         @Override
         public int getMaxCatalogNameLength() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxCatalogNameLength", 0);
         }
 
         @Override
         public int getMaxBinaryLiteralLength() throws SQLException {
-            return 0;
+            return profile.getInt("getMaxBinaryLiteralLength", 0);
         }
 
         @Override
         public int getJDBCMinorVersion() throws SQLException {
-            return 0;
+            return profile.getInt("getJDBCMinorVersion", 0);
         }
 
         @Override
         public int getJDBCMajorVersion() throws SQLException {
-            return 0;
+            return profile.getInt("getJDBCMajorVersion", 0);
         }
 
         @Override
@@ -1069,19 +1104,19 @@ final class ConnectionMock
                                       String table,
                                       boolean unique,
                                       boolean approximate) throws SQLException {
-            return null;
+            return recorder.indexInfo(table, unique);
         }
 
         @Override
         public ResultSet getImportedKeys(String catalog,
                                          String schema,
                                          String table) throws SQLException {
-            return null;
+            return recorder.importedKeys(table);
         }
 
         @Override
         public String getIdentifierQuoteString() throws SQLException {
-            return null;
+            return profile.getString("getIdentifierQuoteString", null);
         }
 
         @Override
@@ -1101,7 +1136,7 @@ final class ConnectionMock
 
         @Override
         public String getExtraNameCharacters() throws SQLException {
-            return null;
+            return profile.getString("getExtraNameCharacters", null);
         }
 
         @Override
@@ -1113,12 +1148,12 @@ final class ConnectionMock
 
         @Override
         public String getDriverVersion() throws SQLException {
-            return null;
+            return profile.getString("getDriverVersion", null);
         }
 
         @Override
         public String getDriverName() throws SQLException {
-            return null;
+            return profile.getString("getDriverName", null);
         }
 
         @Override
@@ -1133,12 +1168,12 @@ final class ConnectionMock
 
         @Override
         public int getDefaultTransactionIsolation() throws SQLException {
-            return 0;
+            return profile.getInt("getDefaultTransactionIsolation", 0);
         }
 
         @Override
         public String getDatabaseProductVersion() throws SQLException {
-            return null;
+            return profile.getString("getDatabaseProductVersion", null);
         }
 
         @Override
@@ -1168,7 +1203,7 @@ final class ConnectionMock
 
         @Override
         public Connection getConnection() throws SQLException {
-            return null;
+            return ConnectionMock.this;
         }
 
         @Override
@@ -1176,7 +1211,7 @@ final class ConnectionMock
                                     String schemaPattern,
                                     String tableNamePattern,
                                     String columnNamePattern) throws SQLException {
-            return null;
+            return recorder.columns(tableNamePattern, columnNamePattern);
         }
 
         @Override
@@ -1199,12 +1234,12 @@ final class ConnectionMock
 
         @Override
         public String getCatalogTerm() throws SQLException {
-            return null;
+            return profile.getString("getCatalogTerm", null);
         }
 
         @Override
         public String getCatalogSeparator() throws SQLException {
-            return null;
+            return profile.getString("getCatalogSeparator", null);
         }
 
         @Override
@@ -1226,7 +1261,7 @@ final class ConnectionMock
 
         @Override
         public boolean doesMaxRowSizeIncludeBlobs() throws SQLException {
-            return false;
+            return profile.getBoolean("doesMaxRowSizeIncludeBlobs", false);
         }
 
         @Override
@@ -1236,27 +1271,27 @@ final class ConnectionMock
 
         @Override
         public boolean dataDefinitionIgnoredInTransactions() throws SQLException {
-            return false;
+            return profile.getBoolean("dataDefinitionIgnoredInTransactions", false);
         }
 
         @Override
         public boolean dataDefinitionCausesTransactionCommit() throws SQLException {
-            return false;
+            return profile.getBoolean("dataDefinitionCausesTransactionCommit", false);
         }
 
         @Override
         public boolean autoCommitFailureClosesAllResultSets() throws SQLException {
-            return false;
+            return profile.getBoolean("autoCommitFailureClosesAllResultSets", false);
         }
 
         @Override
         public boolean allTablesAreSelectable() throws SQLException {
-            return false;
+            return profile.getBoolean("allTablesAreSelectable", false);
         }
 
         @Override
         public boolean allProceduresAreCallable() throws SQLException {
-            return false;
+            return profile.getBoolean("allProceduresAreCallable", false);
         }
 
         @Override
@@ -1269,7 +1304,7 @@ final class ConnectionMock
 
         @Override
         public boolean generatedKeyAlwaysReturned() throws SQLException {
-            return false;
+            return profile.getBoolean("generatedKeyAlwaysReturned", false);
         }
     }
 }
@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static io.github.divinespear.maven.plugin.SqlLexer.Tokenizer.*;
+
+/**
+ * Generated statement, classified by what it creates or drops.
+ * <p>
+ * Object names are kept as keys: unquoted and upper-cased, so that references written in different case or quoting
+ * match.
+ */
+final class DdlStatement {
+
+    enum Kind {
+        SEQUENCE,
+        TABLE,
+        INDEX,
+        CONSTRAINT,
+        FOREIGN_KEY,
+        OTHER
+    }
+
+    private final String sql;
+    private final Kind kind;
+    private final boolean drop;
+    private final String name;
+    private final String table;
+    private final Set<String> references;
+
+    private DdlStatement(String sql,
+                         Kind kind,
+                         boolean drop,
+                         String name,
+                         String table,
+                         Set<String> references) {
+        this.sql = sql;
+        this.kind = kind;
+        this.drop = drop;
+        this.name = name;
+        this.table = table;
+        this.references = references;
+    }
+
+    String getSql() {
+        return sql;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return {@code true} for statements removing an object ({@code DROP ...}, {@code ALTER TABLE ... DROP ...})
+     */
+    boolean isDrop() {
+        return drop;
+    }
+
+    /**
+     * @return key of created or dropped object (sequence, table, index or constraint name), may be {@code null}
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return key of table this statement works on, may be {@code null}
+     */
+    String getTable() {
+        return table;
+    }
+
+    /**
+     * @return keys of tables referenced by foreign keys of this statement
+     */
+    Set<String> getReferences() {
+        return references;
+    }
+
+    @Override
+    public String toString() {
+        return sql;
+    }
+
+    static DdlStatement parse(String sql) {
+        final SqlLexer.Tokenizer tokens = new SqlLexer.Tokenizer().reset(sql);
+        if (!tokens.nextSignificant()) {
+            return other(sql, null);
+        }
+        if (tokens.is("create")) {
+            for (int i = 0; i < 3 && tokens.nextSignificant() && tokens.type() == WORD; i++) {
+                if (tokens.is("sequence")) {
+                    return new DdlStatement(sql, Kind.SEQUENCE, false, name(tokens), null,
+                            Collections.<String>emptySet());
+                }
+                if (tokens.is("table")) {
+                    String name = name(tokens);
+                    return new DdlStatement(sql, Kind.TABLE, false, name, name, references(tokens, name));
+                }
+                if (tokens.is("index")) {
+                    String name = name(tokens);
+                    while (tokens.nextSignificant() && !tokens.is("on")) {
+                        // skip sort order, etc.
+                    }
+                    return new DdlStatement(sql, Kind.INDEX, false, name, name(tokens),
+                            Collections.<String>emptySet());
+                }
+            }
+            return other(sql, null);
+        }
+        if (tokens.is("drop")) {
+            if (tokens.nextSignificant()) {
+                if (tokens.is("sequence")) {
+                    return new DdlStatement(sql, Kind.SEQUENCE, true, name(tokens), null,
+                            Collections.<String>emptySet());
+                }
+                if (tokens.is("table")) {
+                    String name = name(tokens);
+                    return new DdlStatement(sql, Kind.TABLE, true, name, name, Collections.<String>emptySet());
+                }
+                if (tokens.is("index")) {
+                    String name = name(tokens);
+                    String table = null;
+                    if (tokens.nextSignificant() && tokens.is("on")) {
+                        table = name(tokens);
+                    }
+                    return new DdlStatement(sql, Kind.INDEX, true, name, table, Collections.<String>emptySet());
+                }
+            }
+            return other(sql, null);
+        }
+        if (tokens.is("alter") && tokens.nextSignificant() && tokens.is("table")) {
+            final String table = name(tokens);
+            boolean drop = false, foreign = false;
+            String constraint = null;
+            Set<String> references = new TreeSet<>();
+            while (tokens.nextSignificant()) {
+                if (tokens.depth() > 0) {
+                    continue;
+                }
+                if (tokens.is("drop")) {
+                    drop = true;
+                } else if (tokens.is("constraint") && constraint == null) {
+                    constraint = name(tokens);
+                } else if (tokens.is("foreign")) {
+                    foreign = true;
+                } else if (tokens.is("references")) {
+                    foreign = true;
+                    references.add(name(tokens));
+                }
+            }
+            return new DdlStatement(sql, foreign ? Kind.FOREIGN_KEY : Kind.CONSTRAINT, drop, constraint, table,
+                    Collections.unmodifiableSet(references));
+        }
+        if (tokens.is("insert") && tokens.nextSignificant() && tokens.is("into")) {
+            return other(sql, name(tokens));
+        }
+        if (tokens.is("delete") && tokens.nextSignificant() && tokens.is("from")) {
+            return other(sql, name(tokens));
+        }
+        return other(sql, null);
+    }
+
+    private static DdlStatement other(String sql,
+                                      String table) {
+        return new DdlStatement(sql, Kind.OTHER, false, null, table, Collections.<String>emptySet());
+    }
+
+    /**
+     * read next (possibly qualified) object name, skipping {@code IF [NOT] EXISTS}.
+     */
+    static String name(SqlLexer.Tokenizer tokens) {
+        final StringBuilder name = new StringBuilder();
+        while (tokens.next()) {
+            final int type = tokens.type();
+            if (type == WHITESPACE || type == COMMENT) {
+                if (name.length() > 0) {
+                    break;
+                }
+                continue;
+            }
+            if (name.length() == 0 && (tokens.is("if") || tokens.is("not") || tokens.is("exists"))) {
+                continue;
+            }
+            if (type == WORD) {
+                appendUpperCase(name, tokens.sql(), tokens.start(), tokens.end());
+            } else if (type == QUOTED_IDENTIFIER) {
+                name.append(tokens.sql(), tokens.start() + 1, tokens.end() - 1);
+            } else if (type == SYMBOL && tokens.sql().charAt(tokens.start()) == '.') {
+                name.append('.');
+            } else {
+                break;
+            }
+        }
+        return name.length() == 0 ? null : name.toString();
+    }
+
+    private static Set<String> references(SqlLexer.Tokenizer tokens,
+                                          String self) {
+        Set<String> references = new TreeSet<>();
+        while (tokens.nextSignificant()) {
+            if (tokens.is("references")) {
+                String reference = name(tokens);
+                if (reference != null && !reference.equals(self)) {
+                    references.add(reference);
+                }
+            }
+        }
+        return Collections.unmodifiableSet(references);
+    }
+
+    private static void appendUpperCase(StringBuilder builder,
+                                        CharSequence s,
+                                        int start,
+                                        int end) {
+        for (int i = start; i < end; i++) {
+            builder.append(Character.toUpperCase(s.charAt(i)));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.jdbc.dialect.internal.StandardDialectResolver;
+import org.hibernate.engine.jdbc.dialect.spi.DialectResolutionInfo;
+
+import java.util.Map;
+
+/**
+ * Hibernate specific properties.
+ * <p>
+ * Loaded by project class loader only if Hibernate is provider (see
+ * {@link JpaSchemaGeneratorUtils#buildProperties(JpaSchemaGeneratorMojo)}), so it uses Hibernate of project, and
+ * plugin does not load Hibernate for other providers. Only JDK and Hibernate classes are used here, as other plugin
+ * dependencies are not seen by project class loader.
+ */
+final class HibernatePropertiesBuilder {
+
+    private HibernatePropertiesBuilder() {
+    }
+
+    /**
+     * @param map        properties given to provider, with common JPA properties, and dialect of product profile if
+     *                   known
+     * @param properties properties of plugin configuration, not yet added to map
+     */
+    static void build(Map<String, Object> map,
+                      Map<String, String> properties) {
+        // auto-detect
+        map.put(JpaSchemaGeneratorUtils.AUTODETECTION, "class,hbm");
+        // dialect (without jdbc connection)
+        String dialect = properties.get(JpaSchemaGeneratorUtils.DIALECT);
+        final Object profileDialect = map.remove(JpaSchemaGeneratorUtils.DIALECT);
+        if (isEmpty(dialect) && profileDialect != null && isDialect(profileDialect.toString())) {
+            // no detection by Hibernate
+            dialect = profileDialect.toString();
+        }
+        final Object url = map.get(JpaSchemaGeneratorUtils.JDBC_URL);
+        if (isEmpty(dialect) && (url == null || isEmpty(url.toString()))) {
+            final String productName = (String) map.get(JpaSchemaGeneratorUtils.SCHEMA_DATABASE_PRODUCT_NAME);
+            if (productName != null) {
+                final int majorVersion = version(map.get(JpaSchemaGeneratorUtils.SCHEMA_DATABASE_MAJOR_VERSION));
+                final int minorVersion = version(map.get(JpaSchemaGeneratorUtils.SCHEMA_DATABASE_MINOR_VERSION));
+                DialectResolutionInfo info = new DialectResolutionInfo() {
+                    @Override
+                    public String getDriverName() {
+                        return null;
+                    }
+
+                    @Override
+                    public int getDriverMinorVersion() {
+                        return 0;
+                    }
+
+                    @Override
+                    public int getDriverMajorVersion() {
+                        return 0;
+                    }
+
+                    @Override
+                    public String getDatabaseName() {
+                        return productName;
+                    }
+
+                    @Override
+                    public int getDatabaseMinorVersion() {
+                        return minorVersion;
+                    }
+
+                    @Override
+                    public int getDatabaseMajorVersion() {
+                        return majorVersion;
+                    }
+                };
+                Dialect detectedDialect = new StandardDialectResolver().resolveDialect(info);
+                dialect = detectedDialect == null ? null : detectedDialect.getClass().getName();
+            }
+        }
+        if (dialect != null) {
+            properties.remove(JpaSchemaGeneratorUtils.DIALECT);
+            map.put(JpaSchemaGeneratorUtils.DIALECT, dialect);
+        }
+    }
+
+    /**
+     * @return {@code true} if dialect is in Hibernate of project
+     */
+    private static boolean isDialect(String className) {
+        try {
+            return Dialect.class.isAssignableFrom(
+                    Class.forName(className, false, HibernatePropertiesBuilder.class.getClassLoader()));
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static boolean isEmpty(String s) {
+        return s == null || s.isEmpty();
+    }
+
+    private static int version(Object version) {
+        return version == null ? 0 : Integer.parseInt(version.toString());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.ServiceLoader;
+
+/**
+ * Opens connections to target database for work done by plugin itself.
+ * <p>
+ * Driver is given explicitly when possible, as {@link DriverManager} does not see drivers of project classpath from
+ * plugin classes.
+ */
+final class JdbcConnector {
+
+    private final Driver driver;
+    private final String url;
+    private final Properties info = new Properties();
+    private final Connection connection;
+
+    /**
+     * @param driver   driver to connect with, or {@code null} to use {@link DriverManager}
+     * @param url      jdbc connection url
+     * @param user     jdbc connection username, may be {@code null}
+     * @param password jdbc connection password, may be {@code null}
+     */
+    JdbcConnector(Driver driver,
+                  String url,
+                  String user,
+                  String password) {
+        if (url == null)
+            throw new NullPointerException("url");
+
+        this.driver = driver;
+        this.url = url;
+        this.connection = null;
+        if (user != null) {
+            info.setProperty("user", user);
+        }
+        if (password != null) {
+            info.setProperty("password", password);
+        }
+    }
+
+    /**
+     * @param connection connection given for all work instead of connecting, like {@link ConnectionMock} of dry run;
+     *                   it has to ignore being closed
+     * @param url        description of connection, in place of jdbc connection url
+     */
+    JdbcConnector(Connection connection,
+                  String url) {
+        if (connection == null)
+            throw new NullPointerException("connection");
+
+        this.driver = null;
+        this.url = url;
+        this.connection = connection;
+    }
+
+    /**
+     * @return driver of given class loader accepting url, {@code null} to use {@link DriverManager}
+     */
+    static Driver findDriver(String url,
+                             ClassLoader classLoader) throws SQLException {
+        for (Driver driver : ServiceLoader.load(Driver.class, classLoader)) {
+            if (driver.acceptsURL(url)) {
+                return driver;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * deregister drivers of given class loader, which drivers do register by themselves when loaded, so executions
+     * running in parallel do not see drivers of each other, and class loader is not kept by {@link DriverManager}.
+     * <p>
+     * {@link DriverManager} lets only classes seeing driver deregister it, so it is done by copy of this class in
+     * given class loader; nothing is done if class loader has no copy of its own.
+     */
+    static void deregisterDrivers(ClassLoader classLoader) throws ReflectiveOperationException {
+        Class<?> own = classLoader.loadClass(JdbcConnector.class.getName());
+        if (own.getClassLoader() == classLoader) {
+            Method method = own.getDeclaredMethod("deregisterOwnDrivers");
+            method.setAccessible(true);
+            method.invoke(null);
+        }
+    }
+
+    private static void deregisterOwnDrivers() throws SQLException {
+        for (Driver driver : Collections.list(DriverManager.getDrivers())) {
+            if (driver.getClass().getClassLoader() == JdbcConnector.class.getClassLoader()) {
+                DriverManager.deregisterDriver(driver);
+            }
+        }
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    String getUser() {
+        return info.getProperty("user");
+    }
+
+    Connection connect() throws SQLException {
+        if (connection != null) {
+            return connection;
+        }
+        if (driver == null) {
+            return DriverManager.getConnection(url, info);
+        }
+        Connection connection = driver.connect(url, info);
+        if (connection == null) {
+            throw new SQLException("driver " + driver.getClass().getName() + " does not accept url " + url);
+        }
+        return connection;
+    }
+}
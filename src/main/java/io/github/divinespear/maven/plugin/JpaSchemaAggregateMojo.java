@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.springframework.orm.jpa.persistenceunit.SmartPersistenceUnitInfo;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generate database schema or DDL scripts of all modules in reactor together, in one bootstrap of provider.
+ * <p>
+ * Runs once, on execution root. Classes and dependencies of all modules make one class loader, and entities found in
+ * {@code packageToScan} of all modules make one persistence unit; other configuration is same as {@code generate}
+ * goal. Only xml-less mode is supported, as persistence units of modules are not merged.
+ */
+@Mojo(name = "aggregate", aggregator = true, defaultPhase = LifecyclePhase.PROCESS_CLASSES, inheritByDefault = false,
+        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME, threadSafe = true)
+public class JpaSchemaAggregateMojo extends JpaSchemaGeneratorMojo {
+
+    /**
+     * @return modules of reactor with compiled classes, in reactor order
+     */
+    private List<MavenProject> getModules() {
+        if (this.getSession() == null || this.getSession().getProjects() == null) {
+            return Collections.emptyList();
+        }
+        List<MavenProject> modules = new ArrayList<>();
+        for (MavenProject module : this.getSession().getProjects()) {
+            if (getOutputDirectory(module, module.getBuild().getOutputDirectory()).isDirectory()) {
+                modules.add(module);
+            }
+        }
+        return modules;
+    }
+
+    private static File getOutputDirectory(MavenProject module,
+                                           String directory) {
+        File file = new File(directory);
+        return file.isAbsolute() ? file : new File(module.getBasedir(), directory);
+    }
+
+    /**
+     * @return classes of all modules, then their dependencies; modules depending on each other are given once
+     */
+    @Override
+    List<URL> getProjectClasspath() throws MojoExecutionException {
+        final List<MavenProject> modules = this.getModules();
+        if (modules.isEmpty()) {
+            return super.getProjectClasspath();
+        }
+        try {
+            Set<URL> classURLs = new LinkedHashSet<>();
+            for (MavenProject module : modules) {
+                classURLs.add(getOutputDirectory(module, module.getBuild().getOutputDirectory()).toURI().toURL());
+                if (this.isScanTestClasses() && module.getBuild().getTestOutputDirectory() != null) {
+                    classURLs.add(getOutputDirectory(module, module.getBuild().getTestOutputDirectory()).toURI()
+                            .toURL());
+                }
+            }
+            for (MavenProject module : modules) {
+                List<String> classFiles = new ArrayList<>(module.getCompileClasspathElements());
+                if (this.isScanTestClasses()) {
+                    classFiles.addAll(module.getTestClasspathElements());
+                }
+                for (String classFile : classFiles) {
+                    classURLs.add(getOutputDirectory(module, classFile).toURI().toURL());
+                }
+            }
+            return new ArrayList<>(classURLs);
+        } catch (Exception e) {
+            this.getLog().error("Error while creating classloader", e);
+            throw new MojoExecutionException("Error while creating classloader", e);
+        }
+    }
+
+    /**
+     * @return persistence unit of entities of all modules, logged by module they are in
+     */
+    @Override
+    SmartPersistenceUnitInfo scanPersistenceUnit(List<URL> projectClasspath) {
+        if (this.getVendor() == null) {
+            throw new IllegalArgumentException("vendor is required on aggregate goal, as persistence units of "
+                    + "modules are not merged.");
+        }
+        final SmartPersistenceUnitInfo info = super.scanPersistenceUnit(projectClasspath);
+
+        // entity index of modules
+        for (MavenProject module : this.getModules()) {
+            final File directory = getOutputDirectory(module, module.getBuild().getOutputDirectory());
+            int count = 0;
+            for (String className : info.getManagedClassNames()) {
+                if (new File(directory, className.replace('.', '/') + ".class").isFile()) {
+                    count++;
+                }
+            }
+            this.getLog().info(String.format("  * %s: %d managed class(es)", module.getArtifactId(), count));
+        }
+        return info;
+    }
+}
@@ -32,11 +32,12 @@ import org.apache.maven.project.MavenProject;
 import org.codehaus.plexus.util.StringUtils;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.SessionData;
 import org.eclipse.aether.collection.CollectRequest;
 import org.eclipse.aether.resolution.ArtifactResult;
 import org.eclipse.aether.resolution.DependencyRequest;
 import org.eclipse.aether.resolution.DependencyResolutionException;
-import org.hibernate.tool.hbm2ddl.SchemaExport;
+import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.orm.jpa.persistenceunit.DefaultPersistenceUnitManager;
 import org.springframework.orm.jpa.persistenceunit.SmartPersistenceUnitInfo;
 
@@ -46,12 +47,23 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.Driver;
-import java.sql.DriverManager;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -60,16 +72,20 @@ import java.util.regex.Pattern;
  * @author divinespear
  */
 @Mojo(name = "generate", defaultPhase = LifecyclePhase.PROCESS_CLASSES, inheritByDefault = false,
-        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME)
+        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME, threadSafe = true)
 public class JpaSchemaGeneratorMojo extends AbstractMojo {
 
     private static final Map<String, String> LINE_SEPARATOR_MAP = new HashMap<>();
     private static final Map<Vendor, String> PROVIDER_MAP = new HashMap<>();
-    private static final Pattern CREATE_DROP_PATTERN = Pattern.compile("((?:create|drop|alter)\\s+(?:table|view|sequence))",
-            Pattern.CASE_INSENSITIVE);
-    private static final Pattern PATTERN_CREATE_TABLE = Pattern.compile("(?i)^create(\\s+\\S+)?\\s+(?:table|view)"),
-            PATTERN_CREATE_INDEX = Pattern.compile("(?i)^create(\\s+\\S+)?\\s+index"),
-            PATTERN_ALTER_TABLE = Pattern.compile("(?i)^alter\\s+table");
+    /**
+     * seconds to wait for database to answer validation of connection
+     */
+    private static final int CONNECTION_VALIDATION_TIMEOUT = 10;
+    /**
+     * guards bootstrap of provider not loaded by class loader of execution, as its static state is shared
+     */
+    private static final Object SHARED_PROVIDER_LOCK = new Object();
+    private static final Pattern MIGRATION_SCRIPT_PATTERN = Pattern.compile("V(\\d+)__.*\\.sql");
 
     static {
         LINE_SEPARATOR_MAP.put("CR", "\r");
@@ -98,11 +114,59 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
      */
     @Parameter(property = "jpa-schema.generate.skip", required = true, defaultValue = "false")
     private boolean skip = false;
+    /**
+     * generate in background, so goal returns at once and rest of build goes on meanwhile
+     * <p>
+     * generation is joined, and fails build if it failed, before {@link #backgroundJoinPhase} of project, or at end
+     * of session. requires plugin declared with {@code <extensions>true</extensions>}, for lifecycle participant
+     * joining it; without, generation is not in background.
+     */
+    @Parameter(property = "jpa-schema.generate.background", required = true, defaultValue = "false")
+    private boolean background = false;
+    /**
+     * phase of project (like {@code package}) to join {@link #background} generation before; at end of session if
+     * not set
+     */
+    @Parameter(property = "jpa-schema.generate.background-join-phase")
+    private String backgroundJoinPhase;
     /**
      * generate as formatted
      */
     @Parameter(property = "jpa-schema.generate.format", required = true, defaultValue = "false")
     private boolean format = false;
+    /**
+     * generate scripts in canonical order
+     * <p>
+     * statements are ordered by phase (sequences, tables in foreign key order, indexes, constraints, foreign keys)
+     * and name, with normalized whitespace, so same mapping always generates identical scripts.
+     */
+    @Parameter(property = "jpa-schema.generate.canonical", required = true, defaultValue = "false")
+    private boolean canonical = false;
+    /**
+     * also write generated scripts split by execution phase
+     * <p>
+     * for each script (like {@code create.sql}), writes one file per phase ({@code create.sequences.sql},
+     * {@code create.tables.sql}, {@code create.indexes.sql}, {@code create.constraints.sql},
+     * {@code create.foreign-keys.sql}, ...) and {@code create.manifest.json}, which lists phases in execution order
+     * with their tables and whether their statements may run concurrently.
+     */
+    @Parameter(property = "jpa-schema.generate.split-output", required = true, defaultValue = "false")
+    private boolean splitOutput = false;
+    /**
+     * also write dependency graph of generated statements
+     * <p>
+     * for each script (like {@code create.sql}), writes {@code create.graph.json}, listing statements with
+     * statements they depend on, length of critical path and suggested maximum parallelism.
+     */
+    @Parameter(property = "jpa-schema.generate.graph-output", required = true, defaultValue = "false")
+    private boolean graphOutput = false;
+    /**
+     * also write model of create script (tables, columns, constraints, indexes and sequences) next to it as
+     * {@code create.model.json} and compact binary {@code create.model.bin}, for tools reading schema without parsing
+     * SQL. format is same as schema snapshot of {@code snapshot} goal.
+     */
+    @Parameter(property = "jpa-schema.generate.model-output", required = true, defaultValue = "false")
+    private boolean modelOutput = false;
     /**
      * scan test classes
      */
@@ -111,7 +175,7 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
     /**
      * location of {@code persistence.xml} file
      * <p>
-     * Note for Hibernate <b>DOES NOT SUPPORT custom location.</b> ({@link SchemaExport} support it, but JPA 2.1 schema
+     * Note for Hibernate <b>DOES NOT SUPPORT custom location.</b> ({@code SchemaExport} of Hibernate support it, but JPA 2.1 schema
      * generator does NOT.)
      */
     @Parameter(required = true, defaultValue = JpaSchemaGeneratorUtils.ECLIPSELINK_PERSISTENCE_XML_DEFAULT)
@@ -124,17 +188,97 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
     /**
      * schema generation action for database
      * <p>
-     * support value is {@code none}, {@code create}, {@code drop}, {@code drop-and-create}, or
-     * {@code create-or-extend-tables}.
+     * support value is {@code none}, {@code create}, {@code drop}, {@code drop-and-create},
+     * {@code create-or-extend-tables}, or {@code update}.
      * <p>
      * {@code create-or-extend-tables} only support for EclipseLink with database target.
+     * <p>
+     * {@code update} is run by plugin for any provider, and requires {@link #jdbcUrl}: database schema is read
+     * through JDBC metadata and compared with mapping, and only missing sequences, tables, columns, indexes and
+     * constraints are created (see {@link #updateDropObjects}). statements are written to
+     * {@link #updateOutputFileName} in {@link #outputDirectory} before being executed.
      */
     @Parameter(required = true, defaultValue = JpaSchemaGeneratorUtils.SCHEMA_GENERATION_NONE_ACTION)
     private String databaseAction = JpaSchemaGeneratorUtils.SCHEMA_GENERATION_NONE_ACTION;
+    /**
+     * number of connections for database action
+     * <p>
+     * if greater than {@code 1} and {@link #jdbcUrl} is set, {@code create}, {@code drop} and
+     * {@code drop-and-create} database actions are run by plugin instead of persistence provider: generated
+     * statements are executed over given number of connections, independent statements (like indexes on different
+     * tables) concurrently. execution stops on first error (errors in drop statements are only logged), and each
+     * statement's execution time is logged.
+     */
+    @Parameter(property = "jpa-schema.generate.database-parallelism", required = true, defaultValue = "1")
+    private int databaseParallelism = 1;
+    /**
+     * maximum number of statements sent at once for database action
+     * <p>
+     * if greater than {@code 1} and {@link #jdbcUrl} is set, database action is run by plugin (as with
+     * {@link #databaseParallelism}), sending independent statements in JDBC batches. on databases with transactional
+     * DDL, each batch runs in single transaction. failed batch is retried statement by statement to report failing
+     * statement. {@link #createSourceFile} and {@link #dropSourceFile} are then also run by plugin, and not included
+     * in generated scripts.
+     */
+    @Parameter(property = "jpa-schema.generate.database-batch-size", required = true, defaultValue = "1")
+    private int databaseBatchSize = 1;
+    /**
+     * number of connections for reading database schema, like for {@code update} database action
+     * <p>
+     * metadata is read for whole schema at once where JDBC driver allows it, otherwise table by table over given
+     * number of connections. schema read is reused within Maven session until plugin changes it.
+     */
+    @Parameter(property = "jpa-schema.generate.metadata-parallelism", required = true, defaultValue = "4")
+    private int metadataParallelism = 4;
+    /**
+     * also drop foreign keys, columns and tables not in mapping on {@code update} database or script action, and in
+     * migration scripts of {@link #migrationOutput}
+     */
+    @Parameter(property = "jpa-schema.generate.update-drop-objects", required = true, defaultValue = "false")
+    private boolean updateDropObjects = false;
+    /**
+     * directory of seed data loaded after {@code create} database action
+     * <p>
+     * with {@link #jdbcUrl}, each {@code <table>.csv} (with header row) or {@code <table>.jsonl} (one JSON object per
+     * line) file in UTF-8 is loaded into table of same name by plugin. tables are loaded over
+     * {@link #databaseParallelism} connections, referenced tables first. on PostgreSQL and embedded H2, CSV files are
+     * loaded by {@code COPY} and {@code CSVREAD}, in one transaction per file. empty unquoted CSV value is
+     * {@code NULL}.
+     */
+    @Parameter(property = "jpa-schema.generate.seed-data-directory")
+    private File seedDataDirectory;
+    /**
+     * number of rows inserted per JDBC batch and transaction while loading {@link #seedDataDirectory}
+     * <p>
+     * not applied to CSV files loaded by {@code COPY} on PostgreSQL or {@code CSVREAD} on embedded H2; use JSON lines
+     * files to load them in batches.
+     */
+    @Parameter(property = "jpa-schema.generate.seed-commit-interval", required = true, defaultValue = "1000")
+    private int seedCommitInterval = 1000;
+    /**
+     * record database action instead of running it
+     * <p>
+     * statements of database action are executed on connection emulated like for script generation (see
+     * {@link #databaseProductName}), and written to {@link #dryRunOutputFileName} in {@link #outputDirectory} in order
+     * of execution. database is not connected, even if {@link #jdbcUrl} is set. metadata queries of provider or
+     * plugin (like for {@code create-or-extend-tables} or {@code update}) are answered from {@link #snapshotFile}, or
+     * as of empty schema without it. {@link #seedDataDirectory} is not loaded.
+     */
+    @Parameter(property = "jpa-schema.generate.database-dry-run", required = true, defaultValue = "false")
+    private boolean databaseDryRun = false;
+    /**
+     * script name of statements recorded by {@link #databaseDryRun}
+     */
+    @Parameter(defaultValue = "dry-run.sql")
+    private String dryRunOutputFileName = "dry-run.sql";
     /**
      * schema generation action for script
      * <p>
-     * support value is {@code none}, {@code create}, {@code drop}, or {@code drop-and-create}.
+     * support value is {@code none}, {@code create}, {@code drop}, {@code drop-and-create}, or {@code update}.
+     * <p>
+     * {@code update} requires {@link #snapshotFile}: mapping is compared with schema snapshot without database
+     * access, like {@code update} database action, and statements are written to {@link #updateOutputFileName}.
+     * if database action is also {@code update}, its statements are written instead.
      */
     @Parameter(required = true, defaultValue = JpaSchemaGeneratorUtils.SCHEMA_GENERATION_NONE_ACTION)
     private String scriptAction = JpaSchemaGeneratorUtils.SCHEMA_GENERATION_NONE_ACTION;
@@ -160,6 +304,40 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
      */
     @Parameter(defaultValue = "drop.sql")
     private String dropOutputFileName = "drop.sql";
+    /**
+     * script name of statements run by {@code update} database action, or generated by {@code update} script action
+     */
+    @Parameter(defaultValue = "update.sql")
+    private String updateOutputFileName = "update.sql";
+    /**
+     * schema snapshot written by {@code snapshot} goal, compared with mapping on {@code update} script action, and
+     * described to database action of {@link #databaseDryRun}
+     */
+    @Parameter(property = "jpa-schema.generate.snapshot-file")
+    private File snapshotFile;
+    /**
+     * write changes of mapping since previous generation as migration script
+     * <p>
+     * model of generated create script is stored as {@link #migrationModelFileName} in {@link #outputDirectory}, and
+     * next generation is compared with it without database access: changes are written to {@code V<n>__delta.sql}
+     * in {@link #outputDirectory}, following highest version of existing {@code V<n>__*.sql} scripts. first script
+     * creates whole schema, and no script is written if mapping is not changed. tables created by same statements
+     * as before are matched by hash, and not compared further.
+     * <p>
+     * stored model is replaced only if all changes are written: if some cannot be (like changed column type or
+     * nullability, or removed index, see {@link SchemaDiff}), they are logged, and neither script nor model is
+     * written until mapping is changed back or migration is handled otherwise. objects not dropped as
+     * {@link #updateDropObjects} is not set are left out of model.
+     * <p>
+     * REQUIRED {@link #scriptAction} is one of {@code create}, {@code drop-and-create}, or {@code update}.
+     */
+    @Parameter(property = "jpa-schema.generate.migration-output", required = true, defaultValue = "false")
+    private boolean migrationOutput = false;
+    /**
+     * stored model name of {@link #migrationOutput}
+     */
+    @Parameter(defaultValue = "schema-model.json")
+    private String migrationModelFileName = "schema-model.json";
     /**
      * specifies whether the creation of database artifacts is to occur on the basis of the object/relational mapping
      * metadata, DDL script, or a combination of the two.
@@ -174,6 +352,11 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
      * <p>
      * REQUIRED for {@link #createSourceMode} is one of {@code script}, {@code metadata-then-script}, or
      * {@code script-then-metadata}.
+     * <p>
+     * with {@link #jdbcUrl}, source file of database action is streamed into database by plugin with bounded memory,
+     * in batches of {@link #databaseBatchSize}, logging progress. so is load script given as
+     * {@code javax.persistence.sql-load-script-source} property (file path, file URL, or classpath resource). both
+     * are read in UTF-8.
      */
     @Parameter
     private File createSourceFile;
@@ -191,6 +374,9 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
      * <p>
      * REQUIRED for {@link #dropSourceMode} is one of {@code script}, {@code metadata-then-script}, or
      * {@code script-then-metadata}.
+     * <p>
+     * with {@link #jdbcUrl}, source file of database action is streamed into database by plugin (see
+     * {@link #createSourceFile}).
      */
     @Parameter
     private File dropSourceFile;
@@ -260,6 +446,17 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
      */
     @Parameter
     private Integer databaseMinorVersion;
+    /**
+     * properties file of {@link DatabaseMetaData} values for script generation without connection
+     * <p>
+     * connection given to provider returns built-in values of {@link #databaseProductName} for PostgreSQL, Oracle,
+     * MySQL, MariaDB, SQL Server, H2, and DB2 (like identifier quoting and case, maximum name lengths, and keywords).
+     * values of this file are keyed by {@link DatabaseMetaData} method name (like
+     * {@code getIdentifierQuoteString}), optionally followed by {@code @<major>.<minor>} for product version and later,
+     * and override built-in values.
+     */
+    @Parameter
+    private File databaseMetadataFile;
     /**
      * line separator for generated schema file.
      * <p>
@@ -310,11 +507,34 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
         return skip;
     }
 
+    public boolean isBackground() {
+        return background;
+    }
+
+    public String getBackgroundJoinPhase() {
+        return backgroundJoinPhase;
+    }
+
     public boolean isFormat() {
         return format;
     }
 
-    @SuppressWarnings("unused")
+    public boolean isCanonical() {
+        return canonical;
+    }
+
+    public boolean isSplitOutput() {
+        return splitOutput;
+    }
+
+    public boolean isGraphOutput() {
+        return graphOutput;
+    }
+
+    public boolean isModelOutput() {
+        return modelOutput;
+    }
+
     public boolean isScanTestClasses() {
         return scanTestClasses;
     }
@@ -332,6 +552,30 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
         return databaseAction;
     }
 
+    public int getDatabaseParallelism() {
+        return databaseParallelism;
+    }
+
+    public int getDatabaseBatchSize() {
+        return databaseBatchSize;
+    }
+
+    public File getSeedDataDirectory() {
+        return seedDataDirectory;
+    }
+
+    public int getSeedCommitInterval() {
+        return seedCommitInterval;
+    }
+
+    public boolean isDatabaseDryRun() {
+        return databaseDryRun;
+    }
+
+    public File getDryRunOutputFile() {
+        return this.outputDirectory == null ? null : new File(this.outputDirectory, this.dryRunOutputFileName);
+    }
+
     public String getScriptAction() {
         return scriptAction;
     }
@@ -358,6 +602,26 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
         return this.outputDirectory == null ? null : new File(this.outputDirectory, this.dropOutputFileName);
     }
 
+    public File getUpdateOutputFile() {
+        return this.outputDirectory == null ? null : new File(this.outputDirectory, this.updateOutputFileName);
+    }
+
+    public File getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public boolean isMigrationOutput() {
+        return migrationOutput;
+    }
+
+    public File getMigrationModelFile() {
+        return this.outputDirectory == null ? null : new File(this.outputDirectory, this.migrationModelFileName);
+    }
+
+    public boolean isUpdateDropObjects() {
+        return updateDropObjects;
+    }
+
     public String getCreateSourceMode() {
         return createSourceMode;
     }
@@ -402,6 +666,10 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
         return databaseMinorVersion;
     }
 
+    public File getDatabaseMetadataFile() {
+        return databaseMetadataFile;
+    }
+
     public String getLineSeparator() {
         String actual = StringUtils.isEmpty(lineSeparator) ? null : LINE_SEPARATOR_MAP.get(lineSeparator.toUpperCase());
         return actual == null ? System.getProperty("line.separator", "\n") : actual;
@@ -419,6 +687,10 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
         return PROVIDER_MAP.get(vendor);
     }
 
+    static String getProviderClassName(Vendor vendor) {
+        return PROVIDER_MAP.get(vendor);
+    }
+
     public List<String> getPackagesToScan() {
         return packageToScan;
     }
@@ -427,9 +699,15 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
         return validationMode;
     }
 
-    private ClassLoader getProjectClassLoader() throws MojoExecutionException {
+    MavenSession getSession() {
+        return session;
+    }
+
+    /**
+     * @return compiled classes and dependencies of project
+     */
+    List<URL> getProjectClasspath() throws MojoExecutionException {
         try {
-            // compiled classes and dependencies
             List<String> classFiles = this.project.getCompileClasspathElements();
             if (this.scanTestClasses) {
                 classFiles.addAll(this.project.getTestClasspathElements());
@@ -439,9 +717,20 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
             for (String classfile : classFiles) {
                 classURLs.add(new File(classfile).toURI().toURL());
             }
+            return classURLs;
+        } catch (Exception e) {
+            this.log.error("Error while creating classloader", e);
+            throw new MojoExecutionException("Error while creating classloader", e);
+        }
+    }
+
+    private ClassLoader getProjectClassLoader(List<URL> projectClasspath,
+                                              Future<List<URL>> pluginDependencies) throws MojoExecutionException {
+        try {
+            List<URL> classURLs = new ArrayList<>(projectClasspath);
 
             // add custom plugin dependencies
-            classURLs.addAll(resolvePluginDependencies());
+            classURLs.addAll(StagePipeline.join(pluginDependencies));
 
             // add plugin itself
             classURLs.add(PersistenceUnitInfoImp.class.getProtectionDomain().getCodeSource().getLocation());
@@ -480,30 +769,42 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
         return result;
     }
 
-    private void generate() throws Exception {
-        Map<String, Object> map = JpaSchemaGeneratorUtils.buildProperties(this);
+    /**
+     * scan persistence unit of xml-less mode; only class files of project are read, classes are not loaded.
+     *
+     * @return persistence unit found, {@code null} with persistence.xml
+     */
+    SmartPersistenceUnitInfo scanPersistenceUnit(List<URL> projectClasspath) {
+        if (getVendor() == null) {
+            return null;
+        }
+        List<String> packages = getPackagesToScan();
+        if (packages.isEmpty()) {
+            throw new IllegalArgumentException("packageToScan is required on xml-less mode.");
+        }
+
+        ClassLoader scanLoader = new URLClassLoader(projectClasspath.toArray(new URL[projectClasspath.size()]),
+                this.getClass().getClassLoader().getParent());
+        DefaultPersistenceUnitManager manager = new DefaultPersistenceUnitManager();
+        manager.setResourceLoader(new DefaultResourceLoader(scanLoader));
+        manager.setPackagesToScan(packages.toArray(new String[packages.size()]));
+        manager.afterPropertiesSet();
 
+        return (SmartPersistenceUnitInfo) manager.obtainDefaultPersistenceUnitInfo();
+    }
+
+    private void generate(Map<String, Object> map,
+                          SmartPersistenceUnitInfo info) throws Exception {
         ClassLoader loader = Thread.currentThread().getContextClassLoader();
         Class<?> jpaSchemaGeneratorWrapperClass = loader.loadClass("io.github.divinespear.maven.plugin.JpaSchemaGeneratorWrapper");
         Constructor constructor;
         Object jpaSchemaGeneratorWrapper;
-        if (getVendor() == null) {
+        if (info == null) {
             // with persistence.xml
             constructor = jpaSchemaGeneratorWrapperClass.getDeclaredConstructor(String.class, Map.class);
             constructor.setAccessible(true);
             jpaSchemaGeneratorWrapper = constructor.newInstance(this.persistenceUnitName, map);
         } else {
-            List<String> packages = getPackagesToScan();
-            if (packages.isEmpty()) {
-                throw new IllegalArgumentException("packageToScan is required on xml-less mode.");
-            }
-
-            DefaultPersistenceUnitManager manager = new DefaultPersistenceUnitManager();
-            manager.setPackagesToScan(packages.toArray(new String[packages.size()]));
-            manager.afterPropertiesSet();
-
-            SmartPersistenceUnitInfo info = (SmartPersistenceUnitInfo) manager.obtainDefaultPersistenceUnitInfo();
-
             constructor = jpaSchemaGeneratorWrapperClass.getDeclaredConstructor(String.class, URL.class, List.class, Map.class);
             constructor.setAccessible(true);
             jpaSchemaGeneratorWrapper = constructor.newInstance(getProviderClassName(), info.getPersistenceUnitRootUrl(), info.getManagedClassNames(), map);
@@ -518,6 +819,20 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
         }
     }
 
+    /**
+     * Runs preflight as stages, each started as soon as what it needs is ready:
+     * <ol>
+     * <li>plugin dependencies are resolved, while entities are scanned from project classpath;</li>
+     * <li>with both, provider bootstraps and generates schema;</li>
+     * <li>meanwhile connection to {@link #jdbcUrl} is opened and validated, so unreachable database fails
+     * build without waiting for bootstrap.</li>
+     * </ol>
+     * <p>
+     * Executions may run in parallel (like {@code mvn -T}): each has its own class loader of project, so provider
+     * and driver are loaded for it alone, and drivers are not registered globally by plugin. Drivers registering by
+     * themselves are deregistered when execution is done. Bootstrap of provider seen by other class loader too is
+     * serialized.
+     */
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         if (this.skip) {
@@ -525,158 +840,428 @@ public class JpaSchemaGeneratorMojo extends AbstractMojo {
             return;
         }
 
+        // read now, as project is changed by rest of build
+        final List<URL> projectClasspath = this.getProjectClasspath();
+        if (this.background) {
+            final Queue<Map.Entry<String, Future<?>>> pending = BackgroundGenerationParticipant.getPending(
+                    this.session, this.project);
+            if (pending != null) {
+                final FutureTask<Void> generation = new FutureTask<>(new Callable<Void>() {
+                    @Override
+                    public Void call() throws MojoExecutionException {
+                        executeGeneration(projectClasspath);
+                        return null;
+                    }
+                });
+                pending.add(new AbstractMap.SimpleImmutableEntry<String, Future<?>>(this.backgroundJoinPhase,
+                        generation));
+                Thread thread = new Thread(generation, "jpa-schema-background-" + this.project.getArtifactId());
+                thread.setDaemon(true);
+                thread.start();
+                log.info("schema generation runs in background, joined " + (this.backgroundJoinPhase == null
+                        ? "at end of session." : "before " + this.backgroundJoinPhase + "."));
+                return;
+            }
+            log.warn("background generation requires plugin declared with <extensions>true</extensions>, "
+                    + "generating now.");
+        }
+        this.executeGeneration(projectClasspath);
+    }
+
+    private void executeGeneration(final List<URL> projectClasspath) throws MojoExecutionException {
         if (this.outputDirectory != null && !this.outputDirectory.exists()) {
             //noinspection ResultOfMethodCallIgnored
             this.outputDirectory.mkdirs();
         }
 
-        final ClassLoader classLoader = this.getProjectClassLoader();
-        // driver load hack
-        // http://stackoverflow.com/questions/288828/how-to-use-a-jdbc-driver-from-an-arbitrary-location
-        if (StringUtils.isNotBlank(this.jdbcDriver)) {
-            try {
-                Driver driver = (Driver) classLoader.loadClass(this.jdbcDriver).newInstance();
-                DriverManager.registerDriver(driver);
+        final boolean dryRun = JpaSchemaGeneratorUtils.isDryRun(this);
+        ClassLoader classLoader = null;
+        try {
+            final Map<String, Object> map;
+            JdbcConnector connector = null;
+            try (StagePipeline pipeline = new StagePipeline(this.log)) {
+                final Future<List<URL>> pluginDependencies = pipeline.start("resolve", new Callable<List<URL>>() {
+                    @Override
+                    public List<URL> call() throws Exception {
+                        return resolvePluginDependencies();
+                    }
+                });
+                final Future<SmartPersistenceUnitInfo> persistenceUnit = pipeline.start("scan",
+                        new Callable<SmartPersistenceUnitInfo>() {
+                            @Override
+                            public SmartPersistenceUnitInfo call() {
+                                return scanPersistenceUnit(projectClasspath);
+                            }
+                        });
+
+                classLoader = this.getProjectClassLoader(projectClasspath, pluginDependencies);
+                final ClassLoader projectClassLoader = classLoader;
+                // driver is given to plugin connections, providers load it by class name from project class loader
+                Driver driver = null;
+                if (StringUtils.isNotBlank(this.jdbcDriver)) {
+                    try {
+                        driver = (Driver) classLoader.loadClass(this.jdbcDriver).getDeclaredConstructor()
+                                .newInstance();
+                    } catch (Exception e) {
+                        throw new MojoExecutionException("Dependency for driver-class " + this.jdbcDriver + " is missing!", e);
+                    }
+                }
+
+                // check connection while provider boots
+                if (StringUtils.isNotBlank(this.jdbcUrl) && !dryRun) {
+                    try {
+                        connector = new JdbcConnector(driver == null ? JdbcConnector.findDriver(this.jdbcUrl, classLoader)
+                                : driver, this.jdbcUrl, this.jdbcUser, this.jdbcPassword);
+                    } catch (SQLException e) {
+                        throw new MojoExecutionException("Error while connecting to " + this.jdbcUrl, e);
+                    }
+                    final JdbcConnector validated = connector;
+                    pipeline.start("connect", new Callable<Void>() {
+                        @Override
+                        public Void call() throws MojoExecutionException {
+                            validateConnection(validated);
+                            return null;
+                        }
+                    });
+                }
+
+                // generate schema
+                final Future<Map<String, Object>> generated = pipeline.start("bootstrap",
+                        new Callable<Map<String, Object>>() {
+                            @Override
+                            public Map<String, Object> call() throws Exception {
+                                Thread thread = Thread.currentThread();
+                                ClassLoader currentClassLoader = thread.getContextClassLoader();
+                                try {
+                                    thread.setContextClassLoader(projectClassLoader);
+                                    Map<String, Object> map = JpaSchemaGeneratorUtils.buildProperties(
+                                            JpaSchemaGeneratorMojo.this);
+                                    SmartPersistenceUnitInfo info = StagePipeline.join(persistenceUnit);
+                                    if (isProviderIsolated(projectClassLoader)) {
+                                        generate(map, info);
+                                    } else {
+                                        synchronized (SHARED_PROVIDER_LOCK) {
+                                            log.debug("provider is shared with other executions, generating alone");
+                                            generate(map, info);
+                                        }
+                                    }
+                                    return map;
+                                } catch (Exception e) {
+                                    throw new MojoExecutionException("Error while running", e);
+                                } finally {
+                                    thread.setContextClassLoader(currentClassLoader);
+                                }
+                            }
+                        });
+
+                pipeline.await();
+                map = generated.get();
+            } catch (MojoExecutionException e) {
+                throw e;
             } catch (Exception e) {
-                throw new MojoExecutionException("Dependency for driver-class " + this.jdbcDriver + " is missing!", e);
+                throw new MojoExecutionException("Error while running", e);
+            }
+
+            // post-process
+            try {
+                this.postProcess(map);
+            } catch (IOException e) {
+                throw new MojoExecutionException("Error while post-processing script file", e);
+            }
+
+            this.runDatabaseAction(map, connector, dryRun, classLoader);
+        } finally {
+            if (classLoader != null) {
+                JpaSchemaGeneratorUtils.releaseClassLoader(classLoader, this.log);
             }
         }
+    }
 
-        // generate schema
-        Thread thread = Thread.currentThread();
-        ClassLoader currentClassLoader = thread.getContextClassLoader();
+    /**
+     * @return {@code true} if provider is loaded by project class loader of this execution only, so its static state
+     * is not shared with other executions
+     */
+    private boolean isProviderIsolated(ClassLoader classLoader) {
+        final String className = getVendor() == null ? "javax.persistence.Persistence" : getProviderClassName();
         try {
-            thread.setContextClassLoader(classLoader);
-            this.generate();
-        } catch (Exception e) {
-            throw new MojoExecutionException("Error while running", e);
-        } finally {
-            thread.setContextClassLoader(currentClassLoader);
+            return classLoader.loadClass(className).getClassLoader() == classLoader;
+        } catch (ClassNotFoundException e) {
+            // fails by itself
+            return true;
         }
+    }
 
-        // post-process
+    /**
+     * run database action by plugin, and write statements of dry run.
+     *
+     * @param connector connector to {@link #jdbcUrl}, {@code null} without it or on dry run
+     */
+    private void runDatabaseAction(Map<String, Object> map,
+                                   JdbcConnector connector,
+                                   boolean dryRun,
+                                   ClassLoader classLoader) throws MojoExecutionException {
         try {
-            this.postProcess();
-        } catch (IOException e) {
-            throw new MojoExecutionException("Error while post-processing script file", e);
+            if (JpaSchemaGeneratorUtils.isPluginDatabaseAction(this)) {
+                this.executeDatabaseAction(map, dryRun
+                        ? new JdbcConnector(this.getDryRunConnection(map), "dry run") : connector, dryRun, classLoader);
+            }
+            if (dryRun) {
+                final List<String> statements = this.getDryRunConnection(map).getStatements();
+                this.writeScript(this.getDryRunOutputFile(), statements);
+                this.log.info(String.format("%d statement(s) of %s database action are recorded to %s",
+                        statements.size(), this.databaseAction, this.getDryRunOutputFile().getName()));
+            }
+        } catch (IOException | SQLException e) {
+            throw new MojoExecutionException("Error while executing database action", e);
+        } finally {
+            // schema read before is outdated
+            ConcurrentMap<String, SchemaModel> cache = this.getSchemaCache();
+            if (cache != null && !dryRun && StringUtils.isNotBlank(this.jdbcUrl)
+                    && !JpaSchemaGeneratorUtils.SCHEMA_GENERATION_NONE_ACTION.equalsIgnoreCase(this.databaseAction)) {
+                cache.remove(SchemaReader.cacheKey(this.jdbcUrl, this.jdbcUser));
+            }
+        }
+    }
+
+    /**
+     * open connection to database and check it is usable.
+     */
+    private void validateConnection(JdbcConnector connector) throws MojoExecutionException {
+        try (Connection connection = connector.connect()) {
+            if (!connection.isValid(CONNECTION_VALIDATION_TIMEOUT)) {
+                throw new SQLException("connection is not valid");
+            }
+        } catch (SQLException e) {
+            throw new MojoExecutionException("Cannot connect to database " + this.jdbcUrl + ": " + e.getMessage(), e);
         }
     }
 
-    private void postProcess() throws IOException {
-        final String linesep = this.getLineSeparator();
+    /**
+     * @return connection recording statements of dry run
+     */
+    private ConnectionMock getDryRunConnection(Map<String, Object> map) {
+        final Object connection = map.get(JpaSchemaGeneratorUtils.SCHEMA_GEN_CONNECTION);
+        if (!(connection instanceof ConnectionMock)) {
+            throw new IllegalArgumentException("database dry run cannot be used with custom schema generation "
+                    + "connection");
+        }
+        return (ConnectionMock) connection;
+    }
 
-        List<File> files = Arrays.asList(this.getCreateOutputFile(), this.getDropOutputFile());
-        for (File file : files) {
-            // check file exists
-            if (file == null || !file.exists()) {
-                continue;
+    /**
+     * @param dryRun {@code true} if connector gives recording connection; statements are then run one by one, in
+     *               order they are recorded
+     */
+    private void executeDatabaseAction(Map<String, Object> map,
+                                       JdbcConnector connector,
+                                       boolean dryRun,
+                                       ClassLoader classLoader) throws IOException, SQLException {
+        final String action = this.getDatabaseAction().toLowerCase();
+        ParallelDdlExecutor executor = new ParallelDdlExecutor(connector, dryRun ? 1 : this.databaseParallelism,
+                this.databaseBatchSize, this.log);
+        if (action.equals(JpaSchemaGeneratorUtils.SCHEMA_GENERATION_UPDATE_ACTION)) {
+            this.executeUpdate(executor, connector, dryRun,
+                    map.get(JpaSchemaGeneratorUtils.SCHEMA_GENERATION_SCRIPTS_CREATE_TARGET));
+        }
+        if (action.equals("drop") || action.equals("drop-and-create")) {
+            // like providers, ignore errors on drop (objects may not exist yet)
+            this.executeAction(executor, this.dropSourceMode, this.dropSourceFile,
+                    map.get(JpaSchemaGeneratorUtils.SCHEMA_GENERATION_SCRIPTS_DROP_TARGET), true);
+        }
+        if (action.equals("create") || action.equals("drop-and-create")) {
+            final Object target = map.get(JpaSchemaGeneratorUtils.SCHEMA_GENERATION_SCRIPTS_CREATE_TARGET);
+            this.executeAction(executor, this.createSourceMode, this.createSourceFile, target, false);
+            String loadScript = this.properties.get(JpaSchemaGeneratorUtils.SQL_LOAD_SCRIPT_SOURCE);
+            if (StringUtils.isNotBlank(loadScript)) {
+                this.executeLoadScript(executor, loadScript.trim(), classLoader);
             }
-            File tempFile = File.createTempFile("script", null, this.getOutputDirectory());
-            // read/write with eol
-            try (BufferedReader reader = new BufferedReader(new FileReader(file));
-                 PrintWriter writer = new PrintWriter(tempFile)) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    line = CREATE_DROP_PATTERN.matcher(line).replaceAll(";$1");
-                    for (String s : line.split(";")) {
-                        if (StringUtils.isBlank(s)) {
-                            continue;
-                        }
-                        s = s.trim();
-                        writer.print((this.isFormat() ? format(s) : s).replaceAll("\r\n", linesep));
-                        writer.print(";");
-                        writer.print(linesep);
-                        writer.print(this.isFormat() ? linesep : "");
-                    }
-                }
-                writer.flush();
-            } finally {
-                //noinspection ResultOfMethodCallIgnored
-                file.delete();
-                //noinspection ResultOfMethodCallIgnored
-                tempFile.renameTo(file);
+            if (this.seedDataDirectory != null && dryRun) {
+                this.log.info("seed data is not loaded on dry run.");
+            } else if (this.seedDataDirectory != null) {
+                new SeedLoader(connector, this.databaseParallelism, this.seedCommitInterval, this.log).load(
+                        this.seedDataDirectory, target instanceof ScriptWriter
+                                ? ((ScriptWriter) target).getStatements() : Collections.<String>emptyList());
             }
         }
+    }
 
+    /**
+     * create what database lacks from generated create script.
+     */
+    private void executeUpdate(ParallelDdlExecutor executor,
+                               JdbcConnector connector,
+                               boolean dryRun,
+                               Object target) throws IOException, SQLException {
+        if (!(target instanceof ScriptWriter)) {
+            throw new IllegalArgumentException("update database action cannot be used with custom create target");
+        }
+        // schema of dry run is described by recording connection, from snapshot
+        final SchemaReader reader = new SchemaReader(connector, dryRun ? 1 : this.metadataParallelism, this.log);
+        final SchemaModel database = dryRun ? reader.read() : reader.read(this.getSchemaCache());
+        executor.execute(this.writeUpdate((ScriptWriter) target, database), false);
     }
 
-    String format(String s) {
-        final String linesep = this.getLineSeparator();
-
-        s = s.replaceAll("^([^(]+\\()", "$1\r\n\t")
-                .replaceAll("\\)[^()]*$", "\r\n$0")
-                .replaceAll("((?:[^(),\\s]+|\\S\\([^)]+\\)[^),]*),)\\s*", "$1\r\n\t");
-        StringBuilder builder = new StringBuilder();
-        boolean completed = true;
-        if (PATTERN_CREATE_TABLE.matcher(s).find()) {
-            for (String it : s.split("\r\n")) {
-                if (it.matches("^\\S.*$")) {
-                    if (!completed) {
-                        builder.append(linesep);
-                        completed = true;
-                    }
-                    builder.append(it).append(linesep);
-                } else if (completed) {
-                    if (it.matches("^\\s*[^(]+(?:[^(),\\s]+|\\S\\([^)]+\\)[^),]*),\\s*$")) {
-                        builder.append(it).append(linesep);
-                    } else {
-                        builder.append(it);
-                        completed = false;
-                    }
-                } else {
-                    builder.append(it.trim());
-                    if (it.matches("[^)]+\\).*$")) {
-                        builder.append(linesep);
-                        completed = true;
-                    }
-                }
+    /**
+     * compare generated create script with database model, and write update script.
+     *
+     * @return statements of update script
+     */
+    private List<String> writeUpdate(ScriptWriter target,
+                                     SchemaModel database) throws IOException {
+        final SchemaModel mapping = target.getModel();
+        final List<String> statements = SchemaDiff.diff(mapping, database, this.updateDropObjects, this.log);
+
+        final File file = this.getUpdateOutputFile();
+        if (file != null) {
+            this.writeScript(file, statements);
+        }
+        return statements;
+    }
+
+    /**
+     * write statements computed by plugin as script.
+     */
+    private void writeScript(File file,
+                             List<String> statements) throws IOException {
+        ScriptWriter writer = new ScriptWriter(file, this.getLineSeparator(), this.format, false, false, false, false);
+        for (String sql : statements) {
+            writer.write(sql + ";" + this.getLineSeparator());
+        }
+        this.saveScript(writer);
+    }
+
+    /**
+     * @return schema models read in this Maven session, by {@link SchemaReader#cacheKey(String, String)}, or
+     * {@code null} without session
+     */
+    @SuppressWarnings("unchecked")
+    private ConcurrentMap<String, SchemaModel> getSchemaCache() {
+        if (this.session == null || this.session.getRepositorySession() == null) {
+            return null;
+        }
+        // one per plugin class loader, as models of other plugin versions are of other classes
+        final SessionData data = this.session.getRepositorySession().getData();
+        final String key = SchemaReader.class.getName() + "@" + System.identityHashCode(SchemaReader.class);
+        data.set(key, null, new ConcurrentHashMap<String, SchemaModel>());
+        return (ConcurrentMap<String, SchemaModel>) data.get(key);
+    }
+
+    /**
+     * run generated statements and source file, in order of source mode.
+     */
+    private void executeAction(ParallelDdlExecutor executor,
+                               String mode,
+                               File sourceFile,
+                               Object target,
+                               boolean ignoreErrors) throws IOException, SQLException {
+        final boolean script = sourceFile != null
+                && !JpaSchemaGeneratorUtils.SCHEMA_GENERATION_METADATA_SOURCE.equals(mode);
+        if (script && (mode.equals("script") || mode.equals("script-then-metadata"))) {
+            executor.executeScript(sourceFile, ignoreErrors);
+        }
+        if (!(script && mode.equals("script")) && target instanceof ScriptWriter) {
+            executor.execute(((ScriptWriter) target).getStatements(), ignoreErrors);
+        }
+        if (script && mode.equals("metadata-then-script")) {
+            executor.executeScript(sourceFile, ignoreErrors);
+        }
+    }
+
+    /**
+     * run load script, given as file path, file URL, or resource of project classpath.
+     */
+    private void executeLoadScript(ParallelDdlExecutor executor,
+                                   String source,
+                                   ClassLoader classLoader) throws IOException, SQLException {
+        File file = source.startsWith("file:") ? new File(URI.create(source)) : new File(source);
+        if (!file.isAbsolute() && !file.isFile()) {
+            file = new File(this.project.getBasedir(), source);
+        }
+        if (file.isFile()) {
+            executor.executeScript(file, false);
+            return;
+        }
+        URL resource = classLoader.getResource(source.startsWith("/") ? source.substring(1) : source);
+        if (resource == null) {
+            throw new FileNotFoundException("load script not found: " + source);
+        }
+        try (ReadableByteChannel channel = Channels.newChannel(resource.openStream())) {
+            executor.executeScript(channel, source, -1, false);
+        }
+    }
+
+    private void postProcess(Map<String, Object> map) throws IOException {
+        final String action = this.getScriptAction().toLowerCase();
+        if (action.equals("create") || action.equals("drop-and-create")) {
+            saveScript(map.get(JpaSchemaGeneratorUtils.SCHEMA_GENERATION_SCRIPTS_CREATE_TARGET));
+        }
+        if (action.equals("drop") || action.equals("drop-and-create")) {
+            saveScript(map.get(JpaSchemaGeneratorUtils.SCHEMA_GENERATION_SCRIPTS_DROP_TARGET));
+        }
+        if (action.equals(JpaSchemaGeneratorUtils.SCHEMA_GENERATION_UPDATE_ACTION)) {
+            final Object target = map.get(JpaSchemaGeneratorUtils.SCHEMA_GENERATION_SCRIPTS_CREATE_TARGET);
+            if (!(target instanceof ScriptWriter)) {
+                throw new IllegalArgumentException("update script action cannot be used with custom create target");
             }
-        } else if (PATTERN_CREATE_INDEX.matcher(s).find()) {
-            for (String it : s.replaceAll("(?i)^(create(\\s+\\S+)?\\s+index\\s+\\S+)\\s*", "$1\r\n\t").split("\r\n")) {
-                if (builder.length() == 0) {
-                    builder.append(it).append(linesep);
-                } else if (completed) {
-                    if (it.matches("^\\s*[^(]+(?:[^(),\\s]+|\\S\\([^)]+\\)[^),]*),\\s*$")) {
-                        builder.append(it).append(linesep);
-                    } else {
-                        builder.append(it);
-                        completed = false;
-                    }
-                } else {
-                    builder.append(it.trim());
-                    if (it.matches("[^)]+\\).*$")) {
-                        builder.append(linesep);
-                        completed = true;
-                    }
+            this.log.info("comparing mapping with schema snapshot " + this.snapshotFile);
+            this.writeUpdate((ScriptWriter) target, SchemaSnapshot.read(this.snapshotFile));
+        }
+        if (this.migrationOutput) {
+            this.writeMigration(map.get(JpaSchemaGeneratorUtils.SCHEMA_GENERATION_SCRIPTS_CREATE_TARGET));
+        }
+    }
+
+    /**
+     * compare generated create script with model stored by previous generation, and write changes as next migration
+     * script.
+     */
+    private void writeMigration(Object target) throws IOException {
+        if (!(target instanceof ScriptWriter)) {
+            throw new IllegalArgumentException("migration output cannot be used with custom create target");
+        }
+        final long start = System.nanoTime();
+        final SchemaModel mapping = ((ScriptWriter) target).getModel();
+        final File modelFile = this.getMigrationModelFile();
+        final SchemaModel previous = modelFile.isFile() ? SchemaSnapshot.read(modelFile) : new SchemaModel();
+        final List<String> unresolved = new ArrayList<>();
+        final List<String> statements = SchemaDiff.diff(mapping, previous, true, this.updateDropObjects,
+                this.log, unresolved);
+        if (!unresolved.isEmpty()) {
+            // advancing model would lose them from next comparison
+            this.log.warn(String.format("migration script is not written, as %d change(s) cannot be written as "
+                    + "statements; %s is left unchanged", unresolved.size(), modelFile.getName()));
+            return;
+        }
+
+        if (!statements.isEmpty()) {
+            long version = 0;
+            final File[] files = this.outputDirectory.listFiles();
+            for (File file : files == null ? new File[0] : files) {
+                final Matcher matcher = MIGRATION_SCRIPT_PATTERN.matcher(file.getName());
+                if (matcher.matches()) {
+                    version = Math.max(version, Long.parseLong(matcher.group(1)));
                 }
             }
-            String tmp = builder.toString();
-            builder.setLength(0);
-            builder.append(tmp.replaceAll("(?i)(asc|desc)\\s*(on)", "$2"));
-        } else if (PATTERN_ALTER_TABLE.matcher(s).find()) {
-            for (String it : s.replaceAll("(?i)^(alter\\s+table\\s+\\S+)\\s*", "$1\r\n\t")
-                    .replaceAll("(?i)\\)\\s*(references)", ")\r\n\t$1").split("\r\n")) {
-                if (builder.length() == 0) {
-                    builder.append(it).append(linesep);
-                } else if (completed) {
-                    if (it.matches("^\\s*[^(]+(?:[^(),\\s]+|\\S\\([^)]+\\)[^),]*),\\s*$")) {
-                        builder.append(it).append(linesep);
-                    } else {
-                        builder.append(it);
-                        completed = false;
-                    }
-                } else {
-                    builder.append(it.trim());
-                    if (it.matches("[^)]+\\).*$")) {
-                        builder.append(linesep);
-                        completed = true;
-                    }
-                }
+            final File file = new File(this.outputDirectory, "V" + (version + 1) + "__delta.sql");
+            this.writeScript(file, statements);
+            this.log.info(String.format("migration script %s of %d statement(s) is written in %d ms", file.getName(),
+                    statements.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+        }
+        SchemaSnapshot.write(mapping, modelFile, this.getLineSeparator());
+    }
+
+    private void saveScript(Object target) throws IOException {
+        // target can be overridden by user properties
+        if (target instanceof ScriptWriter) {
+            ScriptWriter writer = (ScriptWriter) target;
+            if (!writer.save()) {
+                this.log.info(writer.getFile().getName() + " is up to date.");
             }
-        } else {
-            builder.append(s.trim()).append(linesep);
         }
-        return builder.toString().trim();
+    }
+
+    String format(String s) {
+        return new SqlFormatter(this.getLineSeparator()).format(s);
     }
 
     public enum Vendor {
@@ -1,12 +1,23 @@
 package io.github.divinespear.maven.plugin;
 
 import org.apache.commons.lang.NullArgumentException;
+import org.apache.maven.plugin.logging.Log;
 import org.codehaus.plexus.util.StringUtils;
-import org.hibernate.dialect.Dialect;
-import org.hibernate.engine.jdbc.dialect.internal.StandardDialectResolver;
-import org.hibernate.engine.jdbc.dialect.spi.DialectResolutionInfo;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,8 +61,10 @@ final class JpaSchemaGeneratorUtils {
     static final String SCHEMA_GENERATION_DROP_SOURCE = "javax.persistence.schema-generation.drop-source";
     static final String SCHEMA_GENERATION_METADATA_SOURCE1 = "metadata";
     static final String SCHEMA_GENERATION_DROP_SCRIPT_SOURCE = "javax.persistence.schema-generation.drop-script-source";
+    static final String SQL_LOAD_SCRIPT_SOURCE = "javax.persistence.sql-load-script-source";
     static final String ECLIPSELINK_PERSISTENCE_XML = "eclipselink.persistencexml";
     static final String WEAVING = "eclipselink.weaving";
+    static final String TARGET_DATABASE = "eclipselink.target-database";
     static final String AUTODETECTION = "hibernate.archive.autodetection";
     static final String DIALECT = "hibernate.dialect";
     static final String SCHEMA_GEN_CONNECTION = "javax.persistence.schema-generation-connection";
@@ -60,6 +73,8 @@ final class JpaSchemaGeneratorUtils {
     static final String NON_JTA_DATASOURCE = "javax.persistence.nonJtaDataSource";
     static final String ECLIPSELINK_PERSISTENCE_XML_DEFAULT = "META-INF/persistence.xml";
     static final String SCHEMA_GENERATION_NONE_ACTION = "none";
+    static final String SCHEMA_GENERATION_UPDATE_ACTION = "update";
+    static final String HIBERNATE_PROPERTIES_BUILDER = "io.github.divinespear.maven.plugin.HibernatePropertiesBuilder";
 
     private JpaSchemaGeneratorUtils() {
     }
@@ -72,6 +87,114 @@ final class JpaSchemaGeneratorUtils {
         return !SCHEMA_GENERATION_NONE_ACTION.equalsIgnoreCase(mojo.getScriptAction());
     }
 
+    /**
+     * @return {@code true} if database action is recorded on {@link ConnectionMock} instead of being run
+     */
+    static boolean isDryRun(JpaSchemaGeneratorMojo mojo) {
+        return mojo.isDatabaseDryRun() && isDatabaseTarget(mojo);
+    }
+
+    /**
+     * @return {@code true} if database action is run by {@link ParallelDdlExecutor} instead of provider
+     */
+    static boolean isPluginDatabaseAction(JpaSchemaGeneratorMojo mojo) {
+        final String action = mojo.getDatabaseAction().toLowerCase();
+        if (action.equals(SCHEMA_GENERATION_UPDATE_ACTION)) {
+            // no provider action
+            return true;
+        }
+        if (StringUtils.isEmpty(mojo.getJdbcUrl()) && !isDryRun(mojo)
+                || !(action.equals("create") || action.equals("drop") || action.equals("drop-and-create"))) {
+            return false;
+        }
+        // scripts are streamed by plugin, providers read them whole into memory
+        return mojo.getDatabaseParallelism() > 1 || mojo.getDatabaseBatchSize() > 1
+                || isSourceScript(mojo.getCreateSourceMode(), mojo.getCreateSourceFile())
+                || isSourceScript(mojo.getDropSourceMode(), mojo.getDropSourceFile())
+                || mojo.getProperties().containsKey(SQL_LOAD_SCRIPT_SOURCE) || mojo.getSeedDataDirectory() != null;
+    }
+
+    private static boolean isSourceScript(String mode,
+                                          File file) {
+        return file != null && !SCHEMA_GENERATION_METADATA_SOURCE.equals(mode);
+    }
+
+    /**
+     * @return action given to provider for action of plugin
+     */
+    private static String providerAction(String action) {
+        // compared with database or snapshot (see JpaSchemaGeneratorMojo#executeUpdate)
+        return action.equals(SCHEMA_GENERATION_UPDATE_ACTION) ? "create" : action;
+    }
+
+    /**
+     * @return script action generating scripts for both actions
+     */
+    private static String mergeActions(String action1,
+                                       String action2) {
+        if (SCHEMA_GENERATION_NONE_ACTION.equals(action1) || action1.equals(action2)) {
+            return action2;
+        }
+        if (SCHEMA_GENERATION_NONE_ACTION.equals(action2)) {
+            return action1;
+        }
+        return "drop-and-create";
+    }
+
+    /**
+     * @return {@code true} if properties of vendor are given: vendor is configured, or its provider is found by class
+     * loader of project without configured vendor (with {@code persistence.xml})
+     */
+    private static boolean isProvider(JpaSchemaGeneratorMojo mojo,
+                                      ClassLoader classLoader,
+                                      JpaSchemaGeneratorMojo.Vendor vendor) {
+        if (mojo.getVendor() != null) {
+            return mojo.getVendor() == vendor;
+        }
+        final String provider = JpaSchemaGeneratorMojo.getProviderClassName(vendor);
+        return classLoader.getResource(provider.replace('.', '/') + ".class") != null;
+    }
+
+    /**
+     * @return profile of emulated database product, with values of {@code databaseMetadataFile}
+     */
+    private static MetadataProfile profile(JpaSchemaGeneratorMojo mojo) {
+        final MetadataProfile profile = MetadataProfile.find(mojo.getDatabaseProductName(),
+                mojo.getDatabaseMajorVersion() == null ? 0 : mojo.getDatabaseMajorVersion(),
+                mojo.getDatabaseMinorVersion() == null ? 0 : mojo.getDatabaseMinorVersion());
+        if (mojo.getDatabaseMetadataFile() == null) {
+            return profile;
+        }
+        try {
+            return profile.withFile(mojo.getDatabaseMetadataFile());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("cannot read databaseMetadataFile " + mojo.getDatabaseMetadataFile(), e);
+        }
+    }
+
+    /**
+     * build Hibernate properties by {@link #HIBERNATE_PROPERTIES_BUILDER} of given class loader, using Hibernate of
+     * project; plugin classes do not depend on Hibernate.
+     */
+    private static void buildHibernateProperties(Map<String, Object> map,
+                                                 Map<String, String> properties,
+                                                 ClassLoader classLoader) {
+        try {
+            Method build = classLoader.loadClass(HIBERNATE_PROPERTIES_BUILDER)
+                    .getDeclaredMethod("build", Map.class, Map.class);
+            build.setAccessible(true);
+            build.invoke(null, map, properties);
+        } catch (InvocationTargetException e) {
+            if (e.getTargetException() instanceof RuntimeException) {
+                throw (RuntimeException) e.getTargetException();
+            }
+            throw new IllegalStateException("cannot build Hibernate properties", e.getTargetException());
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("cannot build Hibernate properties, Hibernate of project is not supported",
+                    e);
+        }
+    }
+
     @SuppressWarnings("deprecation")
     public static Map<String, Object> buildProperties(JpaSchemaGeneratorMojo mojo) {
         Map<String, Object> map = new HashMap<>();
@@ -81,19 +204,49 @@ final class JpaSchemaGeneratorUtils {
          * Common JPA options
          */
         // mode
-        map.put(SCHEMA_GENERATION_DATABASE_ACTION, mojo.getDatabaseAction().toLowerCase());
-        map.put(SCHEMA_GENERATION_SCRIPTS_ACTION, mojo.getScriptAction().toLowerCase());
+        final boolean pluginDatabaseAction = isPluginDatabaseAction(mojo);
+        final boolean dryRun = isDryRun(mojo);
+        final boolean offline = dryRun || StringUtils.isEmpty(mojo.getJdbcUrl());
+        final String scriptAction = mojo.getScriptAction().toLowerCase();
+        if (scriptAction.equals(SCHEMA_GENERATION_UPDATE_ACTION) && mojo.getSnapshotFile() == null) {
+            throw new IllegalArgumentException("snapshotFile is required for update script action.");
+        }
+        if (mojo.isMigrationOutput() && !(scriptAction.equals("create") || scriptAction.equals("drop-and-create")
+                || scriptAction.equals(SCHEMA_GENERATION_UPDATE_ACTION))) {
+            throw new IllegalArgumentException(
+                    "migrationOutput requires create, drop-and-create, or update script action.");
+        }
+        if (pluginDatabaseAction) {
+            final String databaseAction = mojo.getDatabaseAction().toLowerCase();
+            if (databaseAction.equals(SCHEMA_GENERATION_UPDATE_ACTION) && StringUtils.isEmpty(mojo.getJdbcUrl())
+                    && !dryRun) {
+                throw new IllegalArgumentException("jdbcUrl is required for update database action.");
+            }
+            // capture scripts, and let plugin run them (see JpaSchemaGeneratorMojo#executeDatabaseAction)
+            map.put(SCHEMA_GENERATION_DATABASE_ACTION, SCHEMA_GENERATION_NONE_ACTION);
+            map.put(SCHEMA_GENERATION_SCRIPTS_ACTION,
+                    mergeActions(providerAction(scriptAction), providerAction(databaseAction)));
+        } else {
+            map.put(SCHEMA_GENERATION_DATABASE_ACTION, mojo.getDatabaseAction().toLowerCase());
+            map.put(SCHEMA_GENERATION_SCRIPTS_ACTION, providerAction(scriptAction));
+        }
         // output files
-        if (isScriptTarget(mojo)) {
-            if (mojo.getOutputDirectory() == null) {
+        if (isScriptTarget(mojo) || pluginDatabaseAction) {
+            if (mojo.getOutputDirectory() == null && isScriptTarget(mojo)) {
                 throw new NullArgumentException("outputDirectory is required for script generation.");
             }
+            // capture scripts in memory, post-process and write them once (see JpaSchemaGeneratorMojo#postProcess)
             map.put(SCHEMA_GENERATION_SCRIPTS_CREATE_TARGET,
-                    mojo.getCreateOutputFile().toURI().toString());
+                    new ScriptWriter(mojo.getCreateOutputFile(), mojo.getLineSeparator(), mojo.isFormat(),
+                            mojo.isCanonical(), mojo.isSplitOutput(), mojo.isGraphOutput(), mojo.isModelOutput()));
             map.put(SCHEMA_GENERATION_SCRIPTS_DROP_TARGET,
-                    mojo.getDropOutputFile().toURI().toString());
+                    new ScriptWriter(mojo.getDropOutputFile(), mojo.getLineSeparator(), mojo.isFormat(),
+                            mojo.isCanonical(), mojo.isSplitOutput(), mojo.isGraphOutput(), false));
 
         }
+        if (dryRun && mojo.getOutputDirectory() == null) {
+            throw new NullArgumentException("outputDirectory is required for database dry run.");
+        }
         // validation mode
         map.put(VALIDATION_MODE,
                 mojo.getValidationMode() == null ? null : mojo.getValidationMode().toString());
@@ -103,100 +256,91 @@ final class JpaSchemaGeneratorUtils {
                 mojo.getDatabaseMajorVersion() == null ? null : String.valueOf(mojo.getDatabaseMajorVersion()));
         map.put(SCHEMA_DATABASE_MINOR_VERSION,
                 mojo.getDatabaseMinorVersion() == null ? null : String.valueOf(mojo.getDatabaseMinorVersion()));
-        // database options
-        map.put(JDBC_DRIVER, mojo.getJdbcDriver());
-        map.put(JDBC_URL, mojo.getJdbcUrl());
-        map.put(JDBC_USER, mojo.getJdbcUser());
-        map.put(JDBC_PASSWORD, mojo.getJdbcPassword());
+        // database options, not given to provider on dry run
+        if (!dryRun) {
+            map.put(JDBC_DRIVER, mojo.getJdbcDriver());
+            map.put(JDBC_URL, mojo.getJdbcUrl());
+            map.put(JDBC_USER, mojo.getJdbcUser());
+            map.put(JDBC_PASSWORD, mojo.getJdbcPassword());
+        }
         // source selection
-        map.put(SCHEMA_GENERATION_CREATE_SOURCE, mojo.getCreateSourceMode());
-        if (mojo.getCreateSourceFile() == null) {
-            if (!SCHEMA_GENERATION_METADATA_SOURCE.equals(mojo.getCreateSourceMode())) {
-                throw new IllegalArgumentException("create source file is required for mode "
-                        + mojo.getCreateSourceMode());
-            }
+        if (mojo.getCreateSourceFile() == null
+                && !SCHEMA_GENERATION_METADATA_SOURCE.equals(mojo.getCreateSourceMode())) {
+            throw new IllegalArgumentException("create source file is required for mode "
+                    + mojo.getCreateSourceMode());
+        }
+        if (mojo.getDropSourceFile() == null
+                && !SCHEMA_GENERATION_METADATA_SOURCE1.equals(mojo.getDropSourceMode())) {
+            throw new IllegalArgumentException("drop source file is required for mode " + mojo.getDropSourceMode());
+        }
+        if (pluginDatabaseAction) {
+            // source scripts are run by plugin too
+            map.put(SCHEMA_GENERATION_CREATE_SOURCE, SCHEMA_GENERATION_METADATA_SOURCE);
+            map.put(SCHEMA_GENERATION_DROP_SOURCE, SCHEMA_GENERATION_METADATA_SOURCE1);
         } else {
+            map.put(SCHEMA_GENERATION_CREATE_SOURCE, mojo.getCreateSourceMode());
+            map.put(SCHEMA_GENERATION_DROP_SOURCE, mojo.getDropSourceMode());
+        }
+        if (mojo.getCreateSourceFile() != null && !pluginDatabaseAction) {
             map.put(SCHEMA_GENERATION_CREATE_SCRIPT_SOURCE,
                     mojo.getCreateSourceFile().toURI().toString());
         }
-        map.put(SCHEMA_GENERATION_DROP_SOURCE, mojo.getDropSourceMode());
-        if (mojo.getDropSourceFile() == null) {
-            if (!SCHEMA_GENERATION_METADATA_SOURCE1.equals(mojo.getDropSourceMode())) {
-                throw new IllegalArgumentException("drop source file is required for mode " + mojo.getDropSourceMode());
-            }
-        } else {
+        if (mojo.getDropSourceFile() != null && !pluginDatabaseAction) {
             map.put(SCHEMA_GENERATION_DROP_SCRIPT_SOURCE,
                     mojo.getDropSourceFile().toURI().toString());
         }
 
+        // database product emulated without connection, also giving provider settings for it
+        final MetadataProfile profile = offline ? profile(mojo) : MetadataProfile.NONE;
+
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
         /*
          * EclipseLink specific
          */
-        // persistence.xml
-        map.put(ECLIPSELINK_PERSISTENCE_XML, mojo.getPersistenceXml());
-        // disable weaving
-        map.put(WEAVING, "false");
+        if (isProvider(mojo, classLoader, JpaSchemaGeneratorMojo.Vendor.eclipselink)) {
+            // persistence.xml
+            map.put(ECLIPSELINK_PERSISTENCE_XML, mojo.getPersistenceXml());
+            // disable weaving
+            map.put(WEAVING, "false");
+            // platform, unless given by persistence.xml
+            if (mojo.getVendor() != null && !properties.containsKey(TARGET_DATABASE)) {
+                map.put(TARGET_DATABASE, profile.get(TARGET_DATABASE));
+            }
+        }
 
         /*
          * Hibernate specific
          */
-        // auto-detect
-        map.put(AUTODETECTION, "class,hbm");
-        // dialect (without jdbc connection)
-        String dialect = properties.get(DIALECT);
-        if (StringUtils.isEmpty(dialect) && StringUtils.isEmpty(mojo.getJdbcUrl())) {
-            final String productName = mojo.getDatabaseProductName();
-            if (productName != null) {
-                final int minorVersion = mojo.getDatabaseMinorVersion() == null ? 0 : mojo.getDatabaseMinorVersion();
-                final int majorVersion = mojo.getDatabaseMajorVersion() == null ? 0 : mojo.getDatabaseMajorVersion();
-                DialectResolutionInfo info = new DialectResolutionInfo() {
-                    @Override
-                    public String getDriverName() {
-                        return null;
-                    }
-
-                    @Override
-                    public int getDriverMinorVersion() {
-                        return 0;
-                    }
-
-                    @Override
-                    public int getDriverMajorVersion() {
-                        return 0;
-                    }
-
-                    @Override
-                    public String getDatabaseName() {
-                        return productName;
-                    }
-
-                    @Override
-                    public int getDatabaseMinorVersion() {
-                        return minorVersion;
-                    }
-
-                    @Override
-                    public int getDatabaseMajorVersion() {
-                        return majorVersion;
-                    }
-                };
-                Dialect detectedDialect = StandardDialectResolver.INSTANCE.resolveDialect(info);
-                dialect = detectedDialect == null ? null : detectedDialect.getClass().getName();
+        if (isProvider(mojo, classLoader, JpaSchemaGeneratorMojo.Vendor.hibernate)) {
+            if (!properties.containsKey(DIALECT)) {
+                // checked and completed by builder
+                map.put(DIALECT, profile.get(DIALECT));
             }
-        }
-        if (dialect != null) {
-            properties.remove(DIALECT);
-            map.put(DIALECT, dialect);
+            buildHibernateProperties(map, properties, classLoader);
         }
 
-        if (!isDatabaseTarget(mojo) && StringUtils.isEmpty(mojo.getJdbcUrl())) {
+        if (dryRun || !isDatabaseTarget(mojo) && offline) {
+            SchemaModel schema = null;
+            if (dryRun && mojo.getSnapshotFile() != null) {
+                try {
+                    schema = SchemaSnapshot.read(mojo.getSnapshotFile());
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("cannot read snapshotFile " + mojo.getSnapshotFile(), e);
+                }
+            }
+            // records statements of database action on dry run (see JpaSchemaGeneratorMojo#writeDryRun)
             map.put(SCHEMA_GEN_CONNECTION,
                     new ConnectionMock(mojo.getDatabaseProductName(),
                             mojo.getDatabaseMajorVersion(),
-                            mojo.getDatabaseMinorVersion()));
+                            mojo.getDatabaseMinorVersion(),
+                            profile, schema));
         }
 
         map.putAll(mojo.getProperties());
+        if (pluginDatabaseAction) {
+            // load script is run by plugin too
+            map.remove(SQL_LOAD_SCRIPT_SOURCE);
+        }
 
         /* force override JTA to RESOURCE_LOCAL */
         map.put(TRANSACTION_TYPE, "RESOURCE_LOCAL");
@@ -215,4 +359,82 @@ final class JpaSchemaGeneratorUtils {
 
         return map;
     }
+
+    /**
+     * release class loader of project made for one execution, deregistering drivers it loaded.
+     * <p>
+     * it is not closed, as resources left open by provider (like embedded database server) may still load classes.
+     */
+    static void releaseClassLoader(ClassLoader classLoader,
+                                   Log log) {
+        try {
+            JdbcConnector.deregisterDrivers(classLoader);
+        } catch (ReflectiveOperationException e) {
+            log.debug("drivers of project class loader are not deregistered", e);
+        }
+    }
+
+    /**
+     * write content to file only if it differs from current file content.
+     * <p>
+     * unchanged file is left untouched (keeps its timestamp), changed file is replaced atomically.
+     *
+     * @param file    file to write
+     * @param content content, encoded in UTF-8
+     * @return {@code true} if file is written, {@code false} if file is unchanged
+     * @throws IOException if file cannot be read or written
+     */
+    static boolean writeIfChanged(File file, CharSequence content) throws IOException {
+        return writeIfChanged(file, content.toString().getBytes(Charset.forName("UTF-8")));
+    }
+
+    /**
+     * write binary file like {@link #writeIfChanged(File, CharSequence)}.
+     */
+    static boolean writeIfChanged(File file, byte[] bytes) throws IOException {
+        final Path target = file.toPath();
+        if (Files.isRegularFile(target) && Files.size(target) == bytes.length
+                && Arrays.equals(digest(target), digest(bytes))) {
+            return false;
+        }
+
+        Path parent = target.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getName(), ".tmp");
+        try {
+            Files.write(temp, bytes);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return true;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] digest(byte[] bytes) {
+        return newDigest().digest(bytes);
+    }
+
+    private static byte[] digest(Path path) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream stream = Files.newInputStream(path)) {
+            byte[] buf = new byte[8192];
+            int len;
+            while ((len = stream.read(buf)) >= 0) {
+                digest.update(buf, 0, len);
+            }
+        }
+        return digest.digest();
+    }
 }
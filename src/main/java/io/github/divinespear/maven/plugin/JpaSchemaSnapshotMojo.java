@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Write schema snapshot of database, to compare mapping with it by {@code update} script action of
+ * {@code generate} goal without database access.
+ */
+@Mojo(name = "snapshot", requiresProject = true, requiresDependencyResolution = ResolutionScope.RUNTIME,
+        threadSafe = true)
+public class JpaSchemaSnapshotMojo extends AbstractMojo {
+
+    private final Log log = this.getLog();
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    /**
+     * skip schema snapshot
+     */
+    @Parameter(property = "jpa-schema.snapshot.skip", required = true, defaultValue = "false")
+    private boolean skip = false;
+    /**
+     * JDBC driver class name, found by {@link #jdbcUrl} in project dependencies if not set
+     */
+    @Parameter(property = "jpa-schema.snapshot.jdbc-driver")
+    private String jdbcDriver;
+    /**
+     * JDBC URL of database
+     */
+    @Parameter(property = "jpa-schema.snapshot.jdbc-url", required = true)
+    private String jdbcUrl;
+    /**
+     * JDBC user name
+     */
+    @Parameter(property = "jpa-schema.snapshot.jdbc-user")
+    private String jdbcUser;
+    /**
+     * JDBC password
+     */
+    @Parameter(property = "jpa-schema.snapshot.jdbc-password")
+    private String jdbcPassword;
+    /**
+     * number of connections for reading database schema
+     */
+    @Parameter(property = "jpa-schema.snapshot.metadata-parallelism", required = true, defaultValue = "4")
+    private int metadataParallelism = 4;
+    /**
+     * snapshot file, rewritten only if schema is changed
+     */
+    @Parameter(property = "jpa-schema.snapshot.file", required = true,
+            defaultValue = "${project.build.directory}/generated-schema/schema-snapshot.json")
+    private File snapshotFile;
+
+    /**
+     * @return class loader of project for this execution, with plugin itself to deregister drivers loaded by it
+     */
+    private ClassLoader getProjectClassLoader() throws MojoExecutionException {
+        try {
+            List<URL> classURLs = new ArrayList<>();
+            for (String element : this.project.getRuntimeClasspathElements()) {
+                classURLs.add(new File(element).toURI().toURL());
+            }
+            classURLs.add(JdbcConnector.class.getProtectionDomain().getCodeSource().getLocation());
+            return new URLClassLoader(classURLs.toArray(new URL[classURLs.size()]),
+                    this.getClass().getClassLoader().getParent());
+        } catch (Exception e) {
+            throw new MojoExecutionException("Error while creating classloader", e);
+        }
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (this.skip) {
+            log.info("schema snapshot is skipped.");
+            return;
+        }
+
+        final ClassLoader classLoader = this.getProjectClassLoader();
+        try {
+            final Driver driver;
+            try {
+                if (StringUtils.isNotBlank(this.jdbcDriver)) {
+                    driver = (Driver) classLoader.loadClass(this.jdbcDriver).getDeclaredConstructor().newInstance();
+                } else {
+                    driver = JdbcConnector.findDriver(this.jdbcUrl, classLoader);
+                }
+            } catch (Exception e) {
+                throw new MojoExecutionException("Dependency for driver-class " + this.jdbcDriver + " is missing!", e);
+            }
+
+            try {
+                final JdbcConnector connector = new JdbcConnector(driver, this.jdbcUrl, this.jdbcUser, this.jdbcPassword);
+                final SchemaModel model = new SchemaReader(connector, this.metadataParallelism, this.log).read();
+                if (SchemaSnapshot.write(model, this.snapshotFile, System.getProperty("line.separator", "\n"))) {
+                    log.info("schema snapshot of " + model.getTables().size() + " tables is written to "
+                            + this.snapshotFile);
+                } else {
+                    log.info(this.snapshotFile.getName() + " is up to date.");
+                }
+            } catch (IOException | SQLException e) {
+                throw new MojoExecutionException("Error while writing schema snapshot", e);
+            }
+        } finally {
+            JpaSchemaGeneratorUtils.releaseClassLoader(classLoader, this.log);
+        }
+    }
+}
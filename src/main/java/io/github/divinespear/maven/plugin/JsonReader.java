@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON parser, counterpart of {@link JsonWriter}.
+ * <p>
+ * Objects are read as ordered maps, arrays as lists, and numbers as {@link Long} or, if not integral or too large,
+ * {@link BigDecimal}. Malformed text fails with {@link IllegalArgumentException}.
+ */
+final class JsonReader {
+
+    private final String s;
+    private final boolean rawNested;
+    private int pos = 0;
+
+    /**
+     * @param rawNested keep objects and arrays nested in object as JSON text
+     */
+    JsonReader(String s,
+               boolean rawNested) {
+        this.s = s;
+        this.rawNested = rawNested;
+    }
+
+    /**
+     * parse whole text as single value.
+     */
+    static Object parse(String s) {
+        final JsonReader reader = new JsonReader(s, false);
+        final Object value = reader.value();
+        if (reader.skipWhitespace() != 0) {
+            throw reader.error("unexpected content after value");
+        }
+        return value;
+    }
+
+    /**
+     * parse whole text as single object.
+     */
+    Map<String, Object> object() {
+        final Map<String, Object> object = readObject();
+        if (skipWhitespace() != 0) {
+            throw error("unexpected content after object");
+        }
+        return object;
+    }
+
+    private Map<String, Object> readObject() {
+        final Map<String, Object> object = new LinkedHashMap<>();
+        expect('{');
+        if (skipWhitespace() == '}') {
+            pos++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            final String key = string();
+            expect(':');
+            final char next = skipWhitespace();
+            object.put(key, rawNested && (next == '{' || next == '[') ? raw() : value());
+            final char c = skipWhitespace();
+            pos++;
+            if (c == '}') {
+                return object;
+            }
+            if (c != ',') {
+                throw error("expected , or }");
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        final List<Object> array = new ArrayList<>();
+        expect('[');
+        if (skipWhitespace() == ']') {
+            pos++;
+            return array;
+        }
+        while (true) {
+            array.add(value());
+            final char c = skipWhitespace();
+            pos++;
+            if (c == ']') {
+                return array;
+            }
+            if (c != ',') {
+                throw error("expected , or ]");
+            }
+        }
+    }
+
+    private Object value() {
+        final char c = skipWhitespace();
+        if (c == '"') {
+            return string();
+        }
+        if (c == '{') {
+            return readObject();
+        }
+        if (c == '[') {
+            return readArray();
+        }
+        if (s.startsWith("true", pos)) {
+            pos += 4;
+            return Boolean.TRUE;
+        }
+        if (s.startsWith("false", pos)) {
+            pos += 5;
+            return Boolean.FALSE;
+        }
+        if (s.startsWith("null", pos)) {
+            pos += 4;
+            return null;
+        }
+        final int start = pos;
+        while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0) {
+            pos++;
+        }
+        if (start == pos) {
+            throw error("unexpected character");
+        }
+        final BigDecimal number = new BigDecimal(s.substring(start, pos));
+        try {
+            return number.longValueExact();
+        } catch (ArithmeticException e) {
+            return number;
+        }
+    }
+
+    private String string() {
+        expect('"');
+        final StringBuilder builder = new StringBuilder();
+        while (pos < s.length()) {
+            final char c = s.charAt(pos++);
+            if (c == '"') {
+                return builder.toString();
+            }
+            if (c != '\\') {
+                builder.append(c);
+                continue;
+            }
+            if (pos >= s.length()) {
+                break;
+            }
+            final char e = s.charAt(pos++);
+            switch (e) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'u':
+                    if (pos + 4 > s.length()) {
+                        throw error("invalid unicode escape");
+                    }
+                    builder.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                    pos += 4;
+                    break;
+                default:
+                    builder.append(e);
+                    break;
+            }
+        }
+        throw error("unterminated string");
+    }
+
+    private String raw() {
+        final int start = pos;
+        int depth = 0;
+        while (pos < s.length()) {
+            final char c = s.charAt(pos);
+            if (c == '"') {
+                string();
+                continue;
+            }
+            pos++;
+            if (c == '{' || c == '[') {
+                depth++;
+            } else if ((c == '}' || c == ']') && --depth == 0) {
+                return s.substring(start, pos);
+            }
+        }
+        throw error("unterminated value");
+    }
+
+    private void expect(char c) {
+        if (skipWhitespace() != c) {
+            throw error("expected " + c);
+        }
+        pos++;
+    }
+
+    private char skipWhitespace() {
+        while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+            pos++;
+        }
+        return pos < s.length() ? s.charAt(pos) : 0;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + (pos + 1));
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Minimal streaming JSON writer for generated manifests, indented with two spaces.
+ */
+final class JsonWriter {
+
+    private final StringBuilder out = new StringBuilder();
+    private final String linesep;
+    // true while container has no element yet
+    private final Deque<Boolean> empty = new ArrayDeque<>();
+    private boolean afterName = false;
+
+    JsonWriter(String linesep) {
+        this.linesep = linesep;
+    }
+
+    JsonWriter beginObject() {
+        return open('{');
+    }
+
+    JsonWriter endObject() {
+        return close('}');
+    }
+
+    JsonWriter beginArray() {
+        return open('[');
+    }
+
+    JsonWriter endArray() {
+        return close(']');
+    }
+
+    JsonWriter name(String name) {
+        element();
+        string(name);
+        out.append(": ");
+        afterName = true;
+        return this;
+    }
+
+    JsonWriter value(String value) {
+        element();
+        if (value == null) {
+            out.append("null");
+        } else {
+            string(value);
+        }
+        return this;
+    }
+
+    JsonWriter value(long value) {
+        element();
+        out.append(value);
+        return this;
+    }
+
+    JsonWriter value(boolean value) {
+        element();
+        out.append(value);
+        return this;
+    }
+
+    /**
+     * write array of numbers on single line.
+     */
+    JsonWriter value(long[] values) {
+        element();
+        out.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(values[i]);
+        }
+        out.append(']');
+        return this;
+    }
+
+    /**
+     * write array of strings, numbers, booleans, {@code null}s or such arrays on single line.
+     */
+    JsonWriter value(Object[] values) {
+        element();
+        inline(values);
+        return this;
+    }
+
+    /**
+     * write name and value at once.
+     */
+    JsonWriter property(String name,
+                        String value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter property(String name,
+                        long value) {
+        return name(name).value(value);
+    }
+
+    JsonWriter property(String name,
+                        boolean value) {
+        return name(name).value(value);
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+
+    private JsonWriter open(char c) {
+        element();
+        out.append(c);
+        empty.push(Boolean.TRUE);
+        return this;
+    }
+
+    private JsonWriter close(char c) {
+        if (!empty.pop()) {
+            newline();
+        }
+        out.append(c);
+        if (empty.isEmpty()) {
+            out.append(linesep);
+        }
+        return this;
+    }
+
+    private void element() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (empty.isEmpty()) {
+            return;
+        }
+        if (!empty.peek()) {
+            out.append(',');
+        } else {
+            empty.pop();
+            empty.push(Boolean.FALSE);
+        }
+        newline();
+    }
+
+    private void newline() {
+        out.append(linesep);
+        for (int i = 0; i < empty.size(); i++) {
+            out.append("  ");
+        }
+    }
+
+    private void inline(Object[] values) {
+        out.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            if (values[i] instanceof String) {
+                string((String) values[i]);
+            } else if (values[i] instanceof Object[]) {
+                inline((Object[]) values[i]);
+            } else {
+                out.append(values[i]);
+            }
+        }
+        out.append(']');
+    }
+
+    private void string(String s) {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                    break;
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * {@link java.sql.DatabaseMetaData} values of a database product, returned by {@link ConnectionMock} so providers
+ * generate scripts for it (identifier quoting and case, name lengths, keywords) without connecting.
+ * <p>
+ * Profiles also give provider settings for product without connection, keyed by property name: Hibernate dialect as
+ * {@code hibernate.dialect}, and EclipseLink platform as {@code eclipselink.target-database}.
+ * <p>
+ * Profiles are properties files in {@code metadata/} next to this class, keyed by {@code DatabaseMetaData} method
+ * name. {@code match} is pattern of product names it applies to, and {@code extends} names profile it inherits
+ * values from. Value for product version and later is given as {@code <method>@<major>.<minor>}; value of method
+ * replaces all versions of value inherited.
+ */
+final class MetadataProfile {
+
+    /**
+     * built-in profiles, searched in order
+     */
+    private static final String[] PROFILES = {"postgresql", "oracle", "mysql", "mariadb", "sqlserver", "h2", "db2"};
+
+    private static final ConcurrentMap<String, Properties> RESOURCES = new ConcurrentHashMap<>();
+    /**
+     * built-in profiles found, by product name and version
+     */
+    private static final ConcurrentMap<String, MetadataProfile> FOUND = new ConcurrentHashMap<>();
+
+    static final MetadataProfile NONE = new MetadataProfile(null, new Properties(), 0, 0);
+
+    private final String name;
+    private final Properties values;
+    private final int majorVersion;
+    private final int minorVersion;
+
+    private MetadataProfile(String name,
+                            Properties values,
+                            int majorVersion,
+                            int minorVersion) {
+        this.name = name;
+        this.values = values;
+        this.majorVersion = majorVersion;
+        this.minorVersion = minorVersion;
+    }
+
+    /**
+     * @return built-in profile of product, {@link #NONE} if there is none
+     */
+    static MetadataProfile find(String productName,
+                                int majorVersion,
+                                int minorVersion) {
+        if (productName == null) {
+            return NONE;
+        }
+        final String key = productName + "@" + majorVersion + "." + minorVersion;
+        MetadataProfile found = FOUND.get(key);
+        if (found == null) {
+            found = NONE;
+            for (String profile : PROFILES) {
+                final Properties values = resource(profile);
+                if (Pattern.compile(values.getProperty("match"), Pattern.CASE_INSENSITIVE).matcher(productName)
+                        .matches()) {
+                    found = new MetadataProfile(profile, values, majorVersion, minorVersion);
+                    break;
+                }
+            }
+            FOUND.putIfAbsent(key, found);
+        }
+        return found;
+    }
+
+    /**
+     * @return profile with values of given properties file added
+     */
+    MetadataProfile withFile(File file) throws IOException {
+        final Properties values = new Properties();
+        values.putAll(this.values);
+        try (InputStream stream = new FileInputStream(file)) {
+            merge(values, load(new Properties(), stream));
+        }
+        return new MetadataProfile(name == null ? file.getName() : name, values, majorVersion, minorVersion);
+    }
+
+    private static Properties resource(String name) {
+        Properties values = RESOURCES.get(name);
+        if (values == null) {
+            final Properties own = new Properties();
+            try (InputStream stream = MetadataProfile.class.getResourceAsStream("metadata/" + name + ".properties")) {
+                if (stream == null) {
+                    throw new IllegalStateException("metadata profile " + name + " is missing");
+                }
+                load(own, stream);
+            } catch (IOException e) {
+                throw new IllegalStateException("cannot read metadata profile " + name, e);
+            }
+            values = new Properties();
+            if (own.getProperty("extends") != null) {
+                values.putAll(resource(own.getProperty("extends")));
+            }
+            merge(values, own);
+            final Properties previous = RESOURCES.putIfAbsent(name, values);
+            if (previous != null) {
+                values = previous;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * put overriding values, replacing all versions of overridden methods.
+     */
+    private static void merge(Properties values,
+                              Properties overrides) {
+        for (String key : overrides.stringPropertyNames()) {
+            if (key.indexOf('@') < 0) {
+                for (String inherited : values.stringPropertyNames()) {
+                    if (inherited.startsWith(key + "@")) {
+                        values.remove(inherited);
+                    }
+                }
+            }
+        }
+        values.putAll(overrides);
+    }
+
+    private static Properties load(Properties values,
+                                   InputStream stream) throws IOException {
+        try (Reader reader = new InputStreamReader(stream, Charset.forName("UTF-8"))) {
+            values.load(reader);
+        }
+        return values;
+    }
+
+    /**
+     * @return profile name, {@code null} for {@link #NONE}
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return value of method for product version, {@code null} if not given
+     */
+    String get(String method) {
+        String value = values.getProperty(method);
+        int major = -1, minor = -1;
+        final String prefix = method + "@";
+        for (String key : values.stringPropertyNames()) {
+            if (!key.startsWith(prefix)) {
+                continue;
+            }
+            final String[] version = key.substring(prefix.length()).split("\\.");
+            final int keyMajor = Integer.parseInt(version[0]);
+            final int keyMinor = version.length > 1 ? Integer.parseInt(version[1]) : 0;
+            final boolean applies = keyMajor < majorVersion || keyMajor == majorVersion && keyMinor <= minorVersion;
+            if (applies && (keyMajor > major || keyMajor == major && keyMinor > minor)) {
+                value = values.getProperty(key);
+                major = keyMajor;
+                minor = keyMinor;
+            }
+        }
+        return value;
+    }
+
+    String getString(String method,
+                     String defaultValue) {
+        final String value = get(method);
+        return value == null ? defaultValue : value;
+    }
+
+    boolean getBoolean(String method,
+                       boolean defaultValue) {
+        final String value = get(method);
+        return value == null ? defaultValue : Boolean.parseBoolean(value.trim());
+    }
+
+    int getInt(String method,
+               int defaultValue) {
+        final String value = get(method);
+        return value == null ? defaultValue : Integer.parseInt(value.trim());
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes generated statements on database over small pool of connections, running statements independent by
+ * {@link StatementGraph} concurrently.
+ * <p>
+ * Independent statements ready at once are sent together as JDBC batch, up to batch size (see
+ * {@link StatementBatch}). If database supports transactional DDL, each batch runs in single transaction. When a
+ * batch fails, statements not applied are executed one by one, so failed statement is reported precisely (unless
+ * driver does not tell which are applied, see {@link StatementBatch}).
+ * <p>
+ * Statements run in auto-commit mode otherwise, and execution times are logged. On first error no more statements
+ * are started, statements already running are waited for, and the error is thrown; statements executed so far are
+ * not rolled back.
+ * <p>
+ * Scripts are read in UTF-8, like all files written and read by plugin.
+ */
+final class ParallelDdlExecutor {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final JdbcConnector connector;
+    private final int parallelism;
+    private final int batchSize;
+    private final Log log;
+
+    /**
+     * @param connector   target database
+     * @param parallelism maximum number of connections
+     * @param batchSize   maximum number of statements sent at once
+     * @param log         log for statement timings
+     */
+    ParallelDdlExecutor(JdbcConnector connector,
+                        int parallelism,
+                        int batchSize,
+                        Log log) {
+        if (connector == null)
+            throw new NullPointerException("connector");
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+
+        this.connector = connector;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.log = log;
+    }
+
+    /**
+     * @param statements   statements in script order
+     * @param ignoreErrors {@code true} to log failed statements and go on (like providers do for drop scripts)
+     * @throws SQLException if statement fails and errors are not ignored, or connection cannot be opened
+     */
+    void execute(List<String> statements,
+                 boolean ignoreErrors) throws SQLException {
+        if (statements.isEmpty()) {
+            return;
+        }
+        final StatementGraph graph = StatementGraph.build(statements);
+        final int size = graph.size();
+        final int[] pending = new int[size];
+        final List<List<Integer>> dependents = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dependents.add(new ArrayList<Integer>(0));
+        }
+        for (int i = 0; i < size; i++) {
+            int[] dependencies = graph.getDependencies(i);
+            pending[i] = dependencies.length;
+            for (int dependency : dependencies) {
+                dependents.get(dependency).add(i);
+            }
+        }
+
+        final int connections = Math.min(parallelism, graph.getMaxParallelism());
+        final List<Connection> opened = new ArrayList<>(connections);
+        final BlockingQueue<Connection> pool = new ArrayBlockingQueue<>(connections);
+        final ExecutorService executor = Executors.newFixedThreadPool(connections);
+        final AtomicInteger failures = new AtomicInteger();
+        final long started = System.nanoTime();
+        try {
+            for (int i = 0; i < connections; i++) {
+                Connection connection = connector.connect();
+                opened.add(connection);
+                pool.add(connection);
+            }
+            final boolean transactional = batchSize > 1 && StatementBatch.isTransactionalDdl(opened.get(0));
+
+            CompletionService<int[]> completion = new ExecutorCompletionService<>(executor);
+            Deque<Integer> ready = new ArrayDeque<>();
+            for (int i = 0; i < size; i++) {
+                if (pending[i] == 0) {
+                    ready.add(i);
+                }
+            }
+            int running = 0;
+            int batches = 0;
+            for (int done = 0; done < size; ) {
+                // spread ready statements over idle connections
+                while (running < connections && !ready.isEmpty()) {
+                    final int idle = connections - running;
+                    int count = Math.min(batchSize, (ready.size() + idle - 1) / idle);
+                    List<Integer> batch = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        batch.add(ready.poll());
+                    }
+                    completion.submit(new Task(pool, graph, batch, transactional, ignoreErrors, failures));
+                    running++;
+                    batches++;
+                }
+
+                int[] indexes;
+                try {
+                    indexes = completion.take().get();
+                } catch (ExecutionException e) {
+                    throw rethrow(e.getCause());
+                }
+                running--;
+                done += indexes.length;
+                for (int index : indexes) {
+                    for (Integer dependent : dependents.get(index)) {
+                        if (--pending[dependent] == 0) {
+                            ready.add(dependent);
+                        }
+                    }
+                }
+            }
+
+            log.info(String.format("executed %d statements in %d ms using %d connection(s)%s, critical path %d%s",
+                    size, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), connections,
+                    batchSize > 1 ? " in " + batches + (transactional ? " transactional" : "") + " batches" : "",
+                    graph.getCriticalPath(), failures.get() == 0 ? "" : ", " + failures.get() + " failed"));
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while executing statements", e);
+        } finally {
+            // batches already handed out are finished, so that failure leaves same schema on every run
+            executor.shutdown();
+            try {
+                // never close connection under running statement
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    log.info("waiting for running statements...");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (Connection connection : opened) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("cannot close connection", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * stream script in UTF-8 into database on single connection, in script order.
+     *
+     * @param file         script to run
+     * @param ignoreErrors {@code true} to log failed statements and go on
+     * @throws IOException  if script cannot be read
+     * @throws SQLException if statement fails and errors are not ignored, or connection cannot be opened
+     * @see ScriptRunner
+     */
+    void executeScript(File file,
+                       boolean ignoreErrors) throws IOException, SQLException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            executeScript(channel, file.getName(), channel.size(), ignoreErrors);
+        }
+    }
+
+    /**
+     * @param channel script to run, not closed
+     * @param name    script name for log
+     * @param size    script size in bytes, or {@code -1} if unknown
+     */
+    void executeScript(ReadableByteChannel channel,
+                       String name,
+                       long size,
+                       boolean ignoreErrors) throws IOException, SQLException {
+        try (Connection connection = connector.connect()) {
+            final boolean transactional = batchSize > 1 && StatementBatch.isTransactionalDdl(connection);
+            new ScriptRunner(connection, batchSize, transactional, ignoreErrors, log)
+                    .run(channel, UTF_8, name, size);
+        }
+    }
+
+    private static SQLException rethrow(Throwable cause) {
+        if (cause instanceof SQLException) {
+            return (SQLException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new SQLException(cause);
+    }
+
+    /**
+     * executes independent statements on one pooled connection, returning their indexes.
+     */
+    private final class Task
+            implements Callable<int[]> {
+
+        private final BlockingQueue<Connection> pool;
+        private final StatementGraph graph;
+        private final List<Integer> batch;
+        private final boolean transactional;
+        private final boolean ignoreErrors;
+        private final AtomicInteger failures;
+
+        Task(BlockingQueue<Connection> pool,
+             StatementGraph graph,
+             List<Integer> batch,
+             boolean transactional,
+             boolean ignoreErrors,
+             AtomicInteger failures) {
+            this.pool = pool;
+            this.graph = graph;
+            this.batch = batch;
+            this.transactional = transactional;
+            this.ignoreErrors = ignoreErrors;
+            this.failures = failures;
+        }
+
+        @Override
+        public int[] call() throws Exception {
+            final Connection connection = pool.take();
+            try {
+                boolean[] applied = new boolean[batch.size()];
+                if (batch.size() > 1) {
+                    applied = executeBatch(connection);
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    if (!applied[i]) {
+                        execute(connection, batch.get(i));
+                    }
+                }
+            } finally {
+                pool.add(connection);
+            }
+            int[] indexes = new int[batch.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                indexes[i] = batch.get(i);
+            }
+            return indexes;
+        }
+
+        /**
+         * @return which statements are applied
+         */
+        private boolean[] executeBatch(Connection connection) throws SQLException {
+            final List<String> sqls = new ArrayList<>(batch.size());
+            for (Integer index : batch) {
+                sqls.add(graph.get(index).getSql());
+            }
+            final long started = System.nanoTime();
+            final boolean[] applied;
+            try {
+                applied = StatementBatch.execute(connection, sqls, transactional);
+            } catch (SQLException e) {
+                if (!ignoreErrors) {
+                    throw e;
+                }
+                // errors are ignored, so statements failing for being applied already are too
+                log.warn(e.getMessage());
+                return new boolean[sqls.size()];
+            }
+            log.info(String.format("  * %6d ms: batch of %d statements",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), batch.size()));
+            for (int i = 0; i < applied.length; i++) {
+                log.info((applied[i] ? "            " : "   (failed) ") + sqls.get(i));
+            }
+            return applied;
+        }
+
+        private void execute(Connection connection,
+                             int index) throws SQLException {
+            final String sql = graph.get(index).getSql();
+            try {
+                final long started = System.nanoTime();
+                StatementBatch.execute(connection, sql, index + 1);
+                log.info(String.format("  * %6d ms: %s",
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), sql));
+            } catch (SQLException e) {
+                if (!ignoreErrors) {
+                    throw e;
+                }
+                log.warn(e.getMessage());
+                failures.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import static io.github.divinespear.maven.plugin.SchemaModel.identifier;
+import static io.github.divinespear.maven.plugin.SchemaModel.unqualified;
+
+/**
+ * Statements bringing database schema to mapping.
+ * <p>
+ * Missing sequences, tables, columns, indexes, unique constraints and foreign keys are created, with statements
+ * taken from generated script. Indexes and constraints match by name, or by columns as databases may name them
+ * differently (like indexes backing unique constraints). Mapped tables are matched by name without schema.
+ * <p>
+ * Foreign keys, columns and tables not in mapping are dropped only if asked to; unnamed foreign keys are not, as
+ * they cannot be named in statement. Indexes and unique constraints are never dropped, as databases create their own
+ * (like for primary and foreign keys), and columns are never altered, as statement differs by database. Changed
+ * column types and nullability, and (between generated models) removed or changed indexes are logged as unresolved
+ * instead. Column types read from database are compared only if spelled alike, like {@code varchar(64)} and
+ * {@code varchar(255)}, as databases report own names of types.
+ * <p>
+ * Tables with same {@link SchemaModel.Table#getHash() hash} in both models (like model of previous generation) are
+ * created by same statements, and not compared further.
+ */
+final class SchemaDiff {
+
+    private SchemaDiff() {
+    }
+
+    /**
+     * @param mapping     model of generated create script
+     * @param database    model of database
+     * @param dropObjects drop foreign keys, columns and tables not in mapping
+     * @return statements in execution order, empty if database is up to date
+     */
+    static List<String> diff(SchemaModel mapping,
+                             SchemaModel database,
+                             boolean dropObjects,
+                             Log log) {
+        return diff(mapping, database, false, dropObjects, log, null);
+    }
+
+    /**
+     * @param mapping     model of generated create script
+     * @param database    model of database, or of previous generation
+     * @param generated   {@code database} is model of generated create script too, so types are spelled alike and
+     *                    indexes are known
+     * @param dropObjects drop foreign keys, columns and tables not in mapping
+     * @param unresolved  differences not brought to mapping by statements are added to, may be {@code null}
+     * @return statements in execution order, empty if database is up to date
+     */
+    static List<String> diff(SchemaModel mapping,
+                             SchemaModel database,
+                             boolean generated,
+                             boolean dropObjects,
+                             Log log,
+                             List<String> unresolved) {
+        final List<String> drops = new ArrayList<>();
+        final List<String> sequences = new ArrayList<>();
+        final List<String> tables = new ArrayList<>();
+        final List<String> columns = new ArrayList<>();
+        final List<String> indexes = new ArrayList<>();
+        final List<String> foreignKeys = new ArrayList<>();
+        final List<String> differences = new ArrayList<>();
+
+        final Map<String, SchemaModel.Table> mapped = new HashMap<>();
+        final Set<String> unchanged = new HashSet<>();
+        for (SchemaModel.Table table : mapping.getTables()) {
+            final SchemaModel.Table existing = database.getTable(unqualified(table.getKey()));
+            final String name = identifier(table.getKey());
+            if (existing != null && table.getHash() != null && table.getHash().equals(existing.getHash())) {
+                mapped.put(existing.getKey(), table);
+                unchanged.add(existing.getKey());
+                continue;
+            }
+            if (existing == null) {
+                tables.add(table.getSql());
+            } else {
+                mapped.put(existing.getKey(), table);
+                for (SchemaModel.Column column : table.getColumns().values()) {
+                    final SchemaModel.Column current = existing.getColumns().get(column.getName());
+                    if (current == null) {
+                        columns.add("alter table " + name + " add " + column.getDefinition());
+                    } else if (!isSameType(current.getType(), column.getType(), generated)
+                            || isNullable(existing, current) != isNullable(table, column)) {
+                        differences.add(String.format("column %s.%s is changed from %s to %s, but not altered", name,
+                                identifier(column.getName()), describe(existing, current), describe(table, column)));
+                    }
+                }
+                if (generated) {
+                    for (SchemaModel.Index index : existing.getIndexes()) {
+                        if (!containsSame(table.getIndexes(), index)) {
+                            differences.add(String.format("index %s (%s) of %s is removed or changed, but not dropped",
+                                    index.getName() == null ? "without name" : identifier(index.getName()),
+                                    index.getColumns(), name));
+                        }
+                    }
+                }
+            }
+            for (SchemaModel.Index index : table.getIndexes()) {
+                if (existing == null ? index.getSql() != null : !contains(existing.getIndexes(), index)) {
+                    indexes.add(index.getSql() != null ? index.getSql()
+                            : "alter table " + name + " add " + index.getDefinition());
+                }
+            }
+            for (SchemaModel.ForeignKey foreignKey : table.getForeignKeys()) {
+                if (existing == null ? foreignKey.getSql() != null
+                        : !contains(existing.getForeignKeys(), foreignKey)) {
+                    foreignKeys.add(foreignKey.getSql() != null ? foreignKey.getSql()
+                            : "alter table " + name + " add " + foreignKey.getDefinition());
+                }
+            }
+        }
+
+        if (dropObjects) {
+            final List<String> dropColumns = new ArrayList<>();
+            final List<String> dropTables = new ArrayList<>();
+            for (SchemaModel.Table existing : database.getTables()) {
+                final SchemaModel.Table table = mapped.get(existing.getKey());
+                final String name = identifier(existing.getKey());
+                final boolean same = unchanged.contains(existing.getKey());
+                for (SchemaModel.ForeignKey foreignKey : existing.getForeignKeys()) {
+                    if (table == null || !same && !contains(table.getForeignKeys(), foreignKey)
+                            || !mapped.containsKey(foreignKey.getReferencedTable())) {
+                        if (foreignKey.getName() == null) {
+                            differences.add(String.format("foreign key %s of %s to %s has no name, not dropped",
+                                    foreignKey.getColumns(), name, foreignKey.getReferencedTable()));
+                        } else {
+                            drops.add("alter table " + name + " drop constraint " + identifier(
+                                    foreignKey.getName()));
+                        }
+                    }
+                }
+                if (table == null) {
+                    dropTables.add("drop table " + name);
+                    continue;
+                }
+                if (same) {
+                    continue;
+                }
+                for (String column : existing.getColumns().keySet()) {
+                    if (!table.getColumns().containsKey(column)) {
+                        dropColumns.add("alter table " + name + " drop column " + identifier(column));
+                    }
+                }
+            }
+            drops.addAll(dropColumns);
+            drops.addAll(dropTables);
+        }
+
+        if (database.getSequences() == null) {
+            if (!mapping.getSequences().isEmpty()) {
+                log.warn("cannot read sequences of database, " + mapping.getSequences().size()
+                        + " sequence(s) are not created");
+            }
+        } else {
+            for (Map.Entry<String, String> sequence : mapping.getSequences().entrySet()) {
+                if (!database.getSequences().containsKey(unqualified(sequence.getKey()))) {
+                    sequences.add(sequence.getValue());
+                }
+            }
+        }
+
+        final List<String> statements = new ArrayList<>(drops);
+        statements.addAll(sequences);
+        statements.addAll(tables);
+        statements.addAll(columns);
+        statements.addAll(indexes);
+        statements.addAll(foreignKeys);
+        for (String difference : differences) {
+            log.warn(difference);
+        }
+        if (unresolved != null) {
+            unresolved.addAll(differences);
+        }
+        log.info(statements.isEmpty() && differences.isEmpty() ? "schema is up to date" : String.format(
+                "schema differs: %d drop(s), %d sequence(s), %d table(s), %d column(s), %d index(es), "
+                        + "%d foreign key(s) to create, %d table(s) unchanged, %d difference(s) unresolved",
+                drops.size(), sequences.size(), tables.size(), columns.size(), indexes.size(), foreignKeys.size(),
+                unchanged.size(), differences.size()));
+        return statements;
+    }
+
+    /**
+     * @param generated both types are of generated script, otherwise types spelled differently are not compared
+     */
+    private static boolean isSameType(String current,
+                                      String type,
+                                      boolean generated) {
+        final String a = normalize(current), b = normalize(type);
+        if (a.equals(b)) {
+            return true;
+        }
+        if (generated) {
+            return false;
+        }
+        // like varchar(64) and varchar(255), but not int and integer, or varchar and varchar(2147483647)
+        final int open = a.indexOf('(');
+        return open < 0 || b.indexOf('(') != open || !a.regionMatches(0, b, 0, open);
+    }
+
+    private static String normalize(String type) {
+        return type.toLowerCase(Locale.ENGLISH).replaceAll("\\s+", "");
+    }
+
+    private static boolean isNullable(SchemaModel.Table table,
+                                      SchemaModel.Column column) {
+        return column.isNullable() && !table.getPrimaryKey().contains(column.getName());
+    }
+
+    private static String describe(SchemaModel.Table table,
+                                   SchemaModel.Column column) {
+        return column.getType() + (isNullable(table, column) ? " null" : " not null");
+    }
+
+    /**
+     * @return {@code true} if index of same columns and uniqueness is in list
+     */
+    private static boolean containsSame(List<SchemaModel.Index> indexes,
+                                        SchemaModel.Index index) {
+        for (SchemaModel.Index candidate : indexes) {
+            if (candidate.isUnique() == index.isUnique() && candidate.getColumns().equals(index.getColumns())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(List<SchemaModel.Index> indexes,
+                                    SchemaModel.Index index) {
+        for (SchemaModel.Index candidate : indexes) {
+            if (index.getName() != null && index.getName().equals(candidate.getName())) {
+                return true;
+            }
+            if (candidate.getColumns().equals(index.getColumns()) && (candidate.isUnique() || !index.isUnique())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(List<SchemaModel.ForeignKey> foreignKeys,
+                                    SchemaModel.ForeignKey foreignKey) {
+        for (SchemaModel.ForeignKey candidate : foreignKeys) {
+            if (foreignKey.getName() != null && foreignKey.getName().equals(candidate.getName())) {
+                return true;
+            }
+            if (candidate.getColumns().equals(foreignKey.getColumns())
+                    && unqualified(candidate.getReferencedTable()).equals(
+                    unqualified(foreignKey.getReferencedTable()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,529 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static io.github.divinespear.maven.plugin.SqlLexer.Tokenizer.*;
+
+/**
+ * Tables (with columns, primary key, indexes and foreign keys) and sequences of a schema.
+ * <p>
+ * Built from generated create statements by {@link #parse(List)}, or read from database by {@link SchemaReader},
+ * to be compared by {@link SchemaDiff}. Object names are kept as keys like in {@link DdlStatement}: unquoted and
+ * upper-cased. Column names and types are interned, as they repeat a lot in large schemas.
+ */
+final class SchemaModel {
+
+    private static final String[] COLUMN_KEYWORDS = {"not", "null", "default", "primary", "unique", "references",
+            "check", "constraint", "generated", "auto_increment", "identity", "collate", "comment"};
+
+    private final Map<String, Table> tables = new TreeMap<>();
+    private Map<String, String> sequences = new TreeMap<>();
+
+    Collection<Table> getTables() {
+        return Collections.unmodifiableCollection(tables.values());
+    }
+
+    Table getTable(String key) {
+        return tables.get(key);
+    }
+
+    void addTable(Table table) {
+        tables.put(table.getKey(), table);
+    }
+
+    /**
+     * @return create statements by sequence key ({@code null} statement if read from database), or {@code null} if
+     * sequences are unknown
+     */
+    Map<String, String> getSequences() {
+        return sequences == null ? null : Collections.unmodifiableMap(sequences);
+    }
+
+    void addSequence(String key,
+                     String sql) {
+        sequences.put(key, sql);
+    }
+
+    void setSequencesUnknown() {
+        sequences = null;
+    }
+
+    /**
+     * build model of generated create script.
+     * <p>
+     * indexes and constraints of tables not created by script are ignored.
+     */
+    static SchemaModel parse(List<String> statements) {
+        final SchemaModel model = new SchemaModel();
+        final SqlLexer.Tokenizer tokens = new SqlLexer.Tokenizer();
+        for (String sql : statements) {
+            final DdlStatement statement = DdlStatement.parse(sql);
+            if (statement.isDrop()) {
+                continue;
+            }
+            switch (statement.getKind()) {
+                case SEQUENCE:
+                    model.addSequence(statement.getName(), sql);
+                    break;
+                case TABLE:
+                    model.addTable(parseTable(tokens.reset(sql), statement.getName(), sql));
+                    break;
+                case INDEX:
+                    final Table indexed = model.getTable(statement.getTable());
+                    if (indexed != null) {
+                        boolean unique = false;
+                        tokens.reset(sql);
+                        while (tokens.nextSignificant() && !tokens.is("on")) {
+                            unique |= tokens.is("unique");
+                        }
+                        DdlStatement.name(tokens);
+                        indexed.indexes.add(new Index(statement.getName(), unique, names(tokens), sql, null));
+                    }
+                    break;
+                case CONSTRAINT:
+                case FOREIGN_KEY:
+                    final Table altered = model.getTable(statement.getTable());
+                    if (altered != null) {
+                        tokens.reset(sql);
+                        while (tokens.nextSignificant() && !tokens.is("add")) {
+                            // skip alter table name
+                        }
+                        if (tokens.nextSignificant()) {
+                            parseConstraint(tokens, altered, sql, null);
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        for (Table table : model.tables.values()) {
+            table.hash = hash(table);
+        }
+        return model;
+    }
+
+    /**
+     * @return hash of statements creating table, its indexes and constraints
+     */
+    private static String hash(Table table) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final Charset charset = Charset.forName("UTF-8");
+        digest.update(table.sql.getBytes(charset));
+        for (Index index : table.indexes) {
+            if (index.sql != null) {
+                digest.update((byte) 0);
+                digest.update(index.sql.getBytes(charset));
+            }
+        }
+        for (ForeignKey foreignKey : table.foreignKeys) {
+            if (foreignKey.sql != null) {
+                digest.update((byte) 0);
+                digest.update(foreignKey.sql.getBytes(charset));
+            }
+        }
+        final StringBuilder hash = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hash.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hash.toString();
+    }
+
+    private static Table parseTable(SqlLexer.Tokenizer tokens,
+                                    String key,
+                                    String sql) {
+        final Table table = new Table(key, sql);
+        final SqlLexer.Tokenizer item = new SqlLexer.Tokenizer();
+        for (String definition : items(tokens)) {
+            if (!item.reset(definition).nextSignificant() || parseConstraint(item, table, null, definition)) {
+                continue;
+            }
+            final String column = identifier(item);
+            final StringBuilder type = new StringBuilder();
+            while (item.next() && !(item.type() == WORD && item.depth() == 0 && isColumnKeyword(item))) {
+                if (item.type() != WHITESPACE && item.type() != COMMENT) {
+                    type.append(definition, item.start(), item.end());
+                } else if (type.length() > 0) {
+                    type.append(' ');
+                }
+            }
+            boolean nullable = true, primary = false;
+            do {
+                nullable &= !item.is("not");
+                primary |= item.is("primary");
+            } while (item.nextSignificant());
+            table.columns.put(column, new Column(column, type.toString().trim(), nullable && !primary, definition));
+            if (primary) {
+                table.primaryKey = Collections.singletonList(column);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @return column and constraint definitions of create table statement
+     */
+    private static List<String> items(SqlLexer.Tokenizer tokens) {
+        final List<String> items = new ArrayList<>();
+        while (tokens.nextSignificant() && tokens.type() != OPEN) {
+            // skip create table name
+        }
+        final CharSequence sql = tokens.sql();
+        int start = tokens.end();
+        while (tokens.next()) {
+            if (tokens.depth() == 1 && (tokens.type() == COMMA || tokens.type() == CLOSE)) {
+                final String item = sql.subSequence(start, tokens.start()).toString().trim();
+                if (!item.isEmpty()) {
+                    items.add(item);
+                }
+                if (tokens.type() == CLOSE) {
+                    break;
+                }
+                start = tokens.end();
+            }
+        }
+        return items;
+    }
+
+    /**
+     * parse table constraint at current token ({@code [constraint name] primary key|unique|foreign key ...}).
+     *
+     * @param sql        separate statement creating it, or {@code null} if part of table definition
+     * @param definition constraint definition in table, or {@code null} if separate statement
+     * @return {@code false} if not a table constraint
+     */
+    private static boolean parseConstraint(SqlLexer.Tokenizer tokens,
+                                           Table table,
+                                           String sql,
+                                           String definition) {
+        String name = null;
+        if (tokens.is("constraint")) {
+            name = DdlStatement.name(tokens);
+            if (tokens.type() == WHITESPACE || tokens.type() == COMMENT) {
+                tokens.nextSignificant();
+            }
+        }
+        if (tokens.is("primary")) {
+            table.primaryKey = names(tokens);
+        } else if (tokens.is("unique")) {
+            table.indexes.add(new Index(name, true, names(tokens), sql, definition));
+        } else if (tokens.is("foreign")) {
+            final List<String> columns = names(tokens);
+            String referencedTable = null;
+            List<String> referencedColumns = Collections.emptyList();
+            while (tokens.type() != WORD || !tokens.is("references")) {
+                if (!tokens.nextSignificant()) {
+                    break;
+                }
+            }
+            if (tokens.is("references")) {
+                referencedTable = DdlStatement.name(tokens);
+                if (tokens.type() == WHITESPACE || tokens.type() == COMMENT) {
+                    tokens.nextSignificant();
+                }
+                if (tokens.type() == OPEN) {
+                    referencedColumns = names(tokens);
+                }
+            }
+            table.foreignKeys.add(new ForeignKey(name, columns, referencedTable, referencedColumns, sql, definition));
+        } else {
+            return name != null || tokens.is("check");
+        }
+        return true;
+    }
+
+    /**
+     * read next parenthesized name list, ignoring sort order and lengths.
+     */
+    private static List<String> names(SqlLexer.Tokenizer tokens) {
+        while (tokens.type() != OPEN) {
+            if (!tokens.nextSignificant()) {
+                return Collections.emptyList();
+            }
+        }
+        final int depth = tokens.depth();
+        final List<String> names = new ArrayList<>();
+        boolean first = true;
+        while (tokens.nextSignificant() && !(tokens.type() == CLOSE && tokens.depth() == depth)) {
+            if (tokens.depth() != depth) {
+                continue;
+            }
+            if (tokens.type() == COMMA) {
+                first = true;
+            } else if (first && (tokens.type() == WORD || tokens.type() == QUOTED_IDENTIFIER)) {
+                names.add(identifier(tokens));
+                first = false;
+            }
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    private static String identifier(SqlLexer.Tokenizer tokens) {
+        final CharSequence sql = tokens.sql();
+        if (tokens.type() == QUOTED_IDENTIFIER) {
+            return sql.subSequence(tokens.start() + 1, tokens.end() - 1).toString().intern();
+        }
+        return sql.subSequence(tokens.start(), tokens.end()).toString().toUpperCase(Locale.ENGLISH).intern();
+    }
+
+    private static boolean isColumnKeyword(SqlLexer.Tokenizer tokens) {
+        for (String keyword : COLUMN_KEYWORDS) {
+            if (tokens.is(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return key without schema or catalog
+     */
+    static String unqualified(String key) {
+        return key == null ? null : key.substring(key.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * @return key written as SQL identifier, quoted if needed
+     */
+    static String identifier(String key) {
+        final StringBuilder builder = new StringBuilder();
+        for (String part : key.split("\\.")) {
+            if (builder.length() > 0) {
+                builder.append('.');
+            }
+            if (part.matches("[A-Z_][A-Z0-9_$#]*")) {
+                builder.append(part);
+            } else {
+                builder.append('"').append(part.replace("\"", "\"\"")).append('"');
+            }
+        }
+        return builder.toString();
+    }
+
+    static final class Table {
+
+        private final String key;
+        private final String sql;
+        private final Map<String, Column> columns = new LinkedHashMap<>();
+        private List<String> primaryKey = Collections.emptyList();
+        private final List<Index> indexes = new ArrayList<>();
+        private final List<ForeignKey> foreignKeys = new ArrayList<>();
+        private String hash;
+
+        /**
+         * @param sql create statement, {@code null} if read from database
+         */
+        Table(String key,
+              String sql) {
+            this.key = key;
+            this.sql = sql;
+        }
+
+        String getKey() {
+            return key;
+        }
+
+        String getSql() {
+            return sql;
+        }
+
+        Map<String, Column> getColumns() {
+            return columns;
+        }
+
+        List<String> getPrimaryKey() {
+            return primaryKey;
+        }
+
+        void setPrimaryKey(List<String> primaryKey) {
+            this.primaryKey = primaryKey;
+        }
+
+        List<Index> getIndexes() {
+            return indexes;
+        }
+
+        List<ForeignKey> getForeignKeys() {
+            return foreignKeys;
+        }
+
+        /**
+         * @return hash of statements creating table, its indexes and constraints, {@code null} if read from database
+         */
+        String getHash() {
+            return hash;
+        }
+
+        void setHash(String hash) {
+            this.hash = hash;
+        }
+    }
+
+    static final class Column {
+
+        private final String name;
+        private final String type;
+        private final boolean nullable;
+        private final String definition;
+
+        /**
+         * @param definition column definition in create statement, {@code null} if read from database
+         */
+        Column(String name,
+               String type,
+               boolean nullable,
+               String definition) {
+            this.name = name.intern();
+            this.type = type.intern();
+            this.nullable = nullable;
+            this.definition = definition;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getType() {
+            return type;
+        }
+
+        boolean isNullable() {
+            return nullable;
+        }
+
+        String getDefinition() {
+            return definition;
+        }
+    }
+
+    /**
+     * index or unique constraint.
+     */
+    static final class Index {
+
+        private final String name;
+        private final boolean unique;
+        private final List<String> columns;
+        private final String sql;
+        private final String definition;
+
+        /**
+         * @param name       key of index, may be {@code null} for unnamed constraints
+         * @param sql        statement creating it, {@code null} if part of table definition or read from database
+         * @param definition constraint definition in create table statement, if part of it
+         */
+        Index(String name,
+              boolean unique,
+              List<String> columns,
+              String sql,
+              String definition) {
+            this.name = name;
+            this.unique = unique;
+            this.columns = columns;
+            this.sql = sql;
+            this.definition = definition;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        boolean isUnique() {
+            return unique;
+        }
+
+        List<String> getColumns() {
+            return columns;
+        }
+
+        String getSql() {
+            return sql;
+        }
+
+        String getDefinition() {
+            return definition;
+        }
+    }
+
+    static final class ForeignKey {
+
+        private final String name;
+        private final List<String> columns;
+        private final String referencedTable;
+        private final List<String> referencedColumns;
+        private final String sql;
+        private final String definition;
+
+        ForeignKey(String name,
+                   List<String> columns,
+                   String referencedTable,
+                   List<String> referencedColumns,
+                   String sql,
+                   String definition) {
+            this.name = name;
+            this.columns = columns;
+            this.referencedTable = referencedTable == null ? null : referencedTable.intern();
+            this.referencedColumns = referencedColumns;
+            this.sql = sql;
+            this.definition = definition;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        List<String> getColumns() {
+            return columns;
+        }
+
+        String getReferencedTable() {
+            return referencedTable;
+        }
+
+        List<String> getReferencedColumns() {
+            return referencedColumns;
+        }
+
+        String getSql() {
+            return sql;
+        }
+
+        String getDefinition() {
+            return definition;
+        }
+    }
+}
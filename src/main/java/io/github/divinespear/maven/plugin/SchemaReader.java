@@ -0,0 +1,414 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads {@link SchemaModel} of connection's current schema through {@link DatabaseMetaData}.
+ * <p>
+ * Metadata is queried for whole schema at once where driver allows it: columns always (table name is a pattern),
+ * primary keys, indexes and foreign keys if driver accepts {@code null} table name. Remaining per-table calls are
+ * spread over a small pool of connections. Models can be cached by connection url and user, for the Maven session.
+ * <p>
+ * Sequences are not covered by {@link DatabaseMetaData}; they are read as {@code SEQUENCE} tables where driver
+ * reports them so, or from {@code INFORMATION_SCHEMA.SEQUENCES}. If neither works, they are left unknown.
+ */
+final class SchemaReader {
+
+    private enum Part {
+        PRIMARY_KEYS,
+        INDEXES,
+        FOREIGN_KEYS
+    }
+
+    private final JdbcConnector connector;
+    private final int parallelism;
+    private final Log log;
+
+    /**
+     * @param parallelism maximum number of connections for per-table metadata calls
+     */
+    SchemaReader(JdbcConnector connector,
+                 int parallelism,
+                 Log log) {
+        if (connector == null)
+            throw new NullPointerException("connector");
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+
+        this.connector = connector;
+        this.parallelism = parallelism;
+        this.log = log;
+    }
+
+    /**
+     * @param cache models read before, by {@link #cacheKey(String, String)}; may be {@code null}
+     */
+    SchemaModel read(ConcurrentMap<String, SchemaModel> cache) throws SQLException {
+        if (cache == null) {
+            return read();
+        }
+        final String key = cacheKey(connector.getUrl(), connector.getUser());
+        SchemaModel model = cache.get(key);
+        if (model == null) {
+            model = read();
+            cache.put(key, model);
+        } else {
+            log.info("using schema read before from " + connector.getUrl());
+        }
+        return model;
+    }
+
+    /**
+     * @return cache key of schema; remove it from cache after changing schema
+     */
+    static String cacheKey(String url,
+                           String user) {
+        return url + "\n" + user;
+    }
+
+    SchemaModel read() throws SQLException {
+        final long started = System.nanoTime();
+        final SchemaModel model = new SchemaModel();
+        final Map<String, SchemaModel.Table> tables = new LinkedHashMap<>();
+        final Set<Part> perTable = EnumSet.noneOf(Part.class);
+        final String catalog;
+        final String schema;
+        try (Connection connection = connector.connect()) {
+            final DatabaseMetaData metaData = connection.getMetaData();
+            catalog = connection.getCatalog();
+            schema = schema(connection);
+
+            try (ResultSet rs = metaData.getTables(catalog, schema, "%", new String[]{"TABLE"})) {
+                while (rs.next()) {
+                    final String name = rs.getString("TABLE_NAME");
+                    tables.put(name, new SchemaModel.Table(name.toUpperCase(Locale.ENGLISH), null));
+                }
+            }
+            if (!tables.isEmpty()) {
+                readColumns(metaData, catalog, schema, tables);
+                for (Part part : Part.values()) {
+                    if (!readSchemaWide(metaData, catalog, schema, part, tables)) {
+                        perTable.add(part);
+                    }
+                }
+            }
+            readSequences(connection, catalog, schema, model);
+        }
+
+        if (!perTable.isEmpty()) {
+            readPerTable(catalog, schema, perTable, tables);
+        }
+        for (SchemaModel.Table table : tables.values()) {
+            model.addTable(table);
+        }
+        log.info(String.format("read %d tables in %d ms%s", tables.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started),
+                perTable.isEmpty() ? "" : ", per table: "
+                        + perTable.toString().toLowerCase(Locale.ENGLISH).replace('_', ' ')));
+        return model;
+    }
+
+    /**
+     * @return {@code false} if driver does not support it, and it has to be read per table
+     */
+    private boolean readSchemaWide(DatabaseMetaData metaData,
+                                   String catalog,
+                                   String schema,
+                                   Part part,
+                                   Map<String, SchemaModel.Table> tables) {
+        try {
+            // no rows are taken as no support, as most drivers return nothing for null table instead of failing
+            return read(metaData, catalog, schema, null, part, tables) > 0;
+        } catch (SQLException | RuntimeException e) {
+            log.debug("schema-wide " + part + " are not supported", e);
+            return false;
+        }
+    }
+
+    private void readPerTable(final String catalog,
+                              final String schema,
+                              final Set<Part> parts,
+                              final Map<String, SchemaModel.Table> tables) throws SQLException {
+        final Queue<String> queue = new ConcurrentLinkedQueue<>(tables.keySet());
+        final int threads = Math.min(parallelism, tables.size());
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Void>> futures = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws SQLException {
+                        try (Connection connection = connector.connect()) {
+                            final DatabaseMetaData metaData = connection.getMetaData();
+                            for (String name = queue.poll(); name != null; name = queue.poll()) {
+                                for (Part part : parts) {
+                                    read(metaData, catalog, schema, name, part, tables);
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new SQLException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while reading schema", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String schema(Connection connection) {
+        try {
+            return connection.getSchema();
+        } catch (SQLException | AbstractMethodError e) {
+            // before JDBC 4.1
+            return null;
+        }
+    }
+
+    private static void readColumns(DatabaseMetaData metaData,
+                                    String catalog,
+                                    String schema,
+                                    Map<String, SchemaModel.Table> tables) throws SQLException {
+        try (ResultSet rs = metaData.getColumns(catalog, schema, "%", "%")) {
+            while (rs.next()) {
+                final SchemaModel.Table table = tables.get(rs.getString("TABLE_NAME"));
+                if (table == null) {
+                    // view, etc.
+                    continue;
+                }
+                final String column = rs.getString("COLUMN_NAME").toUpperCase(Locale.ENGLISH);
+                table.getColumns().put(column, new SchemaModel.Column(column, type(rs),
+                        rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls, null));
+            }
+        }
+    }
+
+    /**
+     * read part of given table, or all tables if {@code null}.
+     *
+     * @return number of rows read
+     */
+    private static int read(DatabaseMetaData metaData,
+                            String catalog,
+                            String schema,
+                            String name,
+                            Part part,
+                            Map<String, SchemaModel.Table> tables) throws SQLException {
+        switch (part) {
+            case PRIMARY_KEYS:
+                return readPrimaryKeys(metaData.getPrimaryKeys(catalog, schema, name), tables);
+            case INDEXES:
+                return readIndexes(metaData.getIndexInfo(catalog, schema, name, false, true), tables);
+            default:
+                return readForeignKeys(metaData.getImportedKeys(catalog, schema, name), tables);
+        }
+    }
+
+    private static int readPrimaryKeys(ResultSet resultSet,
+                                       Map<String, SchemaModel.Table> tables) throws SQLException {
+        final Map<String, Map<Short, String>> primaryKeys = new LinkedHashMap<>();
+        int rows = 0;
+        try (ResultSet rs = resultSet) {
+            while (rs.next()) {
+                rows++;
+                put(primaryKeys, rs.getString("TABLE_NAME"), rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+            }
+        }
+        for (Map.Entry<String, Map<Short, String>> primaryKey : primaryKeys.entrySet()) {
+            final SchemaModel.Table table = tables.get(primaryKey.getKey());
+            if (table != null) {
+                table.setPrimaryKey(values(primaryKey.getValue()));
+            }
+        }
+        return rows;
+    }
+
+    private static int readIndexes(ResultSet resultSet,
+                                   Map<String, SchemaModel.Table> tables) throws SQLException {
+        // by table and index name
+        final Map<List<String>, Boolean> unique = new LinkedHashMap<>();
+        final Map<List<String>, Map<Short, String>> columns = new LinkedHashMap<>();
+        int rows = 0;
+        try (ResultSet rs = resultSet) {
+            while (rs.next()) {
+                rows++;
+                final String index = rs.getString("INDEX_NAME");
+                if (index == null || rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
+                    continue;
+                }
+                final List<String> key = Arrays.asList(rs.getString("TABLE_NAME"), index);
+                unique.put(key, !rs.getBoolean("NON_UNIQUE"));
+                put(columns, key, rs.getShort("ORDINAL_POSITION"), rs.getString("COLUMN_NAME"));
+            }
+        }
+        for (Map.Entry<List<String>, Map<Short, String>> index : columns.entrySet()) {
+            final SchemaModel.Table table = tables.get(index.getKey().get(0));
+            if (table != null) {
+                table.getIndexes().add(new SchemaModel.Index(index.getKey().get(1).toUpperCase(Locale.ENGLISH),
+                        unique.get(index.getKey()), values(index.getValue()), null, null));
+            }
+        }
+        return rows;
+    }
+
+    private static int readForeignKeys(ResultSet resultSet,
+                                       Map<String, SchemaModel.Table> tables) throws SQLException {
+        // by table and foreign key name
+        final Map<List<String>, String> referencedTables = new LinkedHashMap<>();
+        final Map<List<String>, Map<Short, String>> fkColumns = new LinkedHashMap<>();
+        final Map<List<String>, Map<Short, String>> pkColumns = new LinkedHashMap<>();
+        int rows = 0;
+        try (ResultSet rs = resultSet) {
+            while (rs.next()) {
+                rows++;
+                String fk = rs.getString("FK_NAME");
+                if (fk == null) {
+                    // unnamed, like on SQLite
+                    fk = rs.getString("PKTABLE_NAME") + "#" + rs.getString("PKCOLUMN_NAME");
+                }
+                final List<String> key = Arrays.asList(rs.getString("FKTABLE_NAME"), fk);
+                referencedTables.put(key, rs.getString("PKTABLE_NAME").toUpperCase(Locale.ENGLISH));
+                put(fkColumns, key, rs.getShort("KEY_SEQ"), rs.getString("FKCOLUMN_NAME"));
+                put(pkColumns, key, rs.getShort("KEY_SEQ"), rs.getString("PKCOLUMN_NAME"));
+            }
+        }
+        for (Map.Entry<List<String>, String> fk : referencedTables.entrySet()) {
+            final SchemaModel.Table table = tables.get(fk.getKey().get(0));
+            if (table != null) {
+                table.getForeignKeys().add(new SchemaModel.ForeignKey(fk.getKey().get(1).toUpperCase(Locale.ENGLISH),
+                        values(fkColumns.get(fk.getKey())), fk.getValue(), values(pkColumns.get(fk.getKey())),
+                        null, null));
+            }
+        }
+        return rows;
+    }
+
+    private static String type(ResultSet rs) throws SQLException {
+        final String type = rs.getString("TYPE_NAME").toLowerCase(Locale.ENGLISH);
+        switch (rs.getInt("DATA_TYPE")) {
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.BINARY:
+            case Types.VARBINARY:
+                return type + "(" + rs.getInt("COLUMN_SIZE") + ")";
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return type + "(" + rs.getInt("COLUMN_SIZE") + "," + rs.getInt("DECIMAL_DIGITS") + ")";
+            default:
+                return type;
+        }
+    }
+
+    private static <K> void put(Map<K, Map<Short, String>> map,
+                                K key,
+                                short position,
+                                String column) {
+        Map<Short, String> columns = map.get(key);
+        if (columns == null) {
+            map.put(key, columns = new TreeMap<>());
+        }
+        columns.put(position, column == null ? null : column.toUpperCase(Locale.ENGLISH));
+    }
+
+    private static List<String> values(Map<Short, String> columns) {
+        return Collections.unmodifiableList(new ArrayList<>(columns.values()));
+    }
+
+    private static void readSequences(Connection connection,
+                                      String catalog,
+                                      String schema,
+                                      SchemaModel model) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        boolean sequenceType = false;
+        try (ResultSet rs = metaData.getTableTypes()) {
+            while (rs.next()) {
+                sequenceType |= "SEQUENCE".equalsIgnoreCase(rs.getString(1).trim());
+            }
+        }
+        if (sequenceType) {
+            try (ResultSet rs = metaData.getTables(catalog, schema, "%", new String[]{"SEQUENCE"})) {
+                while (rs.next()) {
+                    model.addSequence(rs.getString("TABLE_NAME").toUpperCase(Locale.ENGLISH), null);
+                }
+            }
+            return;
+        }
+        // standard information schema, ignoring failure on databases without it
+        final boolean autoCommit = connection.getAutoCommit();
+        try (PreparedStatement statement = connection.prepareStatement(schema == null
+                ? "SELECT SEQUENCE_NAME FROM INFORMATION_SCHEMA.SEQUENCES"
+                : "SELECT SEQUENCE_NAME FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_SCHEMA = ?")) {
+            if (schema != null) {
+                statement.setString(1, schema);
+            }
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    model.addSequence(rs.getString(1).toUpperCase(Locale.ENGLISH), null);
+                }
+            }
+        } catch (SQLException e) {
+            model.setSequencesUnknown();
+            if (!autoCommit) {
+                // failed statement aborts transaction on some databases
+                connection.rollback();
+            }
+        }
+    }
+}
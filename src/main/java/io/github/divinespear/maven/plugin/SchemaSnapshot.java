@@ -0,0 +1,374 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Versioned JSON or binary file of {@link SchemaModel}, like read from database to compare mapping with it offline.
+ * <p>
+ * Tables are listed with columns as {@code [name, type, nullable]}, primary key columns, indexes as
+ * {@code [name, unique, [columns]]} and foreign keys as {@code [name, [columns], table, [referenced columns]]};
+ * sequences are {@code null} if they could not be read. Tables of generated model also have hash of their
+ * statements.
+ * <p>
+ * Binary format has same content, after {@link #BINARY_MAGIC} and version: table of distinct strings, then sequences
+ * and tables referring to strings by index. All numbers are unsigned variable-length integers (7 bits per byte,
+ * least significant first), and string references are index plus one, {@code 0} for {@code null}.
+ */
+final class SchemaSnapshot {
+
+    static final String FORMAT = "jpa-schema-snapshot";
+    static final int VERSION = 1;
+    static final byte[] BINARY_MAGIC = {'J', 'P', 'A', 'S'};
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private SchemaSnapshot() {
+    }
+
+    static String toJson(SchemaModel model,
+                         String linesep) {
+        final JsonWriter json = new JsonWriter(linesep).beginObject()
+                .property("format", FORMAT)
+                .property("version", VERSION)
+                .name("sequences");
+        if (model.getSequences() == null) {
+            json.value((String) null);
+        } else {
+            json.value(model.getSequences().keySet().toArray());
+        }
+        json.name("tables").beginArray();
+        for (SchemaModel.Table table : model.getTables()) {
+            json.beginObject().property("name", table.getKey());
+            if (table.getHash() != null) {
+                json.property("hash", table.getHash());
+            }
+            json.name("columns").beginArray();
+            for (SchemaModel.Column column : table.getColumns().values()) {
+                json.value(new Object[]{column.getName(), column.getType(), column.isNullable()});
+            }
+            json.endArray()
+                    .name("primaryKey").value(table.getPrimaryKey().toArray())
+                    .name("indexes").beginArray();
+            for (SchemaModel.Index index : table.getIndexes()) {
+                json.value(new Object[]{index.getName(), index.isUnique(), index.getColumns().toArray()});
+            }
+            json.endArray().name("foreignKeys").beginArray();
+            for (SchemaModel.ForeignKey foreignKey : table.getForeignKeys()) {
+                json.value(new Object[]{foreignKey.getName(), foreignKey.getColumns().toArray(),
+                        foreignKey.getReferencedTable(), foreignKey.getReferencedColumns().toArray()});
+            }
+            json.endArray().endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    /**
+     * @return {@code true} if snapshot file is written, {@code false} if it is up to date
+     */
+    static boolean write(SchemaModel model,
+                         File file,
+                         String linesep) throws IOException {
+        return JpaSchemaGeneratorUtils.writeIfChanged(file, toJson(model, linesep));
+    }
+
+    /**
+     * @return {@code true} if snapshot file is written in binary format, {@code false} if it is up to date
+     */
+    static boolean writeBinary(SchemaModel model,
+                               File file) throws IOException {
+        return JpaSchemaGeneratorUtils.writeIfChanged(file, toBinary(model));
+    }
+
+    /**
+     * read snapshot file in JSON or binary format.
+     */
+    static SchemaModel read(File file) throws IOException {
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        try {
+            if (bytes.length >= BINARY_MAGIC.length
+                    && Arrays.equals(Arrays.copyOf(bytes, BINARY_MAGIC.length), BINARY_MAGIC)) {
+                return fromBinary(bytes);
+            }
+            return fromJson(new String(bytes, UTF_8));
+        } catch (IllegalArgumentException | ClassCastException | IndexOutOfBoundsException | NullPointerException e) {
+            throw new IOException("invalid schema snapshot " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static SchemaModel fromJson(String json) {
+        final Object parsed = JsonReader.parse(json);
+        if (!(parsed instanceof Map) || !FORMAT.equals(((Map<String, Object>) parsed).get("format"))) {
+            throw new IllegalArgumentException("not a schema snapshot");
+        }
+        final Map<String, Object> root = (Map<String, Object>) parsed;
+        checkVersion(((Number) root.get("version")).longValue());
+
+        final SchemaModel model = new SchemaModel();
+        final List<Object> sequences = (List<Object>) root.get("sequences");
+        if (sequences == null) {
+            model.setSequencesUnknown();
+        } else {
+            for (Object sequence : sequences) {
+                model.addSequence((String) sequence, null);
+            }
+        }
+        for (Object element : (List<Object>) root.get("tables")) {
+            final Map<String, Object> object = (Map<String, Object>) element;
+            final SchemaModel.Table table = new SchemaModel.Table((String) object.get("name"), null);
+            table.setHash((String) object.get("hash"));
+            for (Object value : (List<Object>) object.get("columns")) {
+                final List<Object> column = (List<Object>) value;
+                table.getColumns().put((String) column.get(0), new SchemaModel.Column((String) column.get(0),
+                        (String) column.get(1), (Boolean) column.get(2), null));
+            }
+            table.setPrimaryKey(strings(object.get("primaryKey")));
+            for (Object value : (List<Object>) object.get("indexes")) {
+                final List<Object> index = (List<Object>) value;
+                table.getIndexes().add(new SchemaModel.Index((String) index.get(0), (Boolean) index.get(1),
+                        strings(index.get(2)), null, null));
+            }
+            for (Object value : (List<Object>) object.get("foreignKeys")) {
+                final List<Object> foreignKey = (List<Object>) value;
+                table.getForeignKeys().add(new SchemaModel.ForeignKey((String) foreignKey.get(0),
+                        strings(foreignKey.get(1)), (String) foreignKey.get(2), strings(foreignKey.get(3)), null,
+                        null));
+            }
+            model.addTable(table);
+        }
+        return model;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> strings(Object list) {
+        final List<String> strings = new ArrayList<>();
+        for (Object value : (List<Object>) list) {
+            strings.add(((String) value).intern());
+        }
+        return Collections.unmodifiableList(strings);
+    }
+
+    private static void checkVersion(long version) {
+        if (version > VERSION) {
+            throw new IllegalArgumentException("snapshot version " + version + " is newer than supported version "
+                    + VERSION + ", upgrade plugin");
+        }
+    }
+
+    static byte[] toBinary(SchemaModel model) {
+        final BinaryWriter body = new BinaryWriter();
+        if (model.getSequences() == null) {
+            body.number(0);
+        } else {
+            body.number(model.getSequences().size() + 1);
+            for (String sequence : model.getSequences().keySet()) {
+                body.string(sequence);
+            }
+        }
+        body.number(model.getTables().size());
+        for (SchemaModel.Table table : model.getTables()) {
+            body.string(table.getKey());
+            body.string(table.getHash());
+            body.number(table.getColumns().size());
+            for (SchemaModel.Column column : table.getColumns().values()) {
+                body.string(column.getName());
+                body.string(column.getType());
+                body.number(column.isNullable() ? 1 : 0);
+            }
+            body.strings(table.getPrimaryKey());
+            body.number(table.getIndexes().size());
+            for (SchemaModel.Index index : table.getIndexes()) {
+                body.string(index.getName());
+                body.number(index.isUnique() ? 1 : 0);
+                body.strings(index.getColumns());
+            }
+            body.number(table.getForeignKeys().size());
+            for (SchemaModel.ForeignKey foreignKey : table.getForeignKeys()) {
+                body.string(foreignKey.getName());
+                body.strings(foreignKey.getColumns());
+                body.string(foreignKey.getReferencedTable());
+                body.strings(foreignKey.getReferencedColumns());
+            }
+        }
+
+        final BinaryWriter out = new BinaryWriter();
+        out.write(BINARY_MAGIC, 0, BINARY_MAGIC.length);
+        out.number(VERSION);
+        out.number(body.strings.size());
+        for (String string : body.strings.keySet()) {
+            final byte[] bytes = string.getBytes(UTF_8);
+            out.number(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        out.write(body.toByteArray(), 0, body.size());
+        return out.toByteArray();
+    }
+
+    static SchemaModel fromBinary(byte[] bytes) {
+        final BinaryReader in = new BinaryReader(bytes);
+        for (byte b : BINARY_MAGIC) {
+            if (in.next() != b) {
+                throw new IllegalArgumentException("not a schema snapshot");
+            }
+        }
+        checkVersion(in.number());
+        final String[] strings = new String[in.count()];
+        for (int i = 0; i < strings.length; i++) {
+            final int length = in.count();
+            strings[i] = new String(bytes, in.skip(length), length, UTF_8).intern();
+        }
+        in.strings = strings;
+
+        final SchemaModel model = new SchemaModel();
+        final int sequences = in.count();
+        if (sequences == 0) {
+            model.setSequencesUnknown();
+        }
+        for (int i = 1; i < sequences; i++) {
+            model.addSequence(in.string(), null);
+        }
+        for (int tables = in.count(); tables > 0; tables--) {
+            final SchemaModel.Table table = new SchemaModel.Table(in.string(), null);
+            table.setHash(in.string());
+            for (int columns = in.count(); columns > 0; columns--) {
+                final String name = in.string();
+                table.getColumns().put(name, new SchemaModel.Column(name, in.string(), in.number() != 0, null));
+            }
+            table.setPrimaryKey(in.strings());
+            for (int indexes = in.count(); indexes > 0; indexes--) {
+                table.getIndexes().add(new SchemaModel.Index(in.string(), in.number() != 0, in.strings(), null,
+                        null));
+            }
+            for (int foreignKeys = in.count(); foreignKeys > 0; foreignKeys--) {
+                table.getForeignKeys().add(new SchemaModel.ForeignKey(in.string(), in.strings(), in.string(),
+                        in.strings(), null, null));
+            }
+            model.addTable(table);
+        }
+        return model;
+    }
+
+    private static final class BinaryWriter
+            extends ByteArrayOutputStream {
+
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+        void number(long value) {
+            while ((value & ~0x7fL) != 0) {
+                write((int) (value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void string(String value) {
+            if (value == null) {
+                number(0);
+                return;
+            }
+            Integer index = strings.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.put(value, index);
+            }
+            number(index + 1);
+        }
+
+        void strings(List<String> values) {
+            number(values.size());
+            for (String value : values) {
+                string(value);
+            }
+        }
+    }
+
+    private static final class BinaryReader {
+
+        private final byte[] bytes;
+        private int position;
+        private String[] strings;
+
+        BinaryReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        byte next() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("unexpected end of snapshot at position " + position);
+            }
+            return bytes[position++];
+        }
+
+        /**
+         * @return position of skipped bytes
+         */
+        int skip(int length) {
+            if (length > bytes.length - position) {
+                throw new IllegalArgumentException("unexpected end of snapshot at position " + bytes.length);
+            }
+            position += length;
+            return position - length;
+        }
+
+        long number() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                final byte b = next();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        int count() {
+            final long count = number();
+            if (count > bytes.length) {
+                throw new IllegalArgumentException("invalid count " + count + " at position " + position);
+            }
+            return (int) count;
+        }
+
+        String string() {
+            final long index = number();
+            return index == 0 ? null : strings[(int) index - 1];
+        }
+
+        List<String> strings() {
+            final String[] values = new String[count()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = string();
+            }
+            return Collections.unmodifiableList(Arrays.asList(values));
+        }
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import static io.github.divinespear.maven.plugin.SqlLexer.Tokenizer.*;
+
+/**
+ * Puts generated statements into a stable, dependency respecting order, so same mapping always gives same script
+ * regardless of provider's iteration order.
+ * <p>
+ * Statements are ordered by {@link ScriptPhase} (dropped constraints, indexes, tables and sequences; created
+ * sequences, tables, indexes, constraints and foreign keys; everything else in original order), and by object name
+ * within each phase. Created tables are ordered so that referenced tables come first. Whitespace is collapsed, and
+ * table constraints in {@code CREATE TABLE} are moved after column definitions (primary key first).
+ */
+final class ScriptCanonicalizer {
+
+    private static final Comparator<DdlStatement> BY_NAME = new Comparator<DdlStatement>() {
+        @Override
+        public int compare(DdlStatement o1,
+                           DdlStatement o2) {
+            int result = compareKey(o1.getTable(), o2.getTable());
+            if (result == 0) {
+                result = compareKey(o1.getName(), o2.getName());
+            }
+            return result == 0 ? o1.getSql().compareTo(o2.getSql()) : result;
+        }
+    };
+
+    private ScriptCanonicalizer() {
+    }
+
+    static List<String> canonicalize(List<String> statements) {
+        Map<ScriptPhase, List<DdlStatement>> phases = new EnumMap<>(ScriptPhase.class);
+        for (String sql : statements) {
+            DdlStatement statement = DdlStatement.parse(normalize(sql));
+            ScriptPhase phase = ScriptPhase.of(statement);
+            List<DdlStatement> list = phases.get(phase);
+            if (list == null) {
+                list = new ArrayList<>();
+                phases.put(phase, list);
+            }
+            list.add(statement);
+        }
+
+        List<String> result = new ArrayList<>(statements.size());
+        for (Map.Entry<ScriptPhase, List<DdlStatement>> entry : phases.entrySet()) {
+            List<DdlStatement> list = entry.getValue();
+            if (entry.getKey() == ScriptPhase.TABLES) {
+                list = sortTables(list);
+            } else if (entry.getKey() != ScriptPhase.OTHER) {
+                Collections.sort(list, BY_NAME);
+            }
+            for (DdlStatement statement : list) {
+                result.add(statement.getSql());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * topological sort by foreign key references, ties (and cycles) broken by table name.
+     */
+    private static List<DdlStatement> sortTables(List<DdlStatement> tables) {
+        Collections.sort(tables, BY_NAME);
+        final int size = tables.size();
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String name = tables.get(i).getName();
+            if (name != null && !indexes.containsKey(name)) {
+                indexes.put(name, i);
+            }
+        }
+        int[] pending = new int[size];
+        List<List<Integer>> dependents = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dependents.add(new ArrayList<Integer>(0));
+        }
+        for (int i = 0; i < size; i++) {
+            for (String reference : tables.get(i).getReferences()) {
+                Integer index = indexes.get(reference);
+                if (index != null && index != i) {
+                    pending[i]++;
+                    dependents.get(index).add(i);
+                }
+            }
+        }
+
+        List<DdlStatement> result = new ArrayList<>(size);
+        boolean[] done = new boolean[size];
+        PriorityQueue<Integer> ready = new PriorityQueue<>();
+        for (int i = 0; i < size; i++) {
+            if (pending[i] == 0) {
+                ready.add(i);
+            }
+        }
+        int cycle = 0;
+        while (result.size() < size) {
+            Integer next = ready.poll();
+            if (next == null) {
+                // cycle, take first remaining table
+                while (done[cycle]) {
+                    cycle++;
+                }
+                next = cycle;
+            }
+            if (done[next]) {
+                continue;
+            }
+            done[next] = true;
+            result.add(tables.get(next));
+            for (Integer dependent : dependents.get(next)) {
+                if (--pending[dependent] == 0 && !done[dependent]) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * collapse whitespace outside literals, and move table constraints after columns.
+     */
+    static String normalize(String sql) {
+        final SqlLexer.Tokenizer tokens = new SqlLexer.Tokenizer().reset(sql);
+        final StringBuilder builder = new StringBuilder(sql.length());
+        boolean space = false;
+        boolean create = false;
+        boolean table = false;
+        int words = 0;
+        while (tokens.next()) {
+            final int type = tokens.type();
+            if (type == WHITESPACE || (type == COMMENT && !isHint(tokens))) {
+                space = builder.length() > 0;
+                continue;
+            }
+            if (type == WORD && words < 4) {
+                words++;
+                if (words == 1) {
+                    create = tokens.is("create");
+                } else if (create && tokens.is("table")) {
+                    table = true;
+                }
+            }
+            if (table && type == OPEN && tokens.depth() == 1) {
+                if (space) {
+                    builder.append(' ');
+                }
+                builder.append('(');
+                tableElements(tokens, builder);
+                space = false;
+                table = false;
+                continue;
+            }
+            if (space) {
+                builder.append(' ');
+                space = false;
+            }
+            builder.append(sql, tokens.start(), tokens.end());
+        }
+        return builder.toString();
+    }
+
+    private static void tableElements(SqlLexer.Tokenizer tokens,
+                                      StringBuilder builder) {
+        final CharSequence sql = tokens.sql();
+        List<String> columns = new ArrayList<>();
+        List<String> constraints = new ArrayList<>();
+        StringBuilder element = new StringBuilder();
+        boolean space = false;
+        boolean constraint = false;
+        while (tokens.next()) {
+            final int type = tokens.type();
+            final boolean close = type == CLOSE && tokens.depth() == 1;
+            if (close || type == COMMA && tokens.depth() == 1) {
+                if (element.length() > 0) {
+                    (constraint ? constraints : columns).add(element.toString());
+                }
+                element.setLength(0);
+                space = false;
+                if (close) {
+                    break;
+                }
+                continue;
+            }
+            if (type == WHITESPACE || type == COMMENT) {
+                space = element.length() > 0;
+                continue;
+            }
+            if (element.length() == 0) {
+                constraint = tokens.is("constraint") || tokens.is("primary") || tokens.is("unique")
+                        || tokens.is("foreign") || tokens.is("check");
+            } else if (space) {
+                element.append(' ');
+            }
+            space = false;
+            element.append(sql, tokens.start(), tokens.end());
+        }
+        Collections.sort(constraints, new Comparator<String>() {
+            @Override
+            public int compare(String o1,
+                               String o2) {
+                boolean pk1 = o1.regionMatches(true, 0, "primary", 0, 7);
+                boolean pk2 = o2.regionMatches(true, 0, "primary", 0, 7);
+                if (pk1 != pk2) {
+                    return pk1 ? -1 : 1;
+                }
+                return o1.compareTo(o2);
+            }
+        });
+        columns.addAll(constraints);
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(columns.get(i));
+        }
+        builder.append(')');
+    }
+
+    private static boolean isHint(SqlLexer.Tokenizer tokens) {
+        return tokens.end() - tokens.start() > 2 && tokens.sql().charAt(tokens.start() + 2) == '+';
+    }
+
+    private static int compareKey(String o1,
+                                  String o2) {
+        if (o1 == null || o2 == null) {
+            return o1 == null ? (o2 == null ? 0 : -1) : 1;
+        }
+        return o1.compareTo(o2);
+    }
+}
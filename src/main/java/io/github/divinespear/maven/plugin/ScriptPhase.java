@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+/**
+ * Execution phase of generated statement, in execution order.
+ * <p>
+ * Phases must run one after another. {@link #getConcurrency()} tells whether statements in a phase may run
+ * concurrently.
+ */
+enum ScriptPhase {
+    DROP_CONSTRAINTS("drop-constraints", Concurrency.PER_TABLE),
+    DROP_INDEXES("drop-indexes", Concurrency.PER_TABLE),
+    DROP_TABLES("drop-tables", Concurrency.FULL),
+    DROP_SEQUENCES("drop-sequences", Concurrency.FULL),
+    SEQUENCES("sequences", Concurrency.FULL),
+    TABLES("tables", Concurrency.FULL),
+    INDEXES("indexes", Concurrency.PER_TABLE),
+    CONSTRAINTS("constraints", Concurrency.PER_TABLE),
+    FOREIGN_KEYS("foreign-keys", Concurrency.PER_TABLE),
+    OTHER("other", Concurrency.NONE);
+
+    enum Concurrency {
+        /**
+         * statements must run in order
+         */
+        NONE,
+        /**
+         * statements on different tables may run concurrently
+         */
+        PER_TABLE,
+        /**
+         * all statements may run concurrently
+         */
+        FULL;
+
+        @Override
+        public String toString() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    private final String id;
+    private final Concurrency concurrency;
+
+    ScriptPhase(String id,
+                Concurrency concurrency) {
+        this.id = id;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * @return name used for file names and manifests
+     */
+    String getId() {
+        return id;
+    }
+
+    /**
+     * @return concurrency of statements in this phase; tables referencing each other inline are never concurrent
+     */
+    Concurrency getConcurrency() {
+        return concurrency;
+    }
+
+    static ScriptPhase of(DdlStatement statement) {
+        switch (statement.getKind()) {
+            case CONSTRAINT:
+                return statement.isDrop() ? DROP_CONSTRAINTS : CONSTRAINTS;
+            case FOREIGN_KEY:
+                return statement.isDrop() ? DROP_CONSTRAINTS : FOREIGN_KEYS;
+            case INDEX:
+                return statement.isDrop() ? DROP_INDEXES : INDEXES;
+            case TABLE:
+                return statement.isDrop() ? DROP_TABLES : TABLES;
+            case SEQUENCE:
+                return statement.isDrop() ? DROP_SEQUENCES : SEQUENCES;
+            default:
+                return OTHER;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streams SQL script (like {@code createSourceFile} or load script) into database with bounded memory.
+ * <p>
+ * Script is read through fixed NIO buffers and split by {@link SqlLexer}, so only current statement and one batch
+ * are held in memory, whatever the script size. Statements run in script order on single connection, in batches of
+ * batch size (see {@link StatementBatch}); progress and throughput are logged periodically.
+ */
+final class ScriptRunner
+        implements SqlLexer.Listener {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(5);
+    private static final double MB = 1024 * 1024;
+
+    private final Connection connection;
+    private final int batchSize;
+    private final boolean transactional;
+    private final boolean ignoreErrors;
+    private final Log log;
+
+    private final List<String> batch = new ArrayList<>();
+    private long executed = 0;
+    private long failures = 0;
+
+    ScriptRunner(Connection connection,
+                 int batchSize,
+                 boolean transactional,
+                 boolean ignoreErrors,
+                 Log log) {
+        if (connection == null)
+            throw new NullPointerException("connection");
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+
+        this.connection = connection;
+        this.batchSize = batchSize;
+        this.transactional = transactional;
+        this.ignoreErrors = ignoreErrors;
+        this.log = log;
+    }
+
+    /**
+     * @param channel script to run, not closed
+     * @param charset script encoding
+     * @param name    script name for log
+     * @param size    script size in bytes for progress, or {@code -1} if unknown
+     * @return number of executed statements
+     * @throws IOException  if script cannot be read
+     * @throws SQLException if statement fails and errors are not ignored
+     */
+    long run(ReadableByteChannel channel,
+             Charset charset,
+             String name,
+             long size) throws IOException, SQLException {
+        final SqlLexer lexer = new SqlLexer(false, this);
+        final CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        final long started = System.nanoTime();
+        long progress = started;
+        long read = 0;
+        boolean eof = false;
+        while (!eof) {
+            int len = channel.read(bytes);
+            if (len < 0) {
+                eof = true;
+            } else {
+                read += len;
+            }
+            // called on Buffer, as covariant overrides of JDK 9+ are missing on older runtimes
+            ((Buffer) bytes).flip();
+            CoderResult result;
+            do {
+                result = decoder.decode(bytes, chars, eof);
+                if (eof && result.isUnderflow()) {
+                    result = decoder.flush(chars);
+                }
+                ((Buffer) chars).flip();
+                lexer.write(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+                ((Buffer) chars).clear();
+            } while (result.isOverflow());
+            bytes.compact();
+            if (eof) {
+                lexer.finish();
+            }
+
+            while (batch.size() >= batchSize || (eof && !batch.isEmpty())) {
+                executeBatch();
+            }
+
+            final long now = System.nanoTime();
+            if (now - progress >= PROGRESS_INTERVAL) {
+                progress = now;
+                log.info(String.format("  * %s: %s%d statements, %.1f MB/s", name,
+                        size > 0 ? String.format("%d%% (%.1f of %.1f MB), ", read * 100 / size, read / MB, size / MB)
+                                : String.format("%.1f MB, ", read / MB),
+                        executed, throughput(read, now - started)));
+            }
+        }
+        final long elapsed = System.nanoTime() - started;
+        log.info(String.format("executed %d statements of %s in %d ms (%.1f MB/s)%s", executed, name,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), throughput(read, elapsed),
+                failures == 0 ? "" : ", " + failures + " failed"));
+        return executed;
+    }
+
+    @Override
+    public void statement(String sql) {
+        batch.add(sql);
+    }
+
+    private void executeBatch() throws SQLException {
+        final List<String> sqls = batch.subList(0, Math.min(batchSize, batch.size()));
+        if (sqls.size() == 1) {
+            execute(sqls.get(0), executed + 1);
+        } else {
+            boolean[] applied;
+            try {
+                applied = StatementBatch.execute(connection, sqls, transactional);
+            } catch (SQLException e) {
+                if (!ignoreErrors) {
+                    throw e;
+                }
+                // errors are ignored, so statements failing for being applied already are too
+                log.warn(e.getMessage());
+                applied = new boolean[sqls.size()];
+            }
+            for (int i = 0; i < applied.length; i++) {
+                if (!applied[i]) {
+                    execute(sqls.get(i), executed + i + 1);
+                }
+            }
+        }
+        executed += sqls.size();
+        sqls.clear();
+    }
+
+    private void execute(String sql,
+                         long number) throws SQLException {
+        try {
+            StatementBatch.execute(connection, sql, number);
+        } catch (SQLException e) {
+            if (!ignoreErrors) {
+                throw e;
+            }
+            log.warn(e.getMessage());
+            failures++;
+        }
+    }
+
+    private static double throughput(long bytes,
+                                     long nanos) {
+        return nanos == 0 ? 0 : bytes / MB / (nanos / 1e9);
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Script target handed to the persistence provider instead of a file URI.
+ * <p>
+ * Everything the provider writes is split into statements by {@link SqlLexer} as it arrives, and kept in memory
+ * until {@link #save()} post-processes them (line separator, formatting) and writes the output file in one pass,
+ * if its content has changed.
+ * Statements can be put into canonical order by {@link ScriptCanonicalizer}, and large scripts are formatted in
+ * parallel. Optionally, statements are also written to one file per {@link ScriptPhase} (like {@code
+ * create.tables.sql}), with a {@code create.manifest.json} describing phase order and concurrency, and their
+ * {@link StatementGraph dependency graph} to {@code create.graph.json}, and their {@link SchemaModel} to
+ * {@code create.model.json} and {@code create.model.bin} (see {@link SchemaSnapshot}).
+ */
+final class ScriptWriter
+        extends Writer
+        implements SqlLexer.Listener {
+
+    /**
+     * minimum statement count for parallel formatting
+     */
+    static final int PARALLEL_THRESHOLD = 2000;
+    /**
+     * statement count formatted by single fork/join task
+     */
+    private static final int CHUNK_SIZE = 500;
+
+    /**
+     * pool shared by all scripts (and executions) formatting in parallel; its workers are daemon threads. {@code
+     * ForkJoinPool.commonPool()} is not used as it needs Java 8.
+     */
+    private static final class RenderPool {
+        static final ForkJoinPool INSTANCE = new ForkJoinPool();
+    }
+
+    private final File file;
+    private final String linesep;
+    private final boolean format;
+    private final boolean canonical;
+    private final boolean split;
+    private final boolean graph;
+    private final boolean model;
+
+    private final SqlLexer lexer = new SqlLexer(true, this);
+    private final List<String> statements = new ArrayList<>();
+    private List<String> result;
+    private SchemaModel schemaModel;
+
+    ScriptWriter(File file,
+                 String linesep,
+                 boolean format,
+                 boolean canonical,
+                 boolean split,
+                 boolean graph,
+                 boolean model) {
+        if (linesep == null)
+            throw new NullPointerException("linesep");
+
+        this.file = file;
+        this.linesep = linesep;
+        this.format = format;
+        this.canonical = canonical;
+        this.split = split;
+        this.graph = graph;
+        this.model = model;
+    }
+
+    /**
+     * @return output file, {@code null} if script is only captured
+     */
+    File getFile() {
+        return file;
+    }
+
+    @Override
+    public void write(char[] cbuf,
+                      int off,
+                      int len) throws IOException {
+        synchronized (lock) {
+            lexer.write(cbuf, off, len);
+        }
+    }
+
+    @Override
+    public void write(String str,
+                      int off,
+                      int len) throws IOException {
+        synchronized (lock) {
+            lexer.write(str.subSequence(off, off + len));
+        }
+    }
+
+    /**
+     * nothing to do here, script is written on {@link #save()}.
+     */
+    @Override
+    public void flush() throws IOException {
+    }
+
+    /**
+     * providers may close target, so keep captured script for {@link #save()}.
+     */
+    @Override
+    public void close() throws IOException {
+    }
+
+    /**
+     * @return captured statements, in canonical order if enabled
+     * @throws IOException if captured script cannot be split
+     */
+    List<String> getStatements() throws IOException {
+        synchronized (lock) {
+            if (result == null) {
+                lexer.finish();
+                result = Collections.unmodifiableList(
+                        canonical ? ScriptCanonicalizer.canonicalize(statements) : new ArrayList<>(statements));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @return model of captured statements, parsed once
+     * @throws IOException if captured script cannot be split
+     */
+    SchemaModel getModel() throws IOException {
+        synchronized (lock) {
+            if (schemaModel == null) {
+                schemaModel = SchemaModel.parse(getStatements());
+            }
+            return schemaModel;
+        }
+    }
+
+    /**
+     * write captured script to output file, unless file already has same content.
+     *
+     * @return {@code true} if output file is written, {@code false} if it is up to date
+     * @throws IOException if output file cannot be written
+     */
+    boolean save() throws IOException {
+        synchronized (lock) {
+            if (file == null) {
+                throw new IllegalStateException("no output file, script can only be captured");
+            }
+            final List<String> list = getStatements();
+            if (split) {
+                saveSplit(list);
+            }
+            if (graph) {
+                JpaSchemaGeneratorUtils.writeIfChanged(sibling("graph.json"),
+                        StatementGraph.build(list).toJson(file.getName(), linesep));
+            }
+            if (model) {
+                JpaSchemaGeneratorUtils.writeIfChanged(sibling("model.json"), SchemaSnapshot.toJson(getModel(), linesep));
+                SchemaSnapshot.writeBinary(getModel(), sibling("model.bin"));
+            }
+            return JpaSchemaGeneratorUtils.writeIfChanged(file, render(list));
+        }
+    }
+
+    /**
+     * write one file per {@link ScriptPhase}, and manifest describing them.
+     */
+    private void saveSplit(List<String> list) throws IOException {
+        Map<ScriptPhase, List<DdlStatement>> phases = new EnumMap<>(ScriptPhase.class);
+        for (String sql : list) {
+            DdlStatement statement = DdlStatement.parse(sql);
+            ScriptPhase phase = ScriptPhase.of(statement);
+            List<DdlStatement> phaseStatements = phases.get(phase);
+            if (phaseStatements == null) {
+                phaseStatements = new ArrayList<>();
+                phases.put(phase, phaseStatements);
+            }
+            phaseStatements.add(statement);
+        }
+
+        JsonWriter manifest = new JsonWriter(linesep).beginObject()
+                .property("script", file.getName())
+                .name("phases").beginArray();
+        for (ScriptPhase phase : ScriptPhase.values()) {
+            File phaseFile = sibling(phase.getId() + ".sql");
+            List<DdlStatement> phaseStatements = phases.get(phase);
+            if (phaseStatements == null) {
+                // remove stale file of previous generation
+                Files.deleteIfExists(phaseFile.toPath());
+                continue;
+            }
+
+            List<String> sqls = new ArrayList<>(phaseStatements.size());
+            Set<String> tables = new TreeSet<>();
+            Set<String> references = new TreeSet<>();
+            for (DdlStatement statement : phaseStatements) {
+                sqls.add(statement.getSql());
+                if (statement.getTable() != null) {
+                    tables.add(statement.getTable());
+                }
+                references.addAll(statement.getReferences());
+            }
+            JpaSchemaGeneratorUtils.writeIfChanged(phaseFile, render(sqls));
+
+            ScriptPhase.Concurrency concurrency = phase.getConcurrency();
+            if (phase == ScriptPhase.TABLES && !Collections.disjoint(tables, references)) {
+                // tables referencing each other inline must be created in order
+                concurrency = ScriptPhase.Concurrency.NONE;
+            }
+            manifest.beginObject()
+                    .property("phase", phase.getId())
+                    .property("file", phaseFile.getName())
+                    .property("statements", sqls.size())
+                    .property("concurrency", concurrency.toString())
+                    .name("tables").beginArray();
+            for (String table : tables) {
+                manifest.value(table);
+            }
+            manifest.endArray().endObject();
+        }
+        manifest.endArray().endObject();
+        JpaSchemaGeneratorUtils.writeIfChanged(sibling("manifest.json"), manifest.toString());
+    }
+
+    /**
+     * @return file next to output file, named like {@code create.<suffix>}
+     */
+    private File sibling(String suffix) {
+        final String name = file.getName();
+        final String base = name.lastIndexOf('.') > 0 ? name.substring(0, name.lastIndexOf('.')) : name;
+        return new File(file.getParentFile(), base + "." + suffix);
+    }
+
+    @Override
+    public void statement(String sql) {
+        statements.add(sql);
+    }
+
+    private CharSequence render(List<String> list) {
+        if (!format || list.size() < PARALLEL_THRESHOLD) {
+            return render(list, 0, list.size());
+        }
+        return RenderPool.INSTANCE.invoke(new RenderTask(list, 0, list.size()));
+    }
+
+    private StringBuilder render(List<String> list,
+                                 int from,
+                                 int to) {
+        final SqlFormatter formatter = format ? new SqlFormatter(linesep) : null;
+        final StringBuilder builder = new StringBuilder();
+        for (int i = from; i < to; i++) {
+            if (formatter == null) {
+                builder.append(list.get(i));
+            } else {
+                formatter.format(list.get(i), builder);
+            }
+            builder.append(";");
+            builder.append(linesep);
+            if (formatter != null) {
+                builder.append(linesep);
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * renders statements {@code [from, to)}, splitting into chunks of {@link #CHUNK_SIZE} and joining them in order.
+     */
+    private final class RenderTask
+            extends RecursiveTask<StringBuilder> {
+
+        private final List<String> list;
+        private final int from;
+        private final int to;
+
+        RenderTask(List<String> list,
+                   int from,
+                   int to) {
+            this.list = list;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected StringBuilder compute() {
+            if (to - from <= CHUNK_SIZE) {
+                return render(list, from, to);
+            }
+            final int middle = (from + to) >>> 1;
+            RenderTask right = new RenderTask(list, middle, to);
+            right.fork();
+            StringBuilder left = new RenderTask(list, from, middle).compute();
+            return left.append(right.join());
+        }
+    }
+}
@@ -0,0 +1,595 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.Charset;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads seed data into created tables.
+ * <p>
+ * Each {@code <table>.csv} (with header row) or {@code <table>.jsonl} (one object per line) file of seed directory,
+ * in UTF-8, is loaded into table of same name. Tables are loaded concurrently, each after tables it references by
+ * foreign key. Rows are inserted in JDBC batches and committed every commit interval rows; CSV files are loaded
+ * with {@code COPY} on PostgreSQL and {@code CSVREAD} on embedded H2 instead, in one statement and transaction per
+ * file, so commit interval does not apply to them.
+ * <p>
+ * Tables are matched by upper-cased name, both of seed file and of (possibly quoted) names in create statements.
+ * Empty unquoted CSV field is {@code NULL}. Values are converted to column types by driver.
+ */
+final class SeedLoader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String CSV = ".csv";
+    private static final String JSONL = ".jsonl";
+
+    private final JdbcConnector connector;
+    private final int parallelism;
+    private final int commitInterval;
+    private final Log log;
+
+    SeedLoader(JdbcConnector connector,
+               int parallelism,
+               int commitInterval,
+               Log log) {
+        if (connector == null)
+            throw new NullPointerException("connector");
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        if (commitInterval < 1)
+            throw new IllegalArgumentException("commitInterval must be positive: " + commitInterval);
+
+        this.connector = connector;
+        this.parallelism = parallelism;
+        this.commitInterval = commitInterval;
+        this.log = log;
+    }
+
+    /**
+     * @param directory  seed directory
+     * @param statements create statements, to find foreign keys between tables
+     * @throws IOException  if seed file cannot be read
+     * @throws SQLException if rows cannot be inserted
+     */
+    void load(File directory,
+              List<String> statements) throws IOException, SQLException {
+        final File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && (file.getName().endsWith(CSV) || file.getName().endsWith(JSONL));
+            }
+        });
+        if (files == null) {
+            throw new FileNotFoundException("seed data directory not found: " + directory);
+        }
+        final Map<String, File> seeds = new TreeMap<>();
+        for (File file : files) {
+            final String key = key(tableName(file));
+            if (seeds.put(key, file) != null) {
+                throw new IllegalArgumentException("more than one seed file for table " + tableName(file));
+            }
+        }
+        if (seeds.isEmpty()) {
+            log.info("no seed data in " + directory);
+            return;
+        }
+
+        // load referenced tables first
+        final Map<String, Set<String>> dependencies = new HashMap<>();
+        final Map<String, List<String>> dependents = new HashMap<>();
+        for (String key : seeds.keySet()) {
+            dependencies.put(key, new TreeSet<String>());
+            dependents.put(key, new ArrayList<String>());
+        }
+        for (String sql : statements) {
+            final DdlStatement statement = DdlStatement.parse(sql);
+            final String table = key(statement.getTable());
+            if (statement.isDrop() || !seeds.containsKey(table)) {
+                continue;
+            }
+            for (String name : statement.getReferences()) {
+                final String reference = key(name);
+                if (seeds.containsKey(reference) && !reference.equals(table)
+                        && dependencies.get(table).add(reference)) {
+                    dependents.get(reference).add(table);
+                }
+            }
+        }
+
+        final int threads = Math.min(parallelism, seeds.size());
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final AtomicLong rows = new AtomicLong();
+        final long started = System.nanoTime();
+        try {
+            final CompletionService<String> completion = new ExecutorCompletionService<>(executor);
+            final Set<String> waiting = new TreeSet<>(seeds.keySet());
+            final Deque<String> ready = new ArrayDeque<>();
+            for (String key : seeds.keySet()) {
+                if (dependencies.get(key).isEmpty()) {
+                    ready.add(key);
+                    waiting.remove(key);
+                }
+            }
+            int running = 0;
+            while (!ready.isEmpty() || running > 0 || !waiting.isEmpty()) {
+                for (; running < threads && !ready.isEmpty(); running++) {
+                    final String key = ready.poll();
+                    completion.submit(new Task(key, seeds.get(key), rows));
+                }
+                if (running == 0) {
+                    // foreign key cycle
+                    final String key = waiting.iterator().next();
+                    waiting.remove(key);
+                    ready.add(key);
+                    log.warn("foreign key cycle, loading " + tableName(seeds.get(key))
+                            + " before tables it references: " + dependencies.get(key));
+                    continue;
+                }
+
+                final String key;
+                try {
+                    key = completion.take().get();
+                } catch (ExecutionException e) {
+                    throw rethrow(e.getCause());
+                }
+                running--;
+                for (String dependent : dependents.get(key)) {
+                    final Set<String> pending = dependencies.get(dependent);
+                    pending.remove(key);
+                    if (pending.isEmpty() && waiting.remove(dependent)) {
+                        ready.add(dependent);
+                    }
+                }
+            }
+            log.info(String.format("loaded %d rows into %d tables in %d ms", rows.get(), seeds.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while loading seed data", e);
+        } finally {
+            executor.shutdownNow();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    log.info("waiting for running seed loads...");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return table key, as {@link DdlStatement} keeps quoted names as written
+     */
+    private static String key(String table) {
+        return table == null ? null : table.toUpperCase(Locale.ENGLISH);
+    }
+
+    private static String tableName(File file) {
+        final String name = file.getName();
+        return name.substring(0, name.lastIndexOf('.'));
+    }
+
+    private static Reader newReader(File file) throws IOException {
+        return new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+    }
+
+    private static SQLException rethrow(Throwable cause) throws IOException, SQLException {
+        if (cause instanceof IOException) {
+            throw (IOException) cause;
+        }
+        if (cause instanceof SQLException) {
+            throw (SQLException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new SQLException(cause);
+    }
+
+    /**
+     * loads one seed file on its own connection, returning table key.
+     */
+    private final class Task
+            implements Callable<String> {
+
+        private final String key;
+        private final File file;
+        private final String table;
+        private final AtomicLong total;
+
+        Task(String key,
+             File file,
+             AtomicLong total) {
+            this.key = key;
+            this.file = file;
+            this.table = tableName(file);
+            this.total = total;
+        }
+
+        @Override
+        public String call() throws Exception {
+            final long started = System.nanoTime();
+            long rows;
+            try (Connection connection = connector.connect()) {
+                if (file.getName().endsWith(CSV)) {
+                    rows = loadCsv(connection);
+                } else {
+                    try (JsonLineReader reader = new JsonLineReader(newReader(file))) {
+                        rows = insert(connection, reader.columns(), reader);
+                    }
+                }
+            }
+            log.info(String.format("  * %6d ms: %d rows into %s", TimeUnit.NANOSECONDS.toMillis(
+                    System.nanoTime() - started), rows, table));
+            total.addAndGet(rows);
+            return key;
+        }
+
+        private long loadCsv(Connection connection) throws IOException, SQLException {
+            try (CsvReader reader = new CsvReader(newReader(file))) {
+                final List<Object> header = reader.next();
+                if (header == null) {
+                    return 0;
+                }
+                final List<String> columns = new ArrayList<>(header.size());
+                for (Object column : header) {
+                    columns.add(String.valueOf(column).trim());
+                }
+
+                final String product = connection.getMetaData().getDatabaseProductName();
+                if ("H2".equals(product) && isEmbeddedH2(connector.getUrl())) {
+                    try (Statement statement = connection.createStatement()) {
+                        return statement.executeUpdate(
+                                "INSERT INTO " + table + " (" + join(columns) + ") SELECT * FROM CSVREAD('"
+                                        + file.getAbsolutePath().replace("'", "''") + "', NULL, 'charset=UTF-8')");
+                    }
+                }
+                if ("PostgreSQL".equals(product)) {
+                    Long rows = copy(connection, columns);
+                    if (rows != null) {
+                        return rows;
+                    }
+                }
+                return insert(connection, columns, reader);
+            }
+        }
+
+        /**
+         * {@code COPY ... FROM STDIN} through PostgreSQL driver's {@code CopyManager}, found by reflection.
+         *
+         * @return number of rows, {@code null} if driver does not support it
+         */
+        private Long copy(Connection connection,
+                          List<String> columns) throws IOException, SQLException {
+            final Object copyManager;
+            final Method copyIn;
+            try {
+                Class<?> pgConnection = Class.forName("org.postgresql.PGConnection", false,
+                        connection.getClass().getClassLoader());
+                copyManager = pgConnection.getMethod("getCopyAPI").invoke(connection.unwrap(pgConnection));
+                copyIn = copyManager.getClass().getMethod("copyIn", String.class, Reader.class);
+            } catch (ReflectiveOperationException | SQLException e) {
+                log.debug("COPY is not available", e);
+                return null;
+            }
+            try (Reader reader = newReader(file)) {
+                return (Long) copyIn.invoke(copyManager,
+                        "COPY " + table + " (" + join(columns) + ") FROM STDIN WITH (FORMAT csv, HEADER true)",
+                        reader);
+            } catch (InvocationTargetException e) {
+                throw rethrow(e.getTargetException());
+            } catch (IllegalAccessException e) {
+                throw new SQLException(e);
+            }
+        }
+
+        private long insert(Connection connection,
+                            List<String> columns,
+                            RowReader reader) throws IOException, SQLException {
+            final int[] types = columnTypes(connection, columns);
+            final StringBuilder sql = new StringBuilder("INSERT INTO ").append(table)
+                    .append(" (").append(join(columns)).append(") VALUES (");
+            for (int i = 0; i < columns.size(); i++) {
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            long rows = 0;
+            int pending = 0;
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                for (List<Object> row = reader.next(); row != null; row = reader.next()) {
+                    if (row.size() != columns.size()) {
+                        throw new IOException(file.getName() + ": row " + (rows + 1) + " has " + row.size()
+                                + " values, expected " + columns.size());
+                    }
+                    for (int i = 0; i < types.length; i++) {
+                        if (row.get(i) == null) {
+                            statement.setNull(i + 1, types[i]);
+                        } else {
+                            statement.setObject(i + 1, row.get(i), types[i]);
+                        }
+                    }
+                    statement.addBatch();
+                    rows++;
+                    if (++pending == commitInterval) {
+                        statement.executeBatch();
+                        connection.commit();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    statement.executeBatch();
+                    connection.commit();
+                }
+                return rows;
+            } catch (SQLException e) {
+                connection.rollback();
+                long row = rows - pending + 1;
+                if (e instanceof BatchUpdateException && ((BatchUpdateException) e).getUpdateCounts() != null) {
+                    // drivers going on after failure report it as EXECUTE_FAILED
+                    for (int count : ((BatchUpdateException) e).getUpdateCounts()) {
+                        if (count == Statement.EXECUTE_FAILED) {
+                            break;
+                        }
+                        row++;
+                    }
+                }
+                throw new SQLException("cannot load " + file.getName() + " into " + table + " near row " + row
+                        + " (" + e.getMessage() + ")", e.getSQLState(), e.getErrorCode(), e);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+
+        private int[] columnTypes(Connection connection,
+                                  List<String> columns) throws SQLException {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(
+                         "SELECT " + join(columns) + " FROM " + table + " WHERE 1 = 0")) {
+                final ResultSetMetaData metaData = resultSet.getMetaData();
+                final int[] types = new int[columns.size()];
+                for (int i = 0; i < types.length; i++) {
+                    types[i] = metaData.getColumnType(i + 1);
+                }
+                return types;
+            }
+        }
+    }
+
+    private static boolean isEmbeddedH2(String url) {
+        final String lower = url.toLowerCase();
+        return lower.startsWith("jdbc:h2:") && !lower.startsWith("jdbc:h2:tcp:") && !lower.startsWith("jdbc:h2:ssl:")
+                && !lower.contains(";auto_server=true");
+    }
+
+    private static String join(List<String> columns) {
+        final StringBuilder builder = new StringBuilder();
+        for (String column : columns) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(column);
+        }
+        return builder.toString();
+    }
+
+    private interface RowReader {
+        /**
+         * @return next row, {@code null} at end of file
+         */
+        List<Object> next() throws IOException;
+    }
+
+    /**
+     * RFC 4180 reader: {@code ,} separated, {@code "} quoted with {@code ""} escape, line breaks allowed in quotes.
+     */
+    private static final class CsvReader
+            implements RowReader, Closeable {
+
+        private final Reader reader;
+        private int next = -2;
+
+        CsvReader(Reader reader) throws IOException {
+            this.reader = reader;
+            if (peek() == '﻿') {
+                read();
+            }
+        }
+
+        @Override
+        public List<Object> next() throws IOException {
+            final List<Object> values = new ArrayList<>();
+            final StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            boolean inQuotes = false;
+            while (true) {
+                final int c = read();
+                if (c < 0 && !inQuotes) {
+                    if (values.isEmpty() && value.length() == 0 && !quoted) {
+                        return null;
+                    }
+                    values.add(value(value, quoted));
+                    return values;
+                }
+                if (inQuotes) {
+                    if (c < 0) {
+                        throw new IOException("unterminated quoted value");
+                    }
+                    if (c != '"') {
+                        value.append((char) c);
+                    } else if (peek() == '"') {
+                        value.append((char) read());
+                    } else {
+                        inQuotes = false;
+                    }
+                } else if (c == '"') {
+                    inQuotes = true;
+                    quoted = true;
+                } else if (c == ',') {
+                    values.add(value(value, quoted));
+                    value.setLength(0);
+                    quoted = false;
+                } else if (c == '\r' || c == '\n') {
+                    if (c == '\r' && peek() == '\n') {
+                        read();
+                    }
+                    if (values.isEmpty() && value.length() == 0 && !quoted) {
+                        // blank line
+                        continue;
+                    }
+                    values.add(value(value, quoted));
+                    return values;
+                } else {
+                    value.append((char) c);
+                }
+            }
+        }
+
+        private static String value(StringBuilder value,
+                                    boolean quoted) {
+            return !quoted && value.length() == 0 ? null : value.toString();
+        }
+
+        private int peek() throws IOException {
+            if (next == -2) {
+                next = reader.read();
+            }
+            return next;
+        }
+
+        private int read() throws IOException {
+            final int c = peek();
+            next = -2;
+            return c;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    /**
+     * JSON lines reader; columns are keys of first object, missing keys are {@code NULL}.
+     */
+    private static final class JsonLineReader
+            implements RowReader, Closeable {
+
+        private final BufferedReader reader;
+        private final List<String> columns;
+        private Map<String, Object> first;
+        private long line = 0;
+
+        JsonLineReader(Reader reader) throws IOException {
+            this.reader = new BufferedReader(reader);
+            this.first = object();
+            this.columns = first == null ? Collections.<String>emptyList() : new ArrayList<>(first.keySet());
+        }
+
+        List<String> columns() {
+            return columns;
+        }
+
+        @Override
+        public List<Object> next() throws IOException {
+            final Map<String, Object> object = first == null ? object() : first;
+            first = null;
+            if (object == null) {
+                return null;
+            }
+            if (!columns.containsAll(object.keySet())) {
+                Set<String> unknown = new TreeSet<>(object.keySet());
+                unknown.removeAll(columns);
+                throw new IOException("line " + line + ": keys " + unknown + " are not in first object");
+            }
+            final List<Object> values = new ArrayList<>(columns.size());
+            for (String column : columns) {
+                values.add(object.get(column));
+            }
+            return values;
+        }
+
+        private Map<String, Object> object() throws IOException {
+            for (String s = reader.readLine(); s != null; s = reader.readLine()) {
+                line++;
+                if (line == 1 && s.startsWith("﻿")) {
+                    s = s.substring(1);
+                }
+                if (!s.trim().isEmpty()) {
+                    try {
+                        return new JsonReader(s, true).object();
+                    } catch (IllegalArgumentException e) {
+                        throw new IOException("line " + line + ": " + e.getMessage(), e);
+                    }
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import static io.github.divinespear.maven.plugin.SqlLexer.Tokenizer.*;
+
+/**
+ * Token based pretty printer for DDL statements.
+ * <p>
+ * {@code CREATE TABLE} gets one column or constraint per line, {@code CREATE INDEX} and {@code ALTER TABLE} get
+ * their body (and {@code REFERENCES} clause) on indented lines. Other statements are written as-is. Whitespace runs
+ * are collapsed to single space, and parentheses may nest to any depth.
+ * <p>
+ * Not thread-safe, use one instance per thread.
+ */
+final class SqlFormatter {
+
+    private final String linesep;
+    private final SqlLexer.Tokenizer tokens = new SqlLexer.Tokenizer();
+    private final StringBuilder buffer = new StringBuilder(256);
+
+    private StringBuilder out;
+    private boolean pendingSpace;
+    private boolean lineStart;
+
+    SqlFormatter(String linesep) {
+        this.linesep = linesep;
+    }
+
+    /**
+     * format statement.
+     *
+     * @param sql statement to format
+     * @return formatted statement
+     */
+    String format(CharSequence sql) {
+        buffer.setLength(0);
+        format(sql, buffer);
+        return buffer.toString();
+    }
+
+    /**
+     * format statement and append it to given buffer.
+     *
+     * @param sql statement to format
+     * @param out buffer to append
+     */
+    void format(CharSequence sql,
+                StringBuilder out) {
+        this.out = out;
+        this.pendingSpace = false;
+        this.lineStart = true;
+
+        if (!tokens.reset(sql).nextSignificant()) {
+            return;
+        }
+        if (tokens.is("create")) {
+            for (int i = 0; i < 3 && tokens.nextSignificant() && tokens.type() == WORD; i++) {
+                if (tokens.is("table")) {
+                    formatCreateTable();
+                    return;
+                }
+                if (tokens.is("index")) {
+                    formatCreateIndex();
+                    return;
+                }
+            }
+        } else if (tokens.is("alter") && tokens.nextSignificant() && tokens.is("table")) {
+            formatAlterTable();
+            return;
+        }
+        formatOther(sql);
+    }
+
+    private void formatCreateTable() {
+        tokens.reset(tokens.sql());
+        // header
+        boolean opened = false;
+        while (tokens.next()) {
+            if (tokens.type() == WHITESPACE) {
+                pendingSpace = true;
+                continue;
+            }
+            token();
+            if (tokens.type() == OPEN && tokens.depth() == 1) {
+                opened = true;
+                break;
+            }
+        }
+        if (!opened) {
+            return;
+        }
+        // columns and constraints
+        newline(true);
+        while (tokens.next()) {
+            if (tokens.type() == WHITESPACE) {
+                pendingSpace = true;
+            } else if (tokens.type() == COMMA && tokens.depth() == 1) {
+                token();
+                newline(true);
+            } else if (tokens.type() == CLOSE && tokens.depth() == 1) {
+                newline(false);
+                token();
+                break;
+            } else {
+                token();
+            }
+        }
+        rest(false);
+    }
+
+    private void formatCreateIndex() {
+        tokens.reset(tokens.sql());
+        // header, up to index name
+        while (tokens.next()) {
+            if (tokens.type() == WHITESPACE) {
+                pendingSpace = true;
+                continue;
+            }
+            token();
+            if (tokens.is("index")) {
+                break;
+            }
+        }
+        name();
+        // some providers write sort order after index name
+        while (tokens.next()) {
+            if (tokens.type() == WHITESPACE) {
+                continue;
+            }
+            if (tokens.is("asc") || tokens.is("desc")) {
+                continue;
+            }
+            newline(true);
+            token();
+            break;
+        }
+        rest(false);
+    }
+
+    private void formatAlterTable() {
+        tokens.reset(tokens.sql());
+        // header, up to table name
+        while (tokens.next()) {
+            if (tokens.type() == WHITESPACE) {
+                pendingSpace = true;
+                continue;
+            }
+            token();
+            if (tokens.is("table")) {
+                break;
+            }
+        }
+        name();
+        while (tokens.next()) {
+            if (tokens.type() != WHITESPACE) {
+                newline(true);
+                token();
+                break;
+            }
+        }
+        rest(true);
+    }
+
+    private void formatOther(CharSequence sql) {
+        int start = 0, end = sql.length();
+        while (start < end && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(sql.charAt(end - 1))) {
+            end--;
+        }
+        out.append(sql, start, end);
+    }
+
+    /**
+     * copy object name (with optional {@code IF [NOT] EXISTS}), stop at whitespace after name.
+     */
+    private void name() {
+        boolean named = false;
+        while (tokens.next()) {
+            if (tokens.type() == WHITESPACE) {
+                if (named) {
+                    return;
+                }
+                pendingSpace = true;
+                continue;
+            }
+            token();
+            named = !(tokens.is("if") || tokens.is("not") || tokens.is("exists"));
+        }
+    }
+
+    /**
+     * copy remaining tokens.
+     *
+     * @param clauses put top-level {@code REFERENCES} and comma separated clauses on new lines
+     */
+    private void rest(boolean clauses) {
+        while (tokens.next()) {
+            if (tokens.type() == WHITESPACE) {
+                pendingSpace = true;
+            } else if (clauses && tokens.depth() == 0 && tokens.is("references")) {
+                newline(true);
+                token();
+            } else if (clauses && tokens.depth() == 0 && tokens.type() == COMMA) {
+                token();
+                newline(true);
+            } else {
+                token();
+            }
+        }
+    }
+
+    private void token() {
+        if (pendingSpace && !lineStart) {
+            out.append(' ');
+        }
+        out.append(tokens.sql(), tokens.start(), tokens.end());
+        pendingSpace = false;
+        lineStart = false;
+    }
+
+    private void newline(boolean indent) {
+        out.append(linesep);
+        if (indent) {
+            out.append('\t');
+        }
+        pendingSpace = false;
+        lineStart = true;
+    }
+}
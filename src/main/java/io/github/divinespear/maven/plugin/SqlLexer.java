@@ -0,0 +1,495 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass, character level SQL statement splitter.
+ * <p>
+ * Statements are terminated by {@code ;}, by a line holding only a dialect delimiter ({@code /} or {@code GO}), or
+ * - when {@code lineTerminated} is set, as for provider output which writes one statement per line - by end of line.
+ * A {@code create|drop|alter table|view|sequence} keyword pair at top level also starts a new statement, for
+ * providers which write several statements on a single line.
+ * <p>
+ * Delimiters and keywords inside string literals, quoted identifiers ({@code "..."}, {@code `...`},
+ * {@code [...]}), comments, parentheses or longer identifiers are ignored. Comments are dropped, except optimizer
+ * hints ({@code /*+ ... *}{@code /}).
+ */
+final class SqlLexer {
+
+    /**
+     * receives each complete statement, trimmed and without its delimiter.
+     */
+    interface Listener {
+        void statement(String sql) throws IOException;
+    }
+
+    private static final int NORMAL = 0,
+            SINGLE_QUOTE = 1,
+            DOUBLE_QUOTE = 2,
+            BACK_QUOTE = 3,
+            BRACKET = 4,
+            LINE_COMMENT = 5,
+            BLOCK_COMMENT = 6;
+
+    private final boolean lineTerminated;
+    private final Listener listener;
+
+    private final StringBuilder buffer = new StringBuilder(256);
+    private int state = NORMAL;
+    private int depth = 0;
+    private int lineStart = 0;
+    private char previous = 0;
+    private boolean commentOpened = false;
+    private boolean keepComment = false;
+
+    // last two words at top level, as [start, end) of buffer
+    private int wordStart = -1;
+    private int lastWordStart = -1, lastWordEnd = -1;
+    private int priorWordStart = -1, priorWordEnd = -1;
+
+    SqlLexer(boolean lineTerminated,
+             Listener listener) {
+        if (listener == null)
+            throw new NullPointerException("listener");
+
+        this.lineTerminated = lineTerminated;
+        this.listener = listener;
+    }
+
+    /**
+     * split whole script into statements.
+     */
+    static List<String> split(Reader reader,
+                              boolean lineTerminated) throws IOException {
+        final List<String> statements = new ArrayList<>();
+        final SqlLexer lexer = new SqlLexer(lineTerminated, new Listener() {
+            @Override
+            public void statement(String sql) {
+                statements.add(sql);
+            }
+        });
+        final char[] buf = new char[8192];
+        int len;
+        while ((len = reader.read(buf)) >= 0) {
+            lexer.write(buf, 0, len);
+        }
+        lexer.finish();
+        return statements;
+    }
+
+    void write(char[] cbuf,
+               int off,
+               int len) throws IOException {
+        for (int i = off; i < off + len; i++) {
+            write(cbuf[i]);
+        }
+    }
+
+    void write(CharSequence s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            write(s.charAt(i));
+        }
+    }
+
+    void write(char c) throws IOException {
+        switch (state) {
+            case SINGLE_QUOTE:
+                quoted(c, '\'');
+                break;
+            case DOUBLE_QUOTE:
+                quoted(c, '"');
+                break;
+            case BACK_QUOTE:
+                quoted(c, '`');
+                break;
+            case BRACKET:
+                quoted(c, ']');
+                break;
+            case LINE_COMMENT:
+                if (c == '\n' || c == '\r') {
+                    state = NORMAL;
+                    normal(c);
+                }
+                break;
+            case BLOCK_COMMENT:
+                final boolean first = commentOpened;
+                commentOpened = false;
+                if (first) {
+                    keepComment = c == '+';
+                    if (keepComment) {
+                        buffer.append("/*");
+                    }
+                }
+                if (keepComment) {
+                    buffer.append(c);
+                }
+                if (!first && c == '/' && previous == '*') {
+                    state = NORMAL;
+                    c = 0;
+                }
+                break;
+            default:
+                normal(c);
+                break;
+        }
+        previous = c;
+    }
+
+    /**
+     * emit remaining statement, if any.
+     */
+    void finish() throws IOException {
+        if (state == LINE_COMMENT || state == BLOCK_COMMENT) {
+            state = NORMAL;
+        }
+        endWord();
+        if (isDelimiterLine()) {
+            buffer.setLength(lineStart);
+        }
+        emit(buffer.length());
+    }
+
+    private void quoted(char c,
+                        char close) {
+        buffer.append(c);
+        if (c == close) {
+            state = NORMAL;
+        }
+    }
+
+    private void normal(char c) throws IOException {
+        if (isWordPart(c)) {
+            if (wordStart < 0) {
+                wordStart = buffer.length();
+            }
+            buffer.append(c);
+            return;
+        }
+        endWord();
+
+        switch (c) {
+            case ';':
+                emit(buffer.length());
+                return;
+            case '\r':
+            case '\n':
+                if (isDelimiterLine()) {
+                    buffer.setLength(lineStart);
+                    emit(buffer.length());
+                } else if (lineTerminated) {
+                    emit(buffer.length());
+                } else {
+                    buffer.append(c);
+                }
+                lineStart = buffer.length();
+                return;
+            case '-':
+                if (previous == '-' && endsWith('-')) {
+                    buffer.setLength(buffer.length() - 1);
+                    state = LINE_COMMENT;
+                    return;
+                }
+                break;
+            case '*':
+                if (previous == '/' && endsWith('/')) {
+                    buffer.setLength(buffer.length() - 1);
+                    state = BLOCK_COMMENT;
+                    commentOpened = true;
+                    return;
+                }
+                break;
+            case '\'':
+                state = SINGLE_QUOTE;
+                break;
+            case '"':
+                state = DOUBLE_QUOTE;
+                break;
+            case '`':
+                state = BACK_QUOTE;
+                break;
+            case '[':
+                state = BRACKET;
+                break;
+            case '(':
+                depth++;
+                break;
+            case ')':
+                if (depth > 0) {
+                    depth--;
+                }
+                break;
+            default:
+                break;
+        }
+        buffer.append(c);
+        if (!Character.isWhitespace(c)) {
+            // only whitespace may separate keyword pair
+            lastWordStart = -1;
+        }
+    }
+
+    private void endWord() throws IOException {
+        if (wordStart < 0) {
+            return;
+        }
+        final int start = wordStart, end = buffer.length();
+        wordStart = -1;
+        if (depth > 0) {
+            return;
+        }
+        priorWordStart = lastWordStart;
+        priorWordEnd = lastWordEnd;
+        lastWordStart = start;
+        lastWordEnd = end;
+
+        if (priorWordStart >= 0 && hasContentBefore(priorWordStart)
+                && (matches(start, end, "table") || matches(start, end, "view") || matches(start, end, "sequence"))
+                && (matches(priorWordStart, priorWordEnd, "create") || matches(priorWordStart, priorWordEnd, "drop")
+                || matches(priorWordStart, priorWordEnd, "alter"))) {
+            // split before keyword pair, and keep it as start of next statement
+            final int from = priorWordStart;
+            final String rest = buffer.substring(from);
+            emit(from);
+            buffer.append(rest);
+            priorWordStart = 0;
+            priorWordEnd -= from;
+            lastWordStart = start - from;
+            lastWordEnd = end - from;
+        }
+    }
+
+    private void emit(int end) throws IOException {
+        int start = 0;
+        while (start < end && Character.isWhitespace(buffer.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(buffer.charAt(end - 1))) {
+            end--;
+        }
+        if (start < end) {
+            listener.statement(buffer.substring(start, end));
+        }
+        buffer.setLength(0);
+        depth = 0;
+        lineStart = 0;
+        wordStart = -1;
+        lastWordStart = lastWordEnd = priorWordStart = priorWordEnd = -1;
+    }
+
+    private boolean hasContentBefore(int index) {
+        for (int i = 0; i < index; i++) {
+            if (!Character.isWhitespace(buffer.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isDelimiterLine() {
+        int start = lineStart, end = buffer.length();
+        while (start < end && Character.isWhitespace(buffer.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(buffer.charAt(end - 1))) {
+            end--;
+        }
+        return (end - start == 1 && buffer.charAt(start) == '/') || matches(start, end, "go");
+    }
+
+    private boolean matches(int start,
+                            int end,
+                            String word) {
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(buffer.charAt(start + i)) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean endsWith(char c) {
+        return buffer.length() > 0 && buffer.charAt(buffer.length() - 1) == c;
+    }
+
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#';
+    }
+
+    /**
+     * Cursor over tokens of a single statement, as produced by {@link SqlLexer}.
+     * <p>
+     * Tokens are reported as {@code [start, end)} ranges of the statement, nothing is allocated while scanning.
+     */
+    static final class Tokenizer {
+
+        static final int WORD = 0,
+                LITERAL = 1,
+                QUOTED_IDENTIFIER = 2,
+                OPEN = 3,
+                CLOSE = 4,
+                COMMA = 5,
+                WHITESPACE = 6,
+                COMMENT = 7,
+                SYMBOL = 8;
+
+        private CharSequence sql;
+        private int length;
+        private int type;
+        private int start;
+        private int end;
+        private int depth;
+
+        Tokenizer reset(CharSequence sql) {
+            this.sql = sql;
+            this.length = sql.length();
+            this.start = this.end = 0;
+            this.depth = 0;
+            this.type = -1;
+            return this;
+        }
+
+        CharSequence sql() {
+            return sql;
+        }
+
+        int type() {
+            return type;
+        }
+
+        int start() {
+            return start;
+        }
+
+        int end() {
+            return end;
+        }
+
+        /**
+         * parenthesis depth of current token; {@code (} and {@code )} report depth of their content.
+         */
+        int depth() {
+            return depth;
+        }
+
+        boolean is(String keyword) {
+            if (type != WORD || end - start != keyword.length()) {
+                return false;
+            }
+            for (int i = 0; i < keyword.length(); i++) {
+                if (Character.toLowerCase(sql.charAt(start + i)) != keyword.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * move to next token.
+         *
+         * @return {@code false} at end of statement
+         */
+        boolean next() {
+            if (type == CLOSE && end > start) {
+                depth--;
+            }
+            start = end;
+            if (start >= length) {
+                end = start;
+                return false;
+            }
+            char c = sql.charAt(start);
+            end = start + 1;
+            if (isWordPart(c)) {
+                while (end < length && isWordPart(sql.charAt(end))) {
+                    end++;
+                }
+                type = WORD;
+            } else if (Character.isWhitespace(c)) {
+                while (end < length && Character.isWhitespace(sql.charAt(end))) {
+                    end++;
+                }
+                type = WHITESPACE;
+            } else if (c == '\'') {
+                skipQuoted('\'');
+                type = LITERAL;
+            } else if (c == '"' || c == '`' || c == '[') {
+                skipQuoted(c == '[' ? ']' : c);
+                type = QUOTED_IDENTIFIER;
+            } else if (c == '-' && end < length && sql.charAt(end) == '-') {
+                while (end < length && sql.charAt(end) != '\n' && sql.charAt(end) != '\r') {
+                    end++;
+                }
+                type = COMMENT;
+            } else if (c == '/' && end < length && sql.charAt(end) == '*') {
+                end++;
+                while (end < length && !(sql.charAt(end) == '/' && sql.charAt(end - 1) == '*' && end - start > 2)) {
+                    end++;
+                }
+                end = Math.min(end + 1, length);
+                type = COMMENT;
+            } else if (c == '(') {
+                depth++;
+                type = OPEN;
+            } else if (c == ')') {
+                type = CLOSE;
+            } else if (c == ',') {
+                type = COMMA;
+            } else {
+                type = SYMBOL;
+            }
+            return true;
+        }
+
+        /**
+         * move to next token which is not whitespace or comment.
+         *
+         * @return {@code false} at end of statement
+         */
+        boolean nextSignificant() {
+            while (next()) {
+                if (type != WHITESPACE && type != COMMENT) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void skipQuoted(char close) {
+            while (end < length) {
+                if (sql.charAt(end++) == close) {
+                    // doubled quote is escaped quote
+                    if (end < length && sql.charAt(end) == close && close != ']') {
+                        end++;
+                    } else {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
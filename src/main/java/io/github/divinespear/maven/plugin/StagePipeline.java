@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs stages of work concurrently, each stage on its own thread.
+ * <p>
+ * Dependencies between stages are explicit: stage waits for stages it needs by {@link #join(Future)}. Threads are
+ * daemons, so stage left running by failure of other stage does not keep Maven alive; it is interrupted on
+ * {@link #close()}, which waits for it a while, so that resources it uses (like class loader) are released after it.
+ */
+final class StagePipeline implements AutoCloseable {
+
+    /**
+     * seconds to wait for interrupted stages on close
+     */
+    static final int TERMINATION_TIMEOUT = 30;
+
+    private final Log log;
+    private final ExecutorService executor;
+    private final BlockingQueue<Future<?>> finished = new LinkedBlockingQueue<>();
+    private int running;
+
+    StagePipeline(Log log) {
+        this.log = log;
+        this.executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "jpa-schema-stage-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @return result of stage, to be joined by stages depending on it
+     */
+    <T> Future<T> start(final String name,
+                        final Callable<T> stage) {
+        final FutureTask<T> task = new FutureTask<T>(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                final long started = System.nanoTime();
+                try {
+                    return stage.call();
+                } finally {
+                    log.debug(String.format("stage %s took %d ms", name, (System.nanoTime() - started) / 1000000L));
+                }
+            }
+        }) {
+            @Override
+            protected void done() {
+                finished.add(this);
+            }
+        };
+        running++;
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * @return result of stage, after it is done
+     * @throws Exception failure of stage, as thrown by it
+     */
+    static <T> T join(Future<T> stage) throws Exception {
+        try {
+            return stage.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * wait for all stages started, in order they finish.
+     *
+     * @throws Exception failure of first stage failed, without waiting for others
+     */
+    void await() throws Exception {
+        for (; running > 0; running--) {
+            join(finished.take());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.SECONDS)) {
+                log.warn("stages still running after " + TERMINATION_TIMEOUT + " seconds are left behind");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
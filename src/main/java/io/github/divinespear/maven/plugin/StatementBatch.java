@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JDBC batch execution shared by {@link ParallelDdlExecutor} and {@link ScriptRunner}.
+ * <p>
+ * Statements of failed batch not applied are executed one by one by callers, to report failed statement precisely.
+ * That needs to know which are applied: failed transactional batch is rolled back, so none is; otherwise driver
+ * must report them by {@link BatchUpdateException#getUpdateCounts()}. If it does not, which are applied is unknown,
+ * and running them again may fail on objects already created instead of real failure, so original failure is
+ * thrown instead; callers ignoring errors run all statements of batch one by one then.
+ */
+final class StatementBatch {
+
+    private StatementBatch() {
+    }
+
+    /**
+     * @return {@code true} if DDL statements can be rolled back (like PostgreSQL, SQL Server)
+     */
+    static boolean isTransactionalDdl(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        return metaData.supportsTransactions() && metaData.supportsDataDefinitionAndDataManipulationTransactions()
+                && !metaData.dataDefinitionCausesTransactionCommit();
+    }
+
+    /**
+     * send statements in single batch, in single transaction if {@code transactional}.
+     * <p>
+     * failed batch is rolled back if transactional, otherwise statements applied before failure are taken from
+     * {@link BatchUpdateException#getUpdateCounts()}.
+     *
+     * @return which statements are applied, to execute others one by one
+     * @throws SQLException if transaction cannot be committed or rolled back, or if batch fails and driver does not
+     *                      report which statements are applied
+     */
+    static boolean[] execute(Connection connection,
+                             List<String> statements,
+                             boolean transactional) throws SQLException {
+        final boolean[] applied = new boolean[statements.size()];
+        if (transactional) {
+            connection.setAutoCommit(false);
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.addBatch(sql);
+            }
+            statement.executeBatch();
+            if (transactional) {
+                connection.commit();
+            }
+            Arrays.fill(applied, true);
+        } catch (SQLException e) {
+            if (transactional) {
+                connection.rollback();
+            } else {
+                final int[] counts = e instanceof BatchUpdateException ? ((BatchUpdateException) e).getUpdateCounts()
+                        : null;
+                if (counts == null) {
+                    throw new SQLException("batch of " + statements.size() + " statements failed, statements "
+                            + "applied are unknown (" + e.getMessage() + ")", e.getSQLState(), e.getErrorCode(), e);
+                }
+                // statements before failed one, or all but failed ones if driver went on
+                for (int i = 0; i < counts.length && i < applied.length; i++) {
+                    applied[i] = counts[i] != Statement.EXECUTE_FAILED;
+                }
+            }
+        } finally {
+            if (transactional) {
+                connection.setAutoCommit(true);
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * execute single statement.
+     *
+     * @param number statement number for error message, starting from 1
+     * @throws SQLException if statement fails, with statement and its number in message
+     */
+    static void execute(Connection connection,
+                        String sql,
+                        long number) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } catch (SQLException e) {
+            throw new SQLException("statement " + number + " failed: " + sql + " (" + e.getMessage() + ")",
+                    e.getSQLState(), e.getErrorCode(), e);
+        }
+    }
+}
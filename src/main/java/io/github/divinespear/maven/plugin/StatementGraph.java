@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static io.github.divinespear.maven.plugin.SqlLexer.Tokenizer.*;
+
+/**
+ * Dependency graph of generated statements, telling which statements may run concurrently.
+ * <p>
+ * Script order is always a valid execution order, so statements only depend on earlier statements:
+ * <ul>
+ * <li>statements on same table (or sequence) run in script order;</li>
+ * <li>tables, constraints and foreign keys run after tables they reference, and tables after sequences they
+ * use;</li>
+ * <li>dropped tables wait for all dropped constraints and indexes before them, and dropped sequences also for
+ * dropped tables, as drop statements don't tell what they reference;</li>
+ * <li>anything else (like {@code INSERT}) is a barrier, running after everything before it.</li>
+ * </ul>
+ */
+final class StatementGraph {
+
+    private final List<DdlStatement> statements;
+    private final List<int[]> dependencies;
+    private final int[] levels;
+    private final int criticalPath;
+    private final int maxParallelism;
+
+    private StatementGraph(List<DdlStatement> statements,
+                           List<int[]> dependencies) {
+        this.statements = statements;
+        this.dependencies = dependencies;
+
+        final int size = statements.size();
+        this.levels = new int[size];
+        int path = 0;
+        for (int i = 0; i < size; i++) {
+            int level = 0;
+            for (int dependency : dependencies.get(i)) {
+                level = Math.max(level, levels[dependency]);
+            }
+            levels[i] = level + 1;
+            path = Math.max(path, levels[i]);
+        }
+        int[] widths = new int[path + 1];
+        int width = 0;
+        for (int level : levels) {
+            width = Math.max(width, ++widths[level]);
+        }
+        this.criticalPath = path;
+        this.maxParallelism = width;
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    DdlStatement get(int index) {
+        return statements.get(index);
+    }
+
+    /**
+     * @return indexes of statements which must complete before given statement, in ascending order
+     */
+    int[] getDependencies(int index) {
+        return dependencies.get(index).clone();
+    }
+
+    /**
+     * @return 1-based position of statement in earliest possible schedule
+     */
+    int getLevel(int index) {
+        return levels[index];
+    }
+
+    /**
+     * @return number of statements in longest dependency chain
+     */
+    int getCriticalPath() {
+        return criticalPath;
+    }
+
+    /**
+     * @return maximum number of statements which can run at once, useful as maximum degree of parallelism
+     */
+    int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    static StatementGraph build(List<String> sqls) {
+        final List<DdlStatement> statements = new ArrayList<>(sqls.size());
+        final Set<String> sequences = new TreeSet<>();
+        for (String sql : sqls) {
+            DdlStatement statement = DdlStatement.parse(sql);
+            if (statement.getKind() == DdlStatement.Kind.SEQUENCE && statement.getName() != null) {
+                sequences.add(statement.getName());
+            }
+            statements.add(statement);
+        }
+
+        final List<int[]> dependencies = new ArrayList<>(statements.size());
+        // last statement on each table or sequence
+        final Map<String, Integer> last = new HashMap<>();
+        // statements since last barrier nothing depends on yet
+        final Set<Integer> sinks = new TreeSet<>();
+        // dropped constraints and indexes, and dropped tables
+        final List<Integer> drops = new ArrayList<>();
+        final List<Integer> droppedTables = new ArrayList<>();
+        Integer barrier = null;
+        for (int i = 0; i < statements.size(); i++) {
+            final DdlStatement statement = statements.get(i);
+            final Set<Integer> depends = new TreeSet<>();
+            if (statement.getKind() == DdlStatement.Kind.OTHER) {
+                if (sinks.isEmpty() && barrier != null) {
+                    depends.add(barrier);
+                }
+                depends.addAll(sinks);
+                sinks.clear();
+                last.clear();
+                drops.clear();
+                droppedTables.clear();
+                barrier = i;
+                dependencies.add(toArray(depends));
+                continue;
+            }
+
+            if (barrier != null) {
+                depends.add(barrier);
+            }
+            final String key = key(statement);
+            if (key != null && last.containsKey(key)) {
+                depends.add(last.get(key));
+            }
+            for (String reference : statement.getReferences()) {
+                if (last.containsKey(reference)) {
+                    depends.add(last.get(reference));
+                }
+            }
+            if (statement.getKind() == DdlStatement.Kind.TABLE && !statement.isDrop()) {
+                for (String sequence : usedSequences(statement.getSql(), sequences)) {
+                    if (last.containsKey("SEQUENCE " + sequence)) {
+                        depends.add(last.get("SEQUENCE " + sequence));
+                    }
+                }
+            }
+            if (statement.isDrop()) {
+                final DdlStatement.Kind kind = statement.getKind();
+                if (kind == DdlStatement.Kind.TABLE) {
+                    depends.addAll(drops);
+                    droppedTables.add(i);
+                } else if (kind == DdlStatement.Kind.SEQUENCE) {
+                    depends.addAll(drops);
+                    depends.addAll(droppedTables);
+                } else {
+                    drops.add(i);
+                }
+            }
+
+            sinks.removeAll(depends);
+            sinks.add(i);
+            if (key != null) {
+                last.put(key, i);
+            }
+            dependencies.add(toArray(depends));
+        }
+        return new StatementGraph(statements, dependencies);
+    }
+
+    /**
+     * @return graph as JSON, statements numbered from 1 by their position in script
+     */
+    String toJson(String script,
+                  String linesep) {
+        JsonWriter json = new JsonWriter(linesep).beginObject()
+                .property("script", script)
+                .property("statements", statements.size())
+                .property("criticalPath", criticalPath)
+                .property("maxParallelism", maxParallelism)
+                .name("nodes").beginArray();
+        for (int i = 0; i < statements.size(); i++) {
+            final DdlStatement statement = statements.get(i);
+            json.beginObject()
+                    .property("id", i + 1)
+                    .property("phase", ScriptPhase.of(statement).getId())
+                    .property("table", statement.getTable())
+                    .property("name", statement.getName())
+                    .property("level", levels[i]);
+            int[] depends = dependencies.get(i);
+            long[] ids = new long[depends.length];
+            for (int j = 0; j < depends.length; j++) {
+                ids[j] = depends[j] + 1;
+            }
+            json.name("dependsOn").value(ids)
+                    .property("sql", statement.getSql())
+                    .endObject();
+        }
+        return json.endArray().endObject().toString();
+    }
+
+    private static String key(DdlStatement statement) {
+        if (statement.getKind() == DdlStatement.Kind.SEQUENCE) {
+            return statement.getName() == null ? null : "SEQUENCE " + statement.getName();
+        }
+        return statement.getTable();
+    }
+
+    /**
+     * find sequence names in identifiers and literals, like {@code default nextval('SEQ')}.
+     */
+    private static Set<String> usedSequences(String sql,
+                                             Set<String> sequences) {
+        final Set<String> used = new TreeSet<>();
+        if (sequences.isEmpty()) {
+            return used;
+        }
+        final SqlLexer.Tokenizer tokens = new SqlLexer.Tokenizer().reset(sql);
+        while (tokens.nextSignificant()) {
+            final int type = tokens.type();
+            if (type == WORD) {
+                String word = sql.substring(tokens.start(), tokens.end()).toUpperCase(Locale.ENGLISH);
+                if (sequences.contains(word)) {
+                    used.add(word);
+                }
+            } else if (type == QUOTED_IDENTIFIER || type == LITERAL) {
+                String name = sql.substring(tokens.start() + 1, tokens.end() - 1);
+                String upper = name.toUpperCase(Locale.ENGLISH);
+                if (sequences.contains(name) || sequences.contains(upper)) {
+                    used.add(sequences.contains(name) ? name : upper);
+                }
+            }
+        }
+        return used;
+    }
+
+    private static int[] toArray(Set<Integer> set) {
+        int[] array = new int[set.size()];
+        int i = 0;
+        for (Integer value : set) {
+            array[i++] = value;
+        }
+        return array;
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.github.divinespear.maven.plugin;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Statements of {@link ConnectionMock}, recording executed SQL instead of running it, and metadata result sets
+ * describing schema snapshot.
+ * <p>
+ * Statements and result sets are proxies: methods not about executing SQL or reading rows return {@code null},
+ * {@code 0} or {@code false}, like {@link ConnectionMock} does. Prepared statements are recorded with parameters
+ * written as literals. Queries are not recorded, and return no rows.
+ */
+final class StatementRecorder {
+
+    private static final Pattern SIZED_TYPE = Pattern.compile("([^(]+)\\((\\d+)(?:,\\s*(\\d+))?\\)");
+
+    /**
+     * JDBC type of column types without size
+     */
+    private static final Map<String, Integer> TYPES = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    static {
+        TYPES.put("bigint", Types.BIGINT);
+        TYPES.put("int", Types.INTEGER);
+        TYPES.put("integer", Types.INTEGER);
+        TYPES.put("smallint", Types.SMALLINT);
+        TYPES.put("tinyint", Types.TINYINT);
+        TYPES.put("boolean", Types.BOOLEAN);
+        TYPES.put("bit", Types.BIT);
+        TYPES.put("real", Types.REAL);
+        TYPES.put("float", Types.FLOAT);
+        TYPES.put("double", Types.DOUBLE);
+        TYPES.put("double precision", Types.DOUBLE);
+        TYPES.put("date", Types.DATE);
+        TYPES.put("time", Types.TIME);
+        TYPES.put("timestamp", Types.TIMESTAMP);
+        TYPES.put("clob", Types.CLOB);
+        TYPES.put("text", Types.CLOB);
+        TYPES.put("blob", Types.BLOB);
+        TYPES.put("bytea", Types.BLOB);
+    }
+
+    private final Connection connection;
+    private final SchemaModel schema;
+    private final List<String> statements = Collections.synchronizedList(new ArrayList<String>());
+
+    /**
+     * @param schema schema described by metadata, {@code null} for empty schema
+     */
+    StatementRecorder(Connection connection,
+                      SchemaModel schema) {
+        this.connection = connection;
+        this.schema = schema == null ? new SchemaModel() : schema;
+    }
+
+    /**
+     * @return statements executed so far, in order of execution
+     */
+    List<String> getStatements() {
+        synchronized (statements) {
+            return new ArrayList<>(statements);
+        }
+    }
+
+    Statement statement() {
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class},
+                new StatementHandler(null));
+    }
+
+    PreparedStatement prepare(String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{CallableStatement.class}, new StatementHandler(sql));
+    }
+
+    /*
+     * metadata of schema, with columns read by SchemaReader and providers
+     */
+
+    ResultSet tableTypes() {
+        final List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{"TABLE"});
+        if (schema.getSequences() != null && !schema.getSequences().isEmpty()) {
+            rows.add(new Object[]{"SEQUENCE"});
+        }
+        return result(new String[]{"TABLE_TYPE"}, rows);
+    }
+
+    ResultSet tables(String tableNamePattern,
+                     String[] types) {
+        final List<String> typeList = types == null ? Arrays.asList("TABLE", "SEQUENCE") : Arrays.asList(types);
+        final List<Object[]> rows = new ArrayList<>();
+        if (typeList.contains("TABLE")) {
+            for (SchemaModel.Table table : schema.getTables()) {
+                if (matches(tableNamePattern, table.getKey())) {
+                    rows.add(new Object[]{null, schemaOf(table.getKey()), SchemaModel.unqualified(table.getKey()),
+                            "TABLE", null});
+                }
+            }
+        }
+        if (typeList.contains("SEQUENCE") && schema.getSequences() != null) {
+            for (String sequence : schema.getSequences().keySet()) {
+                if (matches(tableNamePattern, sequence)) {
+                    rows.add(new Object[]{null, schemaOf(sequence), SchemaModel.unqualified(sequence), "SEQUENCE",
+                            null});
+                }
+            }
+        }
+        return result(new String[]{"TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "TABLE_TYPE", "REMARKS"}, rows);
+    }
+
+    ResultSet columns(String tableNamePattern,
+                      String columnNamePattern) {
+        final List<Object[]> rows = new ArrayList<>();
+        for (SchemaModel.Table table : schema.getTables()) {
+            if (!matches(tableNamePattern, table.getKey())) {
+                continue;
+            }
+            int position = 0;
+            for (SchemaModel.Column column : table.getColumns().values()) {
+                position++;
+                if (!matches(columnNamePattern, column.getName())) {
+                    continue;
+                }
+                final Matcher sized = SIZED_TYPE.matcher(column.getType());
+                final String typeName;
+                final int dataType;
+                Integer size = null;
+                Integer digits = null;
+                if (sized.matches()) {
+                    typeName = sized.group(1).trim();
+                    size = Integer.valueOf(sized.group(2));
+                    if (sized.group(3) != null) {
+                        digits = Integer.valueOf(sized.group(3));
+                        dataType = Types.DECIMAL;
+                    } else {
+                        dataType = sizedType(typeName.toLowerCase());
+                    }
+                } else {
+                    typeName = column.getType();
+                    dataType = TYPES.containsKey(typeName) ? TYPES.get(typeName) : Types.OTHER;
+                }
+                rows.add(new Object[]{null, schemaOf(table.getKey()), SchemaModel.unqualified(table.getKey()),
+                        column.getName(), dataType, typeName, size, digits,
+                        column.isNullable() ? DatabaseMetaData.columnNullable : DatabaseMetaData.columnNoNulls,
+                        position, column.isNullable() ? "YES" : "NO"});
+            }
+        }
+        return result(new String[]{"TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "COLUMN_NAME", "DATA_TYPE",
+                "TYPE_NAME", "COLUMN_SIZE", "DECIMAL_DIGITS", "NULLABLE", "ORDINAL_POSITION", "IS_NULLABLE"}, rows);
+    }
+
+    private static int sizedType(String typeName) {
+        if (typeName.contains("binary") || typeName.contains("raw")) {
+            return Types.VARBINARY;
+        }
+        if (typeName.contains("char") && !typeName.contains("var")) {
+            return typeName.startsWith("n") ? Types.NCHAR : Types.CHAR;
+        }
+        return typeName.startsWith("n") ? Types.NVARCHAR : Types.VARCHAR;
+    }
+
+    ResultSet primaryKeys(String tableName) {
+        final List<Object[]> rows = new ArrayList<>();
+        for (SchemaModel.Table table : schema.getTables()) {
+            if (tableName == null || table.getKey().equalsIgnoreCase(tableName)) {
+                short position = 0;
+                for (String column : table.getPrimaryKey()) {
+                    rows.add(new Object[]{null, schemaOf(table.getKey()), SchemaModel.unqualified(table.getKey()),
+                            column, ++position, null});
+                }
+            }
+        }
+        return result(new String[]{"TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "COLUMN_NAME", "KEY_SEQ", "PK_NAME"},
+                rows);
+    }
+
+    ResultSet indexInfo(String tableName,
+                        boolean unique) {
+        final List<Object[]> rows = new ArrayList<>();
+        for (SchemaModel.Table table : schema.getTables()) {
+            if (tableName != null && !table.getKey().equalsIgnoreCase(tableName)) {
+                continue;
+            }
+            for (SchemaModel.Index index : table.getIndexes()) {
+                if (unique && !index.isUnique()) {
+                    continue;
+                }
+                short position = 0;
+                for (String column : index.getColumns()) {
+                    rows.add(new Object[]{null, schemaOf(table.getKey()), SchemaModel.unqualified(table.getKey()),
+                            !index.isUnique(), null, index.getName(), DatabaseMetaData.tableIndexOther,
+                            ++position, column});
+                }
+            }
+        }
+        return result(new String[]{"TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "NON_UNIQUE", "INDEX_QUALIFIER",
+                "INDEX_NAME", "TYPE", "ORDINAL_POSITION", "COLUMN_NAME"}, rows);
+    }
+
+    ResultSet importedKeys(String tableName) {
+        final List<Object[]> rows = new ArrayList<>();
+        for (SchemaModel.Table table : schema.getTables()) {
+            if (tableName != null && !table.getKey().equalsIgnoreCase(tableName)) {
+                continue;
+            }
+            for (SchemaModel.ForeignKey foreignKey : table.getForeignKeys()) {
+                final SchemaModel.Table referenced = schema.getTable(foreignKey.getReferencedTable());
+                final List<String> referencedColumns = !foreignKey.getReferencedColumns().isEmpty()
+                        ? foreignKey.getReferencedColumns()
+                        : referenced == null ? Collections.<String>emptyList() : referenced.getPrimaryKey();
+                for (int i = 0; i < foreignKey.getColumns().size(); i++) {
+                    rows.add(new Object[]{null, schemaOf(foreignKey.getReferencedTable()),
+                            SchemaModel.unqualified(foreignKey.getReferencedTable()),
+                            i < referencedColumns.size() ? referencedColumns.get(i) : null,
+                            null, schemaOf(table.getKey()), SchemaModel.unqualified(table.getKey()),
+                            foreignKey.getColumns().get(i), (short) (i + 1), foreignKey.getName()});
+                }
+            }
+        }
+        return result(new String[]{"PKTABLE_CAT", "PKTABLE_SCHEM", "PKTABLE_NAME", "PKCOLUMN_NAME", "FKTABLE_CAT",
+                "FKTABLE_SCHEM", "FKTABLE_NAME", "FKCOLUMN_NAME", "KEY_SEQ", "FK_NAME"}, rows);
+    }
+
+    /**
+     * @return result set without rows, like of metadata not described by schema
+     */
+    ResultSet empty() {
+        return result(new String[0], Collections.<Object[]>emptyList());
+    }
+
+    private static String schemaOf(String key) {
+        final int dot = key.lastIndexOf('.');
+        return dot < 0 ? null : key.substring(0, dot);
+    }
+
+    /**
+     * @return {@code true} if unqualified name matches metadata pattern, {@code null} matching all
+     */
+    private static boolean matches(String pattern,
+                                   String key) {
+        if (pattern == null || pattern.equals("%")) {
+            return true;
+        }
+        final StringBuilder regex = new StringBuilder();
+        for (char c : pattern.toCharArray()) {
+            regex.append(c == '%' ? ".*" : c == '_' ? "." : Pattern.quote(String.valueOf(c)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE).matcher(SchemaModel.unqualified(key))
+                .matches();
+    }
+
+    private ResultSet result(String[] columns,
+                             List<Object[]> rows) {
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                new ResultSetHandler(columns, rows));
+    }
+
+    /**
+     * @return SQL literal of parameter value
+     */
+    private static String literal(Object value) {
+        if (value == null) {
+            return "NULL";
+        }
+        if (value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        return "'" + value.toString().replace("'", "''") + "'";
+    }
+
+    /**
+     * @return SQL with parameters replaced by literals
+     */
+    private static String bind(String sql,
+                               Map<Integer, Object> parameters) {
+        final StringBuilder builder = new StringBuilder(sql.length());
+        char quote = 0;
+        int index = 0;
+        for (char c : sql.toCharArray()) {
+            if (quote != 0) {
+                quote = c == quote ? 0 : quote;
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '?') {
+                builder.append(literal(parameters.get(++index)));
+                continue;
+            }
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        if (type == double.class) {
+            return 0d;
+        }
+        return null;
+    }
+
+    /**
+     * handles methods of {@link Object} and {@link java.sql.Wrapper}
+     *
+     * @return {@code true} if method is handled
+     */
+    private static boolean handleCommon(Object proxy,
+                                        Method method,
+                                        Object[] args,
+                                        Object[] result) {
+        switch (method.getName()) {
+            case "equals":
+                result[0] = proxy == args[0];
+                return true;
+            case "hashCode":
+                result[0] = System.identityHashCode(proxy);
+                return true;
+            case "toString":
+                result[0] = "recorded " + method.getDeclaringClass().getSimpleName();
+                return true;
+            case "isWrapperFor":
+                result[0] = ((Class<?>) args[0]).isInstance(proxy);
+                return true;
+            case "unwrap":
+                result[0] = ((Class<?>) args[0]).isInstance(proxy) ? proxy : null;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private final class StatementHandler
+            implements InvocationHandler {
+
+        private final String sql;
+        private final Map<Integer, Object> parameters = new TreeMap<>();
+        private final List<String> batch = new ArrayList<>();
+        private boolean closed;
+
+        /**
+         * @param sql prepared statement, {@code null} for plain statement
+         */
+        StatementHandler(String sql) {
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy,
+                             Method method,
+                             Object[] args) {
+            final Object[] result = new Object[1];
+            if (handleCommon(proxy, method, args, result)) {
+                return result[0];
+            }
+            final String name = method.getName();
+            final boolean prepared = args == null || args.length == 0 || !(args[0] instanceof String);
+            switch (name) {
+                case "execute":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    statements.add(prepared ? bind(sql, parameters) : (String) args[0]);
+                    return defaultValue(method.getReturnType());
+                case "executeQuery":
+                    return empty();
+                case "addBatch":
+                    batch.add(prepared ? bind(sql, parameters) : (String) args[0]);
+                    return null;
+                case "clearBatch":
+                    batch.clear();
+                    return null;
+                case "executeBatch":
+                case "executeLargeBatch":
+                    statements.addAll(batch);
+                    final int count = batch.size();
+                    batch.clear();
+                    if (name.equals("executeBatch")) {
+                        final int[] counts = new int[count];
+                        Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+                        return counts;
+                    }
+                    final long[] counts = new long[count];
+                    Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+                    return counts;
+                case "clearParameters":
+                    parameters.clear();
+                    return null;
+                case "getUpdateCount":
+                    return -1;
+                case "getConnection":
+                    return connection;
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                default:
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                        return null;
+                    }
+                    return defaultValue(method.getReturnType());
+            }
+        }
+    }
+
+    private static final class ResultSetHandler
+            implements InvocationHandler {
+
+        private final List<String> columns;
+        private final List<Object[]> rows;
+        private int row = -1;
+        private boolean wasNull;
+        private boolean closed;
+
+        ResultSetHandler(String[] columns,
+                         List<Object[]> rows) {
+            this.columns = Arrays.asList(columns);
+            this.rows = rows;
+        }
+
+        @Override
+        public Object invoke(Object proxy,
+                             Method method,
+                             Object[] args) {
+            final Object[] result = new Object[1];
+            if (handleCommon(proxy, method, args, result)) {
+                return result[0];
+            }
+            final String name = method.getName();
+            switch (name) {
+                case "next":
+                    return ++row < rows.size();
+                case "wasNull":
+                    return wasNull;
+                case "findColumn":
+                    return index((String) args[0]) + 1;
+                case "close":
+                    closed = true;
+                    return null;
+                case "isClosed":
+                    return closed;
+                default:
+                    if (name.startsWith("get") && args != null && args.length == 1
+                            && row >= 0 && row < rows.size()) {
+                        final int index = args[0] instanceof Integer ? (Integer) args[0] - 1 : index((String) args[0]);
+                        return value(index < 0 || index >= columns.size() ? null : rows.get(row)[index],
+                                method.getReturnType());
+                    }
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        private int index(String label) {
+            for (int i = 0; i < columns.size(); i++) {
+                if (columns.get(i).equalsIgnoreCase(label)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private Object value(Object value,
+                             Class<?> type) {
+            wasNull = value == null;
+            if (value == null) {
+                return defaultValue(type);
+            }
+            if (type == String.class) {
+                return value.toString();
+            }
+            if (type == boolean.class) {
+                return value instanceof Boolean ? value : ((Number) value).intValue() != 0;
+            }
+            if (value instanceof Number) {
+                final Number number = (Number) value;
+                if (type == int.class) {
+                    return number.intValue();
+                }
+                if (type == long.class) {
+                    return number.longValue();
+                }
+                if (type == short.class) {
+                    return number.shortValue();
+                }
+                if (type == byte.class) {
+                    return number.byteValue();
+                }
+                if (type == double.class) {
+                    return number.doubleValue();
+                }
+                if (type == float.class) {
+                    return number.floatValue();
+                }
+            }
+            return type.isInstance(value) ? value : defaultValue(type);
+        }
+    }
+}
@@ -66,8 +66,30 @@ abstract class AbstractSchemaGeneratorMojoTest
     }
 
     protected JpaSchemaGeneratorMojo executeSchemaGeneration(File pomFile) throws Exception {
+        JpaSchemaGeneratorMojo mojo = prepareSchemaGeneration(pomFile);
+
+        // execute
+        mojo.execute();
+
+
+        return mojo;
+    }
+
+    /**
+     * @return mojo configured by pom, with session and dependencies of project, ready to execute
+     */
+    protected JpaSchemaGeneratorMojo prepareSchemaGeneration(File pomFile) throws Exception {
+        return prepareSchemaGeneration("generate", pomFile);
+    }
+
+    /**
+     * @return mojo of goal ({@code generate} or {@code aggregate}), configured like
+     * {@link #prepareSchemaGeneration(File)}
+     */
+    protected JpaSchemaGeneratorMojo prepareSchemaGeneration(String goal,
+                                                             File pomFile) throws Exception {
         // create mojo
-        JpaSchemaGeneratorMojo mojo = getGenerateMojo(pomFile);
+        JpaSchemaGeneratorMojo mojo = (JpaSchemaGeneratorMojo) lookupMojo(goal, pomFile);
         assertThat(mojo, notNullValue(JpaSchemaGeneratorMojo.class));
 
         // setSession
@@ -76,7 +98,7 @@ abstract class AbstractSchemaGeneratorMojoTest
         setVariableValueToObject(mojo, "session", session);
 
         // setup pluginDescriptor
-        MojoExecution mojoExecution = newMojoExecution("generate");
+        MojoExecution mojoExecution = newMojoExecution(goal);
         PluginDescriptor pluginDescriptor = mojoExecution.getMojoDescriptor().getPluginDescriptor();
         pluginDescriptor.setPlugin(project.getPlugin(pluginDescriptor.getGroupId() + ":" + pluginDescriptor.getArtifactId()));
         setVariableValueToObject(mojo, "pluginDescriptor", pluginDescriptor);
@@ -88,10 +110,6 @@ abstract class AbstractSchemaGeneratorMojoTest
         // resolve project dependencies
         resolveProjectDependencies(session, repositorySystem);
 
-        // execute
-        mojo.execute();
-
-
         return mojo;
     }
 
@@ -0,0 +1,55 @@
+package io.github.divinespear.maven.plugin;
+
+import io.github.divinespear.maven.plugin.stub.AggregateModuleProjectStub;
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertThat;
+
+public class AggregateMojoTest
+        extends AbstractSchemaGeneratorMojoTest {
+
+    @Before
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @After
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Schema generation of entities in all modules of reactor, in one bootstrap
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAggregateModulesUsingHibernate() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/aggregate-test");
+        final File modulePomfile = this.getPomFile("target/test-classes/unit/aggregate-test/module");
+
+        this.compileJpaModelSources(pomfile);
+        this.compileJpaModelSources(modulePomfile);
+        JpaSchemaGeneratorMojo mojo = this.prepareSchemaGeneration("aggregate", pomfile);
+        MavenProject root = (MavenProject) getVariableValueFromObject(mojo, "project");
+        mojo.getSession().setProjects(Arrays.asList(root, new AggregateModuleProjectStub()));
+        mojo.execute();
+
+        File createScriptFile = mojo.getCreateOutputFile();
+        assertThat("create script should be generated.", createScriptFile.exists(), is(true));
+        final String script = this.readFileAsString(createScriptFile);
+        assertThat(script, containsString("create table KEY_VALUE_STORE"));
+        assertThat(script, containsString("create table MANY_COLUMN_TABLE"));
+        assertThat("entity of other module should be generated.", script, containsString("create table INVOICE"));
+    }
+}
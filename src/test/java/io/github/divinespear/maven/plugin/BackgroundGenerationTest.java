@@ -0,0 +1,119 @@
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.lifecycle.DefaultLifecycles;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertThat;
+
+public class BackgroundGenerationTest
+        extends AbstractSchemaGeneratorMojoTest {
+
+    @Before
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @After
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    private JpaSchemaGeneratorMojo prepareBackground(File pomfile,
+                                                     String joinPhase) throws Exception {
+        this.compileJpaModelSources(pomfile);
+        JpaSchemaGeneratorMojo mojo = this.prepareSchemaGeneration(pomfile);
+        setVariableValueToObject(mojo, "background", true);
+        setVariableValueToObject(mojo, "backgroundJoinPhase", joinPhase);
+        return mojo;
+    }
+
+    private static ExecutionEvent mojoStarted(final MavenSession session,
+                                              final MavenProject project,
+                                              String phase) {
+        final MojoExecution execution = new MojoExecution(null, "default", MojoExecution.Source.LIFECYCLE);
+        execution.setLifecyclePhase(phase);
+        return new ExecutionEvent() {
+            @Override
+            public Type getType() {
+                return Type.MojoStarted;
+            }
+
+            @Override
+            public MavenSession getSession() {
+                return session;
+            }
+
+            @Override
+            public MavenProject getProject() {
+                return project;
+            }
+
+            @Override
+            public MojoExecution getMojoExecution() {
+                return execution;
+            }
+
+            @Override
+            public Exception getException() {
+                return null;
+            }
+        };
+    }
+
+    @Test
+    public void testBackgroundGenerationJoinedBeforePhase() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/hibernate-simple-script-test");
+        JpaSchemaGeneratorMojo mojo = this.prepareBackground(pomfile, "package");
+        FileUtils.deleteDirectory(mojo.getOutputDirectory());
+        MavenSession session = mojo.getSession();
+        BackgroundGenerationParticipant participant = new BackgroundGenerationParticipant(
+                lookup(DefaultLifecycles.class));
+        participant.afterProjectsRead(session);
+
+        mojo.execute();
+        session.getRequest().getExecutionListener().mojoStarted(mojoStarted(session, session.getCurrentProject(),
+                "package"));
+
+        assertThat("create script should be generated before package.", mojo.getCreateOutputFile().exists(),
+                is(true));
+        final String expectCreate = readResourceAsString("/unit/hibernate-simple-script-test/expected-create.txt");
+        assertThat(this.readFileAsString(mojo.getCreateOutputFile()), is(expectCreate));
+        participant.afterSessionEnd(session);
+    }
+
+    @Test
+    public void testBackgroundGenerationFailsAtSessionEnd() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/no-database-information-test");
+        JpaSchemaGeneratorMojo mojo = this.prepareBackground(pomfile, null);
+        MavenSession session = mojo.getSession();
+        BackgroundGenerationParticipant participant = new BackgroundGenerationParticipant(
+                lookup(DefaultLifecycles.class));
+        participant.afterProjectsRead(session);
+
+        mojo.execute();
+        // not joined before join phase of other generation
+        session.getRequest().getExecutionListener().mojoStarted(mojoStarted(session, session.getCurrentProject(),
+                "package"));
+        try {
+            participant.afterSessionEnd(session);
+            fail();
+        } catch (MavenExecutionException e) {
+            assertThat(e.getMessage(), containsString("background schema generation"));
+            assertThat(e.getCause().getMessage(), is("Error while running"));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.divinespear.maven.plugin;
+
+import org.codehaus.plexus.util.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ConcurrentExecutionTest
+        extends AbstractSchemaGeneratorMojoTest {
+
+    private static final int EXECUTIONS_PER_PROJECT = 3;
+
+    @Before
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+    }
+
+    @After
+    @Override
+    protected void tearDown() throws Exception {
+        super.tearDown();
+    }
+
+    /**
+     * Executions of several projects and providers in parallel, like {@code mvn -T}, each with own output and database
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParallelExecutions() throws Exception {
+        final File hibernateScript = this.getPomFile("target/test-classes/unit/hibernate-simple-script-test");
+        final File eclipselinkScript = this.getPomFile("target/test-classes/unit/eclipselink-simple-script-test");
+        final File hibernateDatabase = this.getPomFile("target/test-classes/unit/hibernate-simple-database-test",
+                "pom-parallel.xml");
+        final File concurrentDirectory = new File(getBasedir(), "target/test-classes/unit/concurrent");
+        FileUtils.deleteDirectory(concurrentDirectory);
+
+        // mojos are prepared one by one, as test harness is not thread-safe
+        final List<JpaSchemaGeneratorMojo> mojos = new ArrayList<>();
+        final List<String> expected = new ArrayList<>();
+        for (File pomfile : new File[]{hibernateScript, eclipselinkScript, hibernateDatabase}) {
+            this.compileJpaModelSources(pomfile);
+            for (int i = 0; i < EXECUTIONS_PER_PROJECT; i++) {
+                JpaSchemaGeneratorMojo mojo = this.prepareSchemaGeneration(pomfile);
+                String name = pomfile.getParentFile().getName() + "-" + i;
+                if (pomfile == hibernateDatabase) {
+                    setVariableValueToObject(mojo, "jdbcUrl", "jdbc:h2:nio:" + concurrentDirectory.getAbsolutePath()
+                            + "/" + name + ";AUTO_SERVER=TRUE");
+                    expected.add(null);
+                } else {
+                    setVariableValueToObject(mojo, "outputDirectory", new File(concurrentDirectory, name));
+                    expected.add(pomfile.getParentFile().getName());
+                }
+                mojos.add(mojo);
+            }
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(mojos.size());
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (final JpaSchemaGeneratorMojo mojo : mojos) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        mojo.execute();
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int i = 0; i < mojos.size(); i++) {
+            JpaSchemaGeneratorMojo mojo = mojos.get(i);
+            if (expected.get(i) == null) {
+                try (Connection connection = DriverManager.getConnection(mojo.getJdbcUrl(), mojo.getJdbcUser(),
+                        mojo.getJdbcPassword())) {
+                    Statement statement = connection.createStatement();
+                    try (ResultSet resultSet = statement.executeQuery("SELECT * FROM many_column_table")) {
+                        assertThat(resultSet.getMetaData().getColumnCount(), is(31));
+                    }
+                }
+            } else {
+                assertThat(this.readFileAsString(mojo.getCreateOutputFile()),
+                        is(readResourceAsString("/unit/" + expected.get(i) + "/expected-create.txt")));
+                assertThat(this.readFileAsString(mojo.getDropOutputFile()),
+                        is(readResourceAsString("/unit/" + expected.get(i) + "/expected-drop.txt")));
+            }
+        }
+    }
+}
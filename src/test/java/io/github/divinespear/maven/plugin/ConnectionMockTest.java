@@ -0,0 +1,208 @@
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.hibernate.engine.jdbc.dialect.internal.StandardDialectResolver;
+import org.hibernate.engine.jdbc.dialect.spi.DialectResolutionInfo;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ConnectionMockTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static DatabaseMetaData metaData(String productName,
+                                             Integer majorVersion,
+                                             Integer minorVersion) throws Exception {
+        return new ConnectionMock(productName, majorVersion, minorVersion).getMetaData();
+    }
+
+    @Test
+    public void testShouldDescribeProductByProfile() throws Exception {
+        DatabaseMetaData postgresql = metaData("PostgreSQL", 9, 6);
+        assertThat(postgresql.getDatabaseProductName(), is("PostgreSQL"));
+        assertThat(postgresql.getDatabaseMajorVersion(), is(9));
+        assertThat(postgresql.getIdentifierQuoteString(), is("\""));
+        assertThat(postgresql.storesLowerCaseIdentifiers(), is(true));
+        assertThat(postgresql.storesUpperCaseIdentifiers(), is(false));
+        assertThat(postgresql.getMaxTableNameLength(), is(63));
+        assertThat(postgresql.getSQLKeywords(), containsString("returning"));
+        assertThat(postgresql.supportsUnionAll(), is(true));
+        assertThat(postgresql.getSearchStringEscape(), is("\\"));
+
+        DatabaseMetaData mariadb = metaData("MariaDB", 10, 3);
+        assertThat(mariadb.getIdentifierQuoteString(), is("`"));
+        assertThat(mariadb.supportsSchemasInTableDefinitions(), is(false));
+        assertThat(mariadb.getMaxUserNameLength(), is(80));
+        assertThat(metaData("MySQL", 5, 6).getMaxUserNameLength(), is(16));
+        assertThat(metaData("MySQL", 8, 0).getMaxUserNameLength(), is(32));
+
+        assertThat(metaData("DB2/LINUXX8664", 11, 1).storesUpperCaseIdentifiers(), is(true));
+        assertThat(metaData("Microsoft SQL Server", 14, 0).getMaxIndexLength(), is(1700));
+        assertThat(metaData("H2", 1, 4).getSQLKeywords(), containsString("ROWNUM"));
+    }
+
+    @Test
+    public void testShouldApplyVersionedValues() throws Exception {
+        assertThat(metaData("Oracle", 11, 2).getMaxTableNameLength(), is(30));
+        assertThat(metaData("Oracle", 12, 1).getMaxTableNameLength(), is(30));
+        assertThat(metaData("Oracle", 12, 2).getMaxTableNameLength(), is(128));
+        assertThat(metaData("Oracle", 19, 0).getMaxTableNameLength(), is(128));
+        assertThat(metaData("Oracle", null, null).getMaxTableNameLength(), is(30));
+    }
+
+    @Test
+    public void testShouldKeepDefaultsOfUnknownProduct() throws Exception {
+        DatabaseMetaData unknown = metaData("Informix Dynamic Server", 12, 10);
+        assertThat(unknown.getDatabaseProductName(), is("Informix Dynamic Server"));
+        assertThat(unknown.getIdentifierQuoteString(), is(nullValue()));
+        assertThat(unknown.getMaxTableNameLength(), is(0));
+        assertThat(unknown.supportsUnion(), is(false));
+        assertThat(metaData(null, null, null).getSQLKeywords(), is(nullValue()));
+    }
+
+    @Test
+    public void testShouldOverrideProfileByFile() throws Exception {
+        File file = folder.newFile("metadata.properties");
+        Files.write(file.toPath(), ("getMaxTableNameLength=40\ngetIdentifierQuoteString@10.0=[\n")
+                .getBytes(Charset.forName("UTF-8")));
+
+        DatabaseMetaData overridden = new ConnectionMock("PostgreSQL", 10, 1,
+                MetadataProfile.find("PostgreSQL", 10, 1).withFile(file)).getMetaData();
+        assertThat(overridden.getMaxTableNameLength(), is(40));
+        assertThat(overridden.getIdentifierQuoteString(), is("["));
+        assertThat(overridden.storesLowerCaseIdentifiers(), is(true));
+        assertThat(metaData("PostgreSQL", 10, 1).getMaxTableNameLength(), is(63));
+    }
+
+    @Test
+    public void testShouldRecordExecutedStatements() throws Exception {
+        ConnectionMock connection = new ConnectionMock("H2", 1, 4);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table A (ID bigint)");
+            statement.addBatch("create index IDX_A on A (ID)");
+            statement.addBatch("create table B (ID bigint)");
+            assertThat(statement.executeBatch().length, is(2));
+            try (ResultSet rs = statement.executeQuery("select * from A")) {
+                assertThat(rs.next(), is(false));
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement("insert into A values (?, '?', ?)")) {
+            statement.setLong(1, 1L);
+            statement.setString(2, "it's");
+            statement.executeUpdate();
+        }
+
+        assertThat(connection.getStatements(), contains("create table A (ID bigint)",
+                "create index IDX_A on A (ID)", "create table B (ID bigint)", "insert into A values (1, '?', 'it''s')"));
+    }
+
+    @Test
+    public void testShouldDescribeSchemaByMetadata() throws Exception {
+        List<String> mapping = Arrays.asList(
+                "create sequence HIBERNATE_SEQUENCE start with 1 increment by 1",
+                "create table CUSTOMER (ID bigint not null, NAME varchar(64) not null, primary key (ID))",
+                "create table ORDERS (ID bigint not null, CUSTOMER_ID bigint, AMOUNT decimal(10,2), primary key (ID))",
+                "create index IDX_ORDERS_AMOUNT on ORDERS (AMOUNT)",
+                "alter table ORDERS add constraint FK_ORDERS_CUSTOMER foreign key (CUSTOMER_ID) references CUSTOMER");
+        SchemaModel model = SchemaModel.parse(mapping);
+        ConnectionMock connection = new ConnectionMock("H2", 1, 4, MetadataProfile.find("H2", 1, 4), model);
+
+        try (ResultSet rs = connection.getMetaData().getColumns(null, null, "ORDERS", "AMOUNT")) {
+            assertThat(rs.next(), is(true));
+            assertThat(rs.getString("TYPE_NAME"), is("decimal"));
+            assertThat(rs.getInt("COLUMN_SIZE"), is(10));
+            assertThat(rs.getInt("DECIMAL_DIGITS"), is(2));
+            assertThat(rs.next(), is(false));
+        }
+
+        SchemaModel read = new SchemaReader(new JdbcConnector(connection, "dry run"), 1, new SystemStreamLog())
+                .read();
+        assertThat(read.getTable("ORDERS").getForeignKeys().get(0).getReferencedColumns(), contains("ID"));
+        assertThat(SchemaDiff.diff(model, read, true, new SystemStreamLog()), is(Collections.<String>emptyList()));
+        assertThat(connection.getStatements(), is(Collections.<String>emptyList()));
+    }
+
+    private static String resolveDialect(final String productName,
+                                         final int majorVersion,
+                                         final int minorVersion) {
+        return StandardDialectResolver.INSTANCE.resolveDialect(new DialectResolutionInfo() {
+            @Override
+            public String getDatabaseName() {
+                return productName;
+            }
+
+            @Override
+            public int getDatabaseMajorVersion() {
+                return majorVersion;
+            }
+
+            @Override
+            public int getDatabaseMinorVersion() {
+                return minorVersion;
+            }
+
+            @Override
+            public String getDriverName() {
+                return null;
+            }
+
+            @Override
+            public int getDriverMajorVersion() {
+                return 0;
+            }
+
+            @Override
+            public int getDriverMinorVersion() {
+                return 0;
+            }
+        }).getClass().getName();
+    }
+
+    @Test
+    public void testShouldGiveProviderSettingsOfProduct() throws Exception {
+        Object[][] products = {{"H2", 1, 4}, {"MySQL", 4, 1}, {"MySQL", 5, 7}, {"PostgreSQL", 8, 1},
+                {"PostgreSQL", 8, 4}, {"PostgreSQL", 9, 1}, {"PostgreSQL", 9, 3}, {"PostgreSQL", 9, 6},
+                {"Oracle", 9, 2}, {"Oracle", 11, 2}, {"Oracle", 12, 1}, {"Microsoft SQL Server", 8, 0},
+                {"Microsoft SQL Server", 10, 50}, {"Microsoft SQL Server", 11, 0}, {"DB2/LINUXX8664", 10, 5}};
+        for (Object[] product : products) {
+            String name = (String) product[0];
+            int major = (Integer) product[1];
+            int minor = (Integer) product[2];
+            assertThat(name + " " + major + "." + minor, MetadataProfile.find(name, major, minor).get(
+                    JpaSchemaGeneratorUtils.DIALECT), is(resolveDialect(name, major, minor)));
+        }
+
+        // later versions keep latest dialect
+        assertThat(MetadataProfile.find("Microsoft SQL Server", 14, 0).get(JpaSchemaGeneratorUtils.DIALECT),
+                is("org.hibernate.dialect.SQLServer2012Dialect"));
+        assertThat(MetadataProfile.find("MariaDB", 10, 1).get(JpaSchemaGeneratorUtils.DIALECT),
+                is("org.hibernate.dialect.MySQL5Dialect"));
+        assertThat(MetadataProfile.find("Oracle", 11, 2).get(JpaSchemaGeneratorUtils.TARGET_DATABASE),
+                is("org.eclipse.persistence.platform.database.oracle.Oracle11Platform"));
+        assertThat(MetadataProfile.find("H2", 1, 4).get(JpaSchemaGeneratorUtils.TARGET_DATABASE),
+                is("org.eclipse.persistence.platform.database.H2Platform"));
+        assertThat(MetadataProfile.find("Informix Dynamic Server", 12, 10).get(JpaSchemaGeneratorUtils.DIALECT),
+                is(nullValue()));
+        assertThat(MetadataProfile.find("PostgreSQL", 9, 6), is(sameInstance(MetadataProfile.find("PostgreSQL", 9, 6))));
+    }
+}
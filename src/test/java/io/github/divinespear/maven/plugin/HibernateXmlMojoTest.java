@@ -20,6 +20,7 @@ package io.github.divinespear.maven.plugin;
  */
 
 import org.apache.maven.plugin.MojoExecutionException;
+import org.codehaus.plexus.util.FileUtils;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -31,6 +32,8 @@ import java.sql.*;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.anyOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 
 public class HibernateXmlMojoTest
@@ -98,6 +101,72 @@ public class HibernateXmlMojoTest
         assertThat(this.readFileAsString(dropScriptFile), is(expectDrop));
     }
 
+    /**
+     * Migration script generation test using Hibernate, compared with model of previous generation
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGenerateMigrationUsingHibernate() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/hibernate-simple-script-test",
+                "pom-migration.xml");
+        final File outputDirectory = new File(pomfile.getParentFile(), "target/migration");
+        FileUtils.deleteDirectory(outputDirectory);
+
+        this.compileJpaModelSources(pomfile);
+        JpaSchemaGeneratorMojo mojo = this.executeSchemaGeneration(pomfile);
+
+        File first = new File(outputDirectory, "V1__delta.sql");
+        assertThat("first migration script should be generated.", first.exists(), is(true));
+        assertThat(this.readFileAsString(first), containsString("create table KEY_VALUE_STORE"));
+        assertThat(mojo.getMigrationModelFile().exists(), is(true));
+
+        // unchanged mapping
+        this.executeSchemaGeneration(pomfile);
+        assertThat("no migration script for unchanged mapping.", new File(outputDirectory, "V2__delta.sql").exists(),
+                is(false));
+
+        // mapping with table added since previous generation
+        SchemaModel stored = SchemaSnapshot.read(mojo.getMigrationModelFile());
+        SchemaModel previous = new SchemaModel();
+        for (SchemaModel.Table table : stored.getTables()) {
+            if (!table.getKey().equals("MANY_COLUMN_TABLE")) {
+                previous.addTable(table);
+            }
+        }
+        SchemaSnapshot.write(previous, mojo.getMigrationModelFile(), "\n");
+        this.executeSchemaGeneration(pomfile);
+
+        File second = new File(outputDirectory, "V2__delta.sql");
+        assertThat("second migration script should be generated.", second.exists(), is(true));
+        assertThat(this.readFileAsString(second), containsString("create table MANY_COLUMN_TABLE"));
+        assertThat(this.readFileAsString(second), not(containsString("KEY_VALUE_STORE")));
+
+        // mapping with column type changed since previous generation, which cannot be written
+        stored = SchemaSnapshot.read(mojo.getMigrationModelFile());
+        previous = new SchemaModel();
+        for (SchemaModel.Table table : stored.getTables()) {
+            if (table.getKey().equals("KEY_VALUE_STORE")) {
+                SchemaModel.Table changed = new SchemaModel.Table(table.getKey(), null);
+                for (SchemaModel.Column column : table.getColumns().values()) {
+                    changed.getColumns().put(column.getName(), new SchemaModel.Column(column.getName(),
+                            changed.getColumns().isEmpty() ? "varchar(1)" : column.getType(), column.isNullable(),
+                            null));
+                }
+                changed.setPrimaryKey(table.getPrimaryKey());
+                table = changed;
+            }
+            previous.addTable(table);
+        }
+        SchemaSnapshot.write(previous, mojo.getMigrationModelFile(), "\n");
+        final String model = this.readFileAsString(mojo.getMigrationModelFile());
+        this.executeSchemaGeneration(pomfile);
+
+        assertThat("no migration script for unresolved change.", new File(outputDirectory, "V3__delta.sql").exists(),
+                is(false));
+        assertThat("model should not be advanced.", this.readFileAsString(mojo.getMigrationModelFile()), is(model));
+    }
+
     /**
      * Simple schema generation test for database using Hibernate
      *
@@ -153,6 +222,97 @@ public class HibernateXmlMojoTest
         }
     }
 
+    /**
+     * Schema generation test for database using Hibernate, executed by plugin in parallel
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testGenerateDatabaseInParallelUsingHibernate() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/hibernate-simple-database-test",
+                "pom-parallel.xml");
+
+        this.compileJpaModelSources(pomfile);
+        JpaSchemaGeneratorMojo mojo = this.executeSchemaGeneration(pomfile);
+
+        // database check
+        try (Connection connection = DriverManager.getConnection(mojo.getJdbcUrl(), mojo.getJdbcUser(),
+                mojo.getJdbcPassword())) {
+            Statement statement = connection.createStatement();
+            try (ResultSet resultSet = statement.executeQuery("SELECT * FROM key_value_store")) {
+                assertThat(resultSet.getMetaData().getColumnCount(), is(3));
+            }
+            try (ResultSet resultSet = statement.executeQuery("SELECT * FROM many_column_table")) {
+                assertThat(resultSet.getMetaData().getColumnCount(), is(31));
+            }
+        }
+    }
+
+    @Test
+    public void testUpdateDatabaseUsingHibernate() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/hibernate-simple-database-test",
+                "pom-update.xml");
+        final String url = "jdbc:h2:nio:" + pomfile.getParentFile().getAbsolutePath()
+                + "/target/test-update;AUTO_SERVER=TRUE";
+
+        // existing schema, missing a column and a table
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            Statement statement = connection.createStatement();
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("CREATE TABLE KEY_VALUE_STORE (STORED_KEY VARCHAR(128) PRIMARY KEY, "
+                    + "STORED_VALUE VARCHAR(32768))");
+            statement.execute("INSERT INTO KEY_VALUE_STORE VALUES ('kept', 'value')");
+        }
+
+        this.compileJpaModelSources(pomfile);
+        JpaSchemaGeneratorMojo mojo = this.executeSchemaGeneration(pomfile);
+
+        // database check
+        try (Connection connection = DriverManager.getConnection(mojo.getJdbcUrl(), mojo.getJdbcUser(),
+                mojo.getJdbcPassword())) {
+            Statement statement = connection.createStatement();
+            try (ResultSet resultSet = statement.executeQuery("SELECT * FROM key_value_store")) {
+                assertThat(resultSet.getMetaData().getColumnCount(), is(3));
+                assertThat(resultSet.next(), is(true));
+                assertThat(resultSet.getString("STORED_KEY"), is("kept"));
+            }
+            try (ResultSet resultSet = statement.executeQuery("SELECT * FROM many_column_table")) {
+                assertThat(resultSet.getMetaData().getColumnCount(), is(31));
+            }
+        }
+    }
+
+    @Test
+    public void testDryRunDatabaseActionUsingHibernate() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/hibernate-simple-database-test",
+                "pom-dry-run.xml");
+
+        this.compileJpaModelSources(pomfile);
+        JpaSchemaGeneratorMojo mojo = this.executeSchemaGeneration(pomfile);
+
+        File dryRunScript = mojo.getDryRunOutputFile();
+        assertThat("dry run script should be generated.", dryRunScript.exists(), is(true));
+        final String script = this.readFileAsString(dryRunScript);
+        assertThat(script, containsString("drop table KEY_VALUE_STORE"));
+        assertThat(script, containsString("create table MANY_COLUMN_TABLE"));
+        assertThat("drop statements should be recorded first.", script.indexOf("drop table KEY_VALUE_STORE")
+                < script.indexOf("create table KEY_VALUE_STORE"), is(true));
+    }
+
+    @Test
+    public void testUnreachableDatabaseFailsBeforeBootstrap() throws Exception {
+        final File pomfile = this.getPomFile("target/test-classes/unit/hibernate-simple-database-test",
+                "pom-unreachable.xml");
+
+        this.compileJpaModelSources(pomfile);
+        try {
+            this.executeSchemaGeneration(pomfile);
+            fail();
+        } catch (MojoExecutionException e) {
+            assertThat(e.getMessage(), containsString("Cannot connect to database jdbc:h2:tcp://localhost:1/unreachable"));
+        }
+    }
+
     @Test
     public void testNoDatabaseInformation() throws Exception {
         final File pomfile = this.getPomFile("target/test-classes/unit/no-database-information-test");
@@ -78,4 +78,24 @@ public class Issue12Test
         JpaSchemaGeneratorMojo mojo = new JpaSchemaGeneratorMojo();
         assertThat(mojo.format(from), is(expected));
     }
+
+    @Test
+    public void testShouldFormatNestedParentheses() {
+        String from = "CREATE TABLE ORDERS (ID BIGINT NOT NULL,AMOUNT NUMERIC(19,2) CHECK (AMOUNT IN (1,2,3)),STATE VARCHAR(10) DEFAULT 'a,b',PRIMARY KEY (ID)) ENGINE=InnoDB;";
+        String expected = "CREATE TABLE ORDERS (" + LINE_SEPARATOR
+                          + "\tID BIGINT NOT NULL," + LINE_SEPARATOR
+                          + "\tAMOUNT NUMERIC(19,2) CHECK (AMOUNT IN (1,2,3))," + LINE_SEPARATOR
+                          + "\tSTATE VARCHAR(10) DEFAULT 'a,b'," + LINE_SEPARATOR
+                          + "\tPRIMARY KEY (ID)" + LINE_SEPARATOR
+                          + ") ENGINE=InnoDB;";
+        JpaSchemaGeneratorMojo mojo = new JpaSchemaGeneratorMojo();
+        assertThat(mojo.format(from), is(expected));
+    }
+
+    @Test
+    public void testShouldNotFormatOtherStatements() {
+        String from = "INSERT INTO SEQUENCE(SEQ_NAME, SEQ_COUNT) values ('SEQ_GEN', 0)";
+        JpaSchemaGeneratorMojo mojo = new JpaSchemaGeneratorMojo();
+        assertThat(mojo.format(from), is(from));
+    }
 }
@@ -0,0 +1,201 @@
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ParallelDdlExecutorTest {
+
+    private static final String URL = "jdbc:h2:mem:parallel-ddl-test;DB_CLOSE_DELAY=-1";
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        // keep in-memory database open during test
+        connection = DriverManager.getConnection(URL, "sa", "");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.createStatement().execute("DROP ALL OBJECTS");
+        connection.close();
+    }
+
+    private ParallelDdlExecutor newExecutor() {
+        return new ParallelDdlExecutor(new JdbcConnector(null, URL, "sa", ""), 4, 1, new SystemStreamLog());
+    }
+
+    private ParallelDdlExecutor newBatchExecutor() {
+        return new ParallelDdlExecutor(new JdbcConnector(null, URL, "sa", ""), 2, 10, new SystemStreamLog());
+    }
+
+    private boolean exists(String table) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getTables(null, null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    @Test
+    public void testShouldExecuteCreateScript() throws Exception {
+        List<String> statements = new ArrayList<>();
+        statements.add("create sequence SEQ_ID start with 1");
+        for (int i = 0; i < 20; i++) {
+            statements.add("create table T" + i + " (ID bigint not null, PARENT_ID bigint, primary key (ID))");
+        }
+        for (int i = 0; i < 20; i++) {
+            statements.add("create index IDX_T" + i + " on T" + i + " (PARENT_ID)");
+            statements.add("alter table T" + i + " add constraint FK_T" + i
+                    + " foreign key (PARENT_ID) references T" + (i + 1) % 20 + " (ID)");
+        }
+        statements.add("insert into T0 (ID) values (1)");
+
+        newExecutor().execute(statements, false);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(exists("T" + i), is(true));
+        }
+        try (ResultSet rs = connection.createStatement().executeQuery("select count(*) from T0")) {
+            rs.next();
+            assertThat(rs.getInt(1), is(1));
+        }
+    }
+
+    @Test
+    public void testShouldFailFast() throws Exception {
+        try {
+            newExecutor().execute(Arrays.asList(
+                    "create table A (ID bigint not null, primary key (ID))",
+                    "create index IDX_A on A (NO_SUCH_COLUMN)",
+                    "alter table A add constraint UK_A unique (ID)",
+                    "create table B (ID bigint not null, primary key (ID))"), false);
+            fail("should fail");
+        } catch (SQLException e) {
+            assertThat(e.getMessage(), containsString("statement 2 failed: create index IDX_A on A (NO_SUCH_COLUMN)"));
+        }
+        // statement after failed one on same table is never started
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(null, null, "A", true, false)) {
+            while (rs.next()) {
+                assertThat(rs.getString("INDEX_NAME").startsWith("UK_A"), is(false));
+            }
+        }
+    }
+
+    @Test
+    public void testShouldIgnoreErrorsOnDrop() throws Exception {
+        connection.createStatement().execute("create table A (ID bigint)");
+
+        newExecutor().execute(Arrays.asList(
+                "alter table B drop constraint FK_B",
+                "drop table A",
+                "drop table B"), true);
+
+        assertThat(exists("A"), is(false));
+    }
+
+    @Test
+    public void testShouldExecuteInBatches() throws Exception {
+        List<String> statements = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            statements.add("create table T" + i + " (ID bigint not null, primary key (ID))");
+        }
+
+        newBatchExecutor().execute(statements, false);
+
+        for (int i = 0; i < 30; i++) {
+            assertThat(exists("T" + i), is(true));
+        }
+    }
+
+    @Test
+    public void testShouldReportFailedStatementInBatch() throws Exception {
+        try {
+            newBatchExecutor().execute(Arrays.asList(
+                    "create table A (ID bigint not null, primary key (ID))",
+                    "create table B (ID bigint not null, primary key (ID))",
+                    "create table C (ID no_such_type)",
+                    "create table D (ID bigint not null, primary key (ID))"), false);
+            fail("should fail");
+        } catch (SQLException e) {
+            assertThat(e.getMessage(), containsString("statement 3 failed: create table C (ID no_such_type)"));
+        }
+        assertThat(exists("A"), is(true));
+        assertThat(exists("B"), is(true));
+    }
+
+    @Test
+    public void testShouldReadScriptInUtf8() throws Exception {
+        byte[] script = "create table NOTE (TEXT varchar(16));\ninsert into NOTE values ('Größe 名前');\n"
+                .getBytes(Charset.forName("UTF-8"));
+        newBatchExecutor().executeScript(Channels.newChannel(new ByteArrayInputStream(script)), "note.sql",
+                script.length, false);
+
+        try (ResultSet rs = connection.createStatement().executeQuery("select TEXT from NOTE")) {
+            rs.next();
+            assertThat(rs.getString(1), is("Größe 名前"));
+        }
+    }
+
+    @Test
+    public void testShouldFailBatchWithUnknownState() throws Exception {
+        // driver applying first statement of batch, and failing without update counts
+        final Connection partial = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (!method.getName().equals("createStatement")) {
+                            return method.invoke(connection, args);
+                        }
+                        final Statement statement = connection.createStatement();
+                        final List<String> batch = new ArrayList<>();
+                        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class},
+                                new InvocationHandler() {
+                                    @Override
+                                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                                        if (method.getName().equals("addBatch")) {
+                                            batch.add((String) args[0]);
+                                            return null;
+                                        }
+                                        if (method.getName().equals("executeBatch")) {
+                                            statement.execute(batch.get(0));
+                                            throw new SQLException("connection reset");
+                                        }
+                                        return method.invoke(statement, args);
+                                    }
+                                });
+                    }
+                });
+
+        try {
+            StatementBatch.execute(partial, Arrays.asList(
+                    "create table A (ID bigint not null, primary key (ID))",
+                    "create table B (ID bigint not null, primary key (ID))"), false);
+            fail("should fail");
+        } catch (SQLException e) {
+            assertThat(e.getMessage(), containsString("statements applied are unknown (connection reset)"));
+        }
+        assertThat(exists("A"), is(true));
+        assertThat(exists("B"), is(false));
+    }
+}
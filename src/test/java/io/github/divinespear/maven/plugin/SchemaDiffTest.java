@@ -0,0 +1,230 @@
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class SchemaDiffTest {
+
+    private static final List<String> MAPPING = Arrays.asList(
+            "create sequence HIBERNATE_SEQUENCE start with 1 increment by 1",
+            "create table CUSTOMER (ID bigint not null, NAME varchar(64) not null, NOTE varchar(255), primary key (ID))",
+            "create table ORDERS (ID bigint not null, CUSTOMER_ID bigint, AMOUNT decimal(10,2), primary key (ID))",
+            "create index IDX_ORDERS_AMOUNT on ORDERS (AMOUNT desc)",
+            "alter table CUSTOMER add constraint UK_CUSTOMER_NAME unique (NAME)",
+            "alter table ORDERS add constraint FK_ORDERS_CUSTOMER foreign key (CUSTOMER_ID) references CUSTOMER");
+
+    private static final String URL = "jdbc:h2:mem:schema-diff-test;DB_CLOSE_DELAY=-1";
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection(URL, "sa", "");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.createStatement().execute("DROP ALL OBJECTS");
+        connection.close();
+    }
+
+    private void execute(List<String> statements) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static SchemaReader newReader(int parallelism) {
+        return new SchemaReader(new JdbcConnector(null, URL, "sa", ""), parallelism, new SystemStreamLog());
+    }
+
+    private List<String> diff(boolean dropObjects) throws Exception {
+        return SchemaDiff.diff(SchemaModel.parse(MAPPING), newReader(2).read(), dropObjects, new SystemStreamLog());
+    }
+
+    @Test
+    public void testShouldParseGeneratedScript() throws Exception {
+        SchemaModel model = SchemaModel.parse(MAPPING);
+
+        SchemaModel.Table customer = model.getTable("CUSTOMER");
+        assertThat(customer.getColumns().keySet(), contains("ID", "NAME", "NOTE"));
+        assertThat(customer.getColumns().get("NAME").getType(), is("varchar(64)"));
+        assertThat(customer.getColumns().get("NAME").isNullable(), is(false));
+        assertThat(customer.getColumns().get("NOTE").isNullable(), is(true));
+        assertThat(customer.getPrimaryKey(), contains("ID"));
+        assertThat(customer.getIndexes().get(0).getColumns(), contains("NAME"));
+        assertThat(customer.getIndexes().get(0).isUnique(), is(true));
+
+        SchemaModel.Table orders = model.getTable("ORDERS");
+        assertThat(orders.getColumns().get("AMOUNT").getType(), is("decimal(10,2)"));
+        assertThat(orders.getIndexes().get(0).getColumns(), contains("AMOUNT"));
+        assertThat(orders.getForeignKeys().get(0).getName(), is("FK_ORDERS_CUSTOMER"));
+        assertThat(orders.getForeignKeys().get(0).getColumns(), contains("CUSTOMER_ID"));
+        assertThat(orders.getForeignKeys().get(0).getReferencedTable(), is("CUSTOMER"));
+        assertThat(model.getSequences().keySet(), contains("HIBERNATE_SEQUENCE"));
+    }
+
+    @Test
+    public void testShouldFoldIdentifiersRegardlessOfLocale() throws Exception {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            SchemaModel model = SchemaModel.parse(Arrays.asList("create table item (id bigint not null, primary key (id))"));
+            assertThat(model.getTable("ITEM").getColumns().keySet(), contains("ID"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void testShouldCreateOnlyMissingObjects() throws Exception {
+        execute(Arrays.asList(
+                "create table CUSTOMER (ID bigint not null, NAME varchar(64) not null, LEGACY int, primary key (ID))",
+                "alter table CUSTOMER add constraint UK_OTHER_NAME unique (NAME)"));
+
+        assertThat(diff(false), contains(
+                MAPPING.get(0),
+                MAPPING.get(2),
+                "alter table CUSTOMER add NOTE varchar(255)",
+                MAPPING.get(3),
+                MAPPING.get(5)));
+
+        execute(diff(false));
+        assertThat(diff(false), is(empty()));
+    }
+
+    @Test
+    public void testShouldDropObjectsNotInMapping() throws Exception {
+        execute(MAPPING);
+        execute(Arrays.asList(
+                "alter table CUSTOMER add LEGACY int",
+                "create table OLD_ORDERS (ID bigint primary key, CUSTOMER_ID bigint)",
+                "alter table OLD_ORDERS add constraint FK_OLD_ORDERS foreign key (CUSTOMER_ID) references CUSTOMER"));
+
+        assertThat(diff(false), is(empty()));
+        assertThat(diff(true), contains(
+                "alter table OLD_ORDERS drop constraint FK_OLD_ORDERS",
+                "alter table CUSTOMER drop column LEGACY",
+                "drop table OLD_ORDERS"));
+
+        execute(diff(true));
+        assertThat(diff(true), is(Collections.<String>emptyList()));
+    }
+
+    @Test
+    public void testShouldSkipTablesCreatedBySameStatements() throws Exception {
+        SchemaModel previous = SchemaSnapshot.fromJson(SchemaSnapshot.toJson(SchemaModel.parse(MAPPING), "\n"));
+        assertThat(SchemaDiff.diff(SchemaModel.parse(MAPPING), previous, true, new SystemStreamLog()), is(empty()));
+
+        List<String> changed = new ArrayList<>(MAPPING);
+        changed.set(2, "create table ORDERS (ID bigint not null, CUSTOMER_ID bigint, AMOUNT decimal(10,2), "
+                + "PLACED_AT timestamp, primary key (ID))");
+        changed.subList(4, 6).clear();
+        changed.remove(1);
+        changed.add("create table ORDER_LINE (ID bigint not null, primary key (ID))");
+        assertThat(SchemaDiff.diff(SchemaModel.parse(changed), previous, true, new SystemStreamLog()), contains(
+                "alter table ORDERS drop constraint FK_ORDERS_CUSTOMER",
+                "drop table CUSTOMER",
+                "create table ORDER_LINE (ID bigint not null, primary key (ID))",
+                "alter table ORDERS add PLACED_AT timestamp"));
+
+        // same hash, not compared
+        SchemaModel.Table orders = previous.getTable("ORDERS");
+        SchemaModel.Table stale = new SchemaModel.Table("ORDERS", null);
+        stale.setHash(orders.getHash());
+        previous.addTable(stale);
+        assertThat(SchemaDiff.diff(SchemaModel.parse(MAPPING), previous, false, new SystemStreamLog()), is(empty()));
+    }
+
+    @Test
+    public void testShouldReportChangedColumnsWithoutAltering() throws Exception {
+        execute(MAPPING);
+        execute(Arrays.asList(
+                "alter table CUSTOMER alter column NAME set data type varchar(32)",
+                "alter table CUSTOMER alter column NOTE set not null"));
+
+        List<String> unresolved = new ArrayList<>();
+        assertThat(SchemaDiff.diff(SchemaModel.parse(MAPPING), newReader(1).read(), false, false,
+                new SystemStreamLog(), unresolved), is(empty()));
+        assertThat(unresolved, contains(
+                "column CUSTOMER.NAME is changed from varchar(32) not null to varchar(64) not null, but not altered",
+                "column CUSTOMER.NOTE is changed from varchar(255) not null to varchar(255) null, but not altered"));
+    }
+
+    @Test
+    public void testShouldReportChangedTypesAndRemovedIndexesOfPreviousGeneration() throws Exception {
+        List<String> original = new ArrayList<>(MAPPING);
+        original.add("create table ORDER_LINE (ID bigint not null, ORDER_ID bigint, primary key (ID), "
+                + "foreign key (ORDER_ID) references ORDERS)");
+        SchemaModel previous = SchemaSnapshot.fromJson(SchemaSnapshot.toJson(SchemaModel.parse(original), "\n"));
+
+        List<String> changed = new ArrayList<>(MAPPING);
+        changed.set(2, "create table ORDERS (ID bigint not null, CUSTOMER_ID bigint, AMOUNT varchar(20), "
+                + "primary key (ID))");
+        changed.remove(3);
+        List<String> unresolved = new ArrayList<>();
+        assertThat(SchemaDiff.diff(SchemaModel.parse(changed), previous, true, true, new SystemStreamLog(),
+                unresolved), contains("drop table ORDER_LINE"));
+        assertThat(unresolved, contains(
+                "column ORDERS.AMOUNT is changed from decimal(10,2) null to varchar(20) null, but not altered",
+                "index IDX_ORDERS_AMOUNT ([AMOUNT]) of ORDERS is removed or changed, but not dropped",
+                "foreign key [ORDER_ID] of ORDER_LINE to ORDERS has no name, not dropped"));
+    }
+
+    @Test
+    public void testShouldReadSchemaOverConnectionsWithCache() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            for (int i = 0; i < 40; i++) {
+                statement.execute("create table T" + i + " (ID bigint primary key, NAME varchar(32), PARENT_ID bigint"
+                        + (i == 0 ? "" : ", constraint FK_T" + i + " foreign key (PARENT_ID) references T" + (i - 1))
+                        + ")");
+                statement.execute("create index IDX_T" + i + "_NAME on T" + i + " (NAME, ID)");
+            }
+        }
+
+        SchemaModel model = newReader(4).read();
+        assertThat(model.getTables().size(), is(40));
+        for (int i = 0; i < 40; i++) {
+            SchemaModel.Table table = model.getTable("T" + i);
+            assertThat(table.getColumns().keySet(), contains("ID", "NAME", "PARENT_ID"));
+            assertThat(table.getColumns().get("NAME").getType(), is("varchar(32)"));
+            assertThat(table.getPrimaryKey(), contains("ID"));
+            assertThat(table.getForeignKeys().size(), is(i == 0 ? 0 : 1));
+            boolean indexed = false;
+            for (SchemaModel.Index index : table.getIndexes()) {
+                indexed |= index.getName().equals("IDX_T" + i + "_NAME") && index.getColumns().equals(
+                        Arrays.asList("NAME", "ID"));
+            }
+            assertThat(table.getKey(), indexed, is(true));
+        }
+        assertThat(model.getTable("T7").getForeignKeys().get(0).getReferencedTable(), is("T6"));
+
+        ConcurrentMap<String, SchemaModel> cache = new ConcurrentHashMap<>();
+        SchemaModel cached = newReader(4).read(cache);
+        assertThat(newReader(1).read(cache), is(sameInstance(cached)));
+        cache.remove(SchemaReader.cacheKey(URL, "sa"));
+        assertThat(newReader(1).read(cache), is(not(sameInstance(cached))));
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class SchemaSnapshotTest {
+
+    private static final List<String> MAPPING = Arrays.asList(
+            "create sequence HIBERNATE_SEQUENCE start with 1 increment by 1",
+            "create table CUSTOMER (ID bigint not null, NAME varchar(64) not null, NOTE varchar(255), primary key (ID))",
+            "create table ORDERS (ID bigint not null, CUSTOMER_ID bigint, AMOUNT decimal(10,2), primary key (ID))",
+            "create index IDX_ORDERS_AMOUNT on ORDERS (AMOUNT desc)",
+            "alter table CUSTOMER add constraint UK_CUSTOMER_NAME unique (NAME)",
+            "alter table ORDERS add constraint FK_ORDERS_CUSTOMER foreign key (CUSTOMER_ID) references CUSTOMER");
+
+    private static final String URL = "jdbc:h2:mem:schema-snapshot-test;DB_CLOSE_DELAY=-1";
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table CUSTOMER (ID bigint not null, NAME varchar(64) not null, LEGACY int, "
+                    + "primary key (ID))");
+            statement.execute("create table OLD_ORDERS (ID bigint primary key, CUSTOMER_ID bigint, "
+                    + "constraint FK_OLD foreign key (CUSTOMER_ID) references CUSTOMER)");
+            statement.execute("create unique index IDX_OLD on OLD_ORDERS (CUSTOMER_ID, ID)");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.createStatement().execute("DROP ALL OBJECTS");
+        connection.close();
+    }
+
+    private static SchemaModel read() throws Exception {
+        return new SchemaReader(new JdbcConnector(null, URL, "sa", ""), 2, new SystemStreamLog()).read();
+    }
+
+    private static List<String> diff(SchemaModel database) {
+        return SchemaDiff.diff(SchemaModel.parse(MAPPING), database, true, new SystemStreamLog());
+    }
+
+    @Test
+    public void testShouldDiffSnapshotLikeDatabase() throws Exception {
+        SchemaModel database = read();
+        File file = new File("target/schema-snapshot-test/schema-snapshot.json");
+        Files.deleteIfExists(file.toPath());
+
+        assertThat(SchemaSnapshot.write(database, file, "\n"), is(true));
+        assertThat(SchemaSnapshot.write(database, file, "\n"), is(false));
+        SchemaModel snapshot = SchemaSnapshot.read(file);
+
+        assertThat(SchemaSnapshot.toJson(snapshot, "\n"), is(SchemaSnapshot.toJson(database, "\n")));
+        assertThat(snapshot.getTable("OLD_ORDERS").getIndexes().size(),
+                is(database.getTable("OLD_ORDERS").getIndexes().size()));
+        assertThat(diff(snapshot), is(diff(database)));
+    }
+
+    @Test
+    public void testShouldWriteCompactBinarySnapshot() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            for (int i = 0; i < 200; i++) {
+                statement.execute("create table T" + i + " (ID bigint primary key, NAME varchar(64), "
+                        + "NOTE varchar(255), CUSTOMER_ID bigint references CUSTOMER)");
+            }
+        }
+        SchemaModel database = read();
+        File file = new File("target/schema-snapshot-test/schema-snapshot.bin");
+        Files.deleteIfExists(file.toPath());
+
+        assertThat(SchemaSnapshot.writeBinary(database, file), is(true));
+        assertThat(SchemaSnapshot.writeBinary(database, file), is(false));
+        SchemaModel snapshot = SchemaSnapshot.read(file);
+        String json = SchemaSnapshot.toJson(database, "\n");
+        assertThat(SchemaSnapshot.toJson(snapshot, "\n"), is(json));
+        assertThat(file.length() * 4 < json.length(), is(true));
+        assertThat(snapshot.getTable("T1").getColumns().get("NAME").getType(),
+                is(sameInstance(snapshot.getTable("T2").getColumns().get("NAME").getType())));
+    }
+
+    @Test
+    public void testShouldReadDatabaseRegardlessOfLocale() throws Exception {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            SchemaModel database = read();
+            assertThat(database.getTable("CUSTOMER").getColumns().get("LEGACY").getType(), is("integer"));
+            assertThat(database.getTable("OLD_ORDERS").getForeignKeys().get(0).getName(), is("FK_OLD"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void testShouldWriteSnapshotInUtf8() throws Exception {
+        SchemaModel model = SchemaModel.parse(Arrays.asList("create table \"Kunde\" (\"Größe\" int, \"名前\" varchar(64))"));
+        File file = new File("target/schema-snapshot-test/utf8-snapshot.json");
+        Files.deleteIfExists(file.toPath());
+
+        SchemaSnapshot.write(model, file, "\n");
+        assertThat(new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8")),
+                is(SchemaSnapshot.toJson(model, "\n")));
+        assertThat(SchemaSnapshot.read(file).getTable("Kunde").getColumns().keySet(), contains("Größe", "名前"));
+    }
+
+    @Test
+    public void testShouldRejectNewerSnapshot() throws Exception {
+        String json = SchemaSnapshot.toJson(read(), "\n").replace("\"version\": " + SchemaSnapshot.VERSION,
+                "\"version\": " + (SchemaSnapshot.VERSION + 1));
+        File file = new File("target/schema-snapshot-test/newer-snapshot.json");
+        Files.createDirectories(file.toPath().getParent());
+        Files.write(file.toPath(), json.getBytes(Charset.forName("UTF-8")));
+        try {
+            SchemaSnapshot.read(file);
+            fail("newer snapshot is read");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), containsString("is newer than supported version"));
+        }
+    }
+}
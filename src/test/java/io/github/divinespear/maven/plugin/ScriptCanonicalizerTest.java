@@ -0,0 +1,78 @@
+package io.github.divinespear.maven.plugin;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ScriptCanonicalizerTest {
+
+    @Test
+    public void testShouldOrderCreateScriptByPhaseAndDependency() {
+        List<String> from = Arrays.asList(
+                "insert into SEQUENCE (SEQ_NAME) values ('A')",
+                "alter table ORDERS add constraint FK_ORDERS_CUSTOMER foreign key (CUSTOMER_ID) references CUSTOMER (ID)",
+                "create index IDX_ORDERS_DATE on ORDERS (ORDER_DATE)",
+                "create table ORDERS (ID bigint, CUSTOMER_ID bigint references CUSTOMER (ID), primary key (ID))",
+                "alter table CUSTOMER add constraint UK_CUSTOMER_NAME unique (NAME)",
+                "create table CUSTOMER (ID bigint, NAME varchar(255), primary key (ID))",
+                "create sequence ORDER_SEQ start with 1",
+                "create table AUDIT (ID bigint, primary key (ID))");
+
+        assertThat(ScriptCanonicalizer.canonicalize(from), contains(
+                "create sequence ORDER_SEQ start with 1",
+                "create table AUDIT (ID bigint, primary key (ID))",
+                "create table CUSTOMER (ID bigint, NAME varchar(255), primary key (ID))",
+                "create table ORDERS (ID bigint, CUSTOMER_ID bigint references CUSTOMER (ID), primary key (ID))",
+                "create index IDX_ORDERS_DATE on ORDERS (ORDER_DATE)",
+                "alter table CUSTOMER add constraint UK_CUSTOMER_NAME unique (NAME)",
+                "alter table ORDERS add constraint FK_ORDERS_CUSTOMER foreign key (CUSTOMER_ID) references CUSTOMER (ID)",
+                "insert into SEQUENCE (SEQ_NAME) values ('A')"));
+    }
+
+    @Test
+    public void testShouldOrderDropScript() {
+        List<String> from = Arrays.asList(
+                "drop sequence ORDER_SEQ",
+                "drop table CUSTOMER",
+                "alter table ORDERS drop constraint FK_ORDERS_CUSTOMER",
+                "drop table ORDERS");
+
+        assertThat(ScriptCanonicalizer.canonicalize(from), contains(
+                "alter table ORDERS drop constraint FK_ORDERS_CUSTOMER",
+                "drop table CUSTOMER",
+                "drop table ORDERS",
+                "drop sequence ORDER_SEQ"));
+    }
+
+    @Test
+    public void testShouldBeIndependentOfInputOrder() {
+        List<String> from = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            from.add("create table T" + i + " (ID bigint, PARENT_ID bigint, primary key (ID))");
+            from.add("alter table T" + i + " add constraint FK_T" + i + " foreign key (PARENT_ID) references T" + (i + 1) % 50 + " (ID)");
+            from.add("create index IDX_T" + i + " on T" + i + " (PARENT_ID)");
+        }
+        List<String> expected = ScriptCanonicalizer.canonicalize(from);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10; i++) {
+            Collections.shuffle(from, random);
+            assertThat(ScriptCanonicalizer.canonicalize(from), is(expected));
+        }
+    }
+
+    @Test
+    public void testShouldNormalizeWhitespaceAndConstraintPlacement() {
+        String from = "create  table T (\n ID bigint  not null, primary key (ID), constraint UK_T unique (NAME),\tNAME varchar(10) default 'a  b')";
+        assertThat(ScriptCanonicalizer.normalize(from),
+                is("create table T (ID bigint not null, NAME varchar(10) default 'a  b', primary key (ID), constraint UK_T unique (NAME))"));
+    }
+}
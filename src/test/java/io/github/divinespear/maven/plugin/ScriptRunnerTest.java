@@ -0,0 +1,82 @@
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ScriptRunnerTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:script-runner-test;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.createStatement().execute("DROP ALL OBJECTS");
+        connection.close();
+    }
+
+    private static ReadableByteChannel channel(String script) {
+        return Channels.newChannel(new ByteArrayInputStream(script.getBytes(UTF_8)));
+    }
+
+    private long run(String script,
+                     boolean ignoreErrors) throws Exception {
+        return new ScriptRunner(connection, 100, false, ignoreErrors, new SystemStreamLog())
+                .run(channel(script), UTF_8, "test.sql", script.length());
+    }
+
+    @Test
+    public void testShouldStreamScriptInBatches() throws Exception {
+        StringBuilder script = new StringBuilder("-- reference data\ncreate table NAMES (ID int primary key, NAME varchar(64));\n");
+        for (int i = 0; i < 20000; i++) {
+            script.append("insert into NAMES values (").append(i).append(", 'nüß;").append(i).append("');\n");
+        }
+
+        assertThat(run(script.toString(), false), is(20001L));
+
+        try (ResultSet rs = connection.createStatement().executeQuery("select count(*), max(NAME) from NAMES where NAME like 'nüß;%'")) {
+            rs.next();
+            assertThat(rs.getInt(1), is(20000));
+            assertThat(rs.getString(2), is("nüß;9999"));
+        }
+    }
+
+    @Test
+    public void testShouldReportFailedStatement() throws Exception {
+        String script = "create table A (ID int primary key);\ninsert into A values (1);\ninsert into A values (1);\ninsert into A values (2);";
+        try {
+            run(script, false);
+            fail("should fail");
+        } catch (SQLException e) {
+            assertThat(e.getMessage(), containsString("statement 3 failed: insert into A values (1)"));
+        }
+    }
+
+    @Test
+    public void testShouldIgnoreErrors() throws Exception {
+        String script = "drop table NO_SUCH_TABLE;\ncreate table A (ID int);\ninsert into A values (1)";
+
+        assertThat(run(script, true), is(3L));
+    }
+}
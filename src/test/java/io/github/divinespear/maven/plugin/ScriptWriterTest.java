@@ -0,0 +1,126 @@
+package io.github.divinespear.maven.plugin;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ScriptWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static String read(File file) throws IOException {
+        StringBuilder builder = new StringBuilder();
+        try (Reader reader = new InputStreamReader(new FileInputStream(file))) {
+            char[] buf = new char[4096];
+            int len;
+            while ((len = reader.read(buf)) >= 0) {
+                builder.append(buf, 0, len);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testShouldFormatLargeScriptInOriginalOrder() throws Exception {
+        final int count = ScriptWriter.PARALLEL_THRESHOLD * 3 + 7;
+        final SqlFormatter formatter = new SqlFormatter("\n");
+        final StringBuilder expected = new StringBuilder();
+
+        ScriptWriter writer = new ScriptWriter(folder.newFile("create.sql"), "\n", true, false, false, false, false);
+        for (int i = 0; i < count; i++) {
+            String sql = "create table T" + i + " (ID bigint not null, NAME varchar(255), primary key (ID))";
+            writer.write(sql + "\n");
+            formatter.format(sql, expected);
+            expected.append(";\n\n");
+        }
+        writer.save();
+
+        assertThat(read(writer.getFile()), is(expected.toString()));
+    }
+
+    @Test
+    public void testShouldWriteSmallScriptAsIs() throws Exception {
+        ScriptWriter writer = new ScriptWriter(folder.newFile("drop.sql"), "\r\n", false, false, false, false, false);
+        writer.write("drop table A\ndrop table B");
+        writer.save();
+
+        assertThat(read(writer.getFile()), is("drop table A;\r\ndrop table B;\r\n"));
+    }
+
+    @Test
+    public void testShouldKeepUnchangedScript() throws Exception {
+        File file = folder.newFile("create.sql");
+
+        ScriptWriter writer = new ScriptWriter(file, "\n", false, false, false, false, false);
+        writer.write("create table A (ID int)\n");
+        assertThat(writer.save(), is(true));
+        assertThat(file.setLastModified(1000000000000L), is(true));
+
+        writer = new ScriptWriter(file, "\n", false, false, false, false, false);
+        writer.write("create table A (ID int)\n");
+        assertThat(writer.save(), is(false));
+        assertThat(file.lastModified(), is(1000000000000L));
+
+        writer = new ScriptWriter(file, "\n", false, false, false, false, false);
+        writer.write("create table B (ID int)\n");
+        assertThat(writer.save(), is(true));
+        assertThat(read(file), is("create table B (ID int);\n"));
+        assertThat(folder.getRoot().list().length, is(1));
+    }
+
+    @Test
+    public void testShouldSplitScriptByPhase() throws Exception {
+        File file = folder.newFile("create.sql");
+        ScriptWriter writer = new ScriptWriter(file, "\n", false, false, true, false, false);
+        writer.write("create table B (ID int, A_ID int)\n"
+                     + "create index IDX_B on B (A_ID)\n"
+                     + "create table A (ID int)\n"
+                     + "alter table B add constraint FK_B foreign key (A_ID) references A (ID)\n"
+                     + "create sequence S\n");
+        writer.save();
+
+        assertThat(read(new File(folder.getRoot(), "create.sequences.sql")), is("create sequence S;\n"));
+        assertThat(read(new File(folder.getRoot(), "create.tables.sql")),
+                is("create table B (ID int, A_ID int);\ncreate table A (ID int);\n"));
+        assertThat(read(new File(folder.getRoot(), "create.indexes.sql")), is("create index IDX_B on B (A_ID);\n"));
+        assertThat(read(new File(folder.getRoot(), "create.foreign-keys.sql")),
+                is("alter table B add constraint FK_B foreign key (A_ID) references A (ID);\n"));
+        assertThat(new File(folder.getRoot(), "create.constraints.sql").exists(), is(false));
+
+        String manifest = read(new File(folder.getRoot(), "create.manifest.json"));
+        assertThat(manifest, containsString("\"script\": \"create.sql\""));
+        assertThat(manifest, containsString("\"file\": \"create.indexes.sql\""));
+        assertThat(manifest.indexOf("\"sequences\"") < manifest.indexOf("\"tables\""), is(true));
+        assertThat(manifest.indexOf("\"indexes\"") < manifest.indexOf("\"foreign-keys\""), is(true));
+    }
+
+    @Test
+    public void testShouldWriteModelOfScript() throws Exception {
+        File file = folder.newFile("create.sql");
+        ScriptWriter writer = new ScriptWriter(file, "\n", false, false, false, false, true);
+        writer.write("create table A (ID int not null, NAME varchar(32), primary key (ID))\n"
+                     + "create table B (ID int, A_ID int)\n"
+                     + "alter table B add constraint FK_B foreign key (A_ID) references A (ID)\n");
+        writer.save();
+
+        String json = read(new File(folder.getRoot(), "create.model.json"));
+        assertThat(json, containsString("\"name\": \"A\""));
+        assertThat(json, containsString("[\"NAME\", \"varchar(32)\", true]"));
+        assertThat(json, containsString("[\"FK_B\", [\"A_ID\"], \"A\", [\"ID\"]]"));
+        SchemaModel model = SchemaSnapshot.read(new File(folder.getRoot(), "create.model.bin"));
+        assertThat(SchemaSnapshot.toJson(model, "\n"), is(json));
+        assertThat(writer.getModel(), is(sameInstance(writer.getModel())));
+    }
+}
@@ -0,0 +1,137 @@
+package io.github.divinespear.maven.plugin;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class SeedLoaderTest {
+
+    private static final String URL = "jdbc:h2:mem:seed-loader-test;DB_CLOSE_DELAY=-1";
+
+    private static final List<String> SCHEMA = Arrays.asList(
+            "create table CUSTOMER (ID bigint not null, NAME varchar(64), NOTE varchar(255), primary key (ID))",
+            "create table ORDERS (ID bigint not null, CUSTOMER_ID bigint, AMOUNT decimal(10,2), PAID boolean, "
+                    + "primary key (ID))",
+            "alter table ORDERS add constraint FK_ORDERS_CUSTOMER foreign key (CUSTOMER_ID) references CUSTOMER");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection(URL, "sa", "");
+        for (String sql : SCHEMA) {
+            connection.createStatement().execute(sql);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        connection.createStatement().execute("DROP ALL OBJECTS");
+        connection.close();
+    }
+
+    private void write(String name,
+                       String content) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(new File(folder.getRoot(), name)), "UTF-8")) {
+            writer.write(content);
+        }
+    }
+
+    private void load(int commitInterval) throws Exception {
+        new SeedLoader(new JdbcConnector(null, URL, "sa", ""), 4, commitInterval, new SystemStreamLog())
+                .load(folder.getRoot(), SCHEMA);
+    }
+
+    @Test
+    public void testShouldLoadReferencedTablesFirst() throws Exception {
+        write("CUSTOMER.csv", "ID,NAME,NOTE\n1,Kim,\n2,\"Lee, \"\"Jr\"\"\",\"multi\nline\"\n");
+        StringBuilder orders = new StringBuilder();
+        for (int i = 1; i <= 2500; i++) {
+            orders.append("{\"ID\": ").append(i).append(", \"CUSTOMER_ID\": ").append(i % 2 + 1)
+                    .append(", \"AMOUNT\": 12.50, \"PAID\": ").append(i % 3 == 0).append("}\n");
+        }
+        orders.append("\n{\"ID\": 2501, \"AMOUNT\": null}\n");
+        write("orders.jsonl", orders.toString());
+
+        load(1000);
+
+        try (ResultSet rs = connection.createStatement().executeQuery("select NAME, NOTE from CUSTOMER order by ID")) {
+            rs.next();
+            assertThat(rs.getString(1), is("Kim"));
+            assertThat(rs.getString(2), is(nullValue()));
+            rs.next();
+            assertThat(rs.getString(1), is("Lee, \"Jr\""));
+            assertThat(rs.getString(2), is("multi\nline"));
+        }
+        try (ResultSet rs = connection.createStatement().executeQuery(
+                "select count(*), sum(AMOUNT), count(CUSTOMER_ID), sum(case when PAID then 1 else 0 end) from ORDERS")) {
+            rs.next();
+            assertThat(rs.getInt(1), is(2501));
+            assertThat(rs.getBigDecimal(2).doubleValue(), is(31250.0));
+            assertThat(rs.getInt(3), is(2500));
+            assertThat(rs.getInt(4), is(833));
+        }
+    }
+
+    @Test
+    public void testShouldReportFailedRowAndRollBackBatch() throws Exception {
+        write("CUSTOMER.jsonl", "{\"ID\": 1, \"NAME\": \"a\"}\n{\"ID\": 2, \"NAME\": \"b\"}\n"
+                + "{\"ID\": 3, \"NAME\": \"c\"}\n{\"ID\": 3, \"NAME\": \"d\"}\n");
+
+        try {
+            load(2);
+            fail("should fail");
+        } catch (SQLException e) {
+            assertThat(e.getMessage(), containsString("cannot load CUSTOMER.jsonl into CUSTOMER near row 4"));
+        }
+        try (ResultSet rs = connection.createStatement().executeQuery("select count(*) from CUSTOMER")) {
+            rs.next();
+            assertThat(rs.getInt(1), is(2));
+        }
+    }
+
+    @Test
+    public void testShouldMatchQuotedTableNamesIgnoringCase() throws Exception {
+        connection.createStatement().execute("create table Z_PARENT (ID bigint not null, primary key (ID))");
+        connection.createStatement().execute("create table A_CHILD (ID bigint not null, PARENT_ID bigint, "
+                + "primary key (ID), foreign key (PARENT_ID) references Z_PARENT)");
+        write("a_child.jsonl", "{\"ID\": 1, \"PARENT_ID\": 1}\n");
+        write("z_parent.jsonl", "{\"ID\": 1}\n");
+
+        // child sorts first, so it is loaded first on one connection unless reference is found
+        new SeedLoader(new JdbcConnector(null, URL, "sa", ""), 1, 1000, new SystemStreamLog())
+                .load(folder.getRoot(), Arrays.asList(
+                        "create table \"Z_Parent\" (ID bigint not null, primary key (ID))",
+                        "create table \"A_Child\" (ID bigint not null, PARENT_ID bigint, primary key (ID))",
+                        "alter table \"A_Child\" add constraint FK_CHILD foreign key (PARENT_ID) references \"Z_Parent\""));
+
+        try (ResultSet rs = connection.createStatement().executeQuery("select count(*) from A_CHILD")) {
+            rs.next();
+            assertThat(rs.getInt(1), is(1));
+        }
+    }
+}
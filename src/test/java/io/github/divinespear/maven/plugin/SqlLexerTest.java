@@ -0,0 +1,120 @@
+package io.github.divinespear.maven.plugin;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+public class SqlLexerTest {
+
+    /**
+     * line-based splitter {@link SqlLexer} replaced in {@link ScriptWriter}, kept for comparison
+     */
+    private static final Pattern CREATE_DROP_PATTERN = Pattern.compile("((?:create|drop|alter)\\s+(?:table|view|sequence))",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final int COMPARISON_STATEMENTS = 3000;
+
+    private static List<String> split(boolean lineTerminated,
+                                      String script) throws IOException {
+        return SqlLexer.split(new StringReader(script), lineTerminated);
+    }
+
+    @Test
+    public void testShouldSplitProviderOutputByLine() throws Exception {
+        String from = "create table A (ID bigint)\r\ncreate table B (ID bigint);\n\ncreate sequence S";
+        assertThat(split(true, from),
+                contains("create table A (ID bigint)", "create table B (ID bigint)", "create sequence S"));
+    }
+
+    @Test
+    public void testShouldSplitKeywordPairOnSameLine() throws Exception {
+        String from = "CREATE TABLE A (ID BIGINT) CREATE TABLE B (ID BIGINT) ALTER TABLE B ADD CONSTRAINT FK_B FOREIGN KEY (ID) REFERENCES A (ID)";
+        assertThat(split(true, from),
+                contains("CREATE TABLE A (ID BIGINT)",
+                        "CREATE TABLE B (ID BIGINT)",
+                        "ALTER TABLE B ADD CONSTRAINT FK_B FOREIGN KEY (ID) REFERENCES A (ID)"));
+    }
+
+    @Test
+    public void testShouldIgnoreKeywordsInIdentifiersAndParentheses() throws Exception {
+        String from = "create table T (recreate_table varchar(10), \"drop table\" int, check (x <> 'create table'))";
+        assertThat(split(true, from), contains(from));
+    }
+
+    @Test
+    public void testShouldIgnoreDelimitersInLiteralsAndQuotedIdentifiers() throws Exception {
+        String from = "insert into T values ('a;b', 'it''s; fine');\ncreate table `x;y` ([a;b] int, \"c;d\" int);";
+        assertThat(split(false, from),
+                contains("insert into T values ('a;b', 'it''s; fine')",
+                        "create table `x;y` ([a;b] int, \"c;d\" int)"));
+    }
+
+    @Test
+    public void testShouldDropCommentsButKeepHints() throws Exception {
+        String from = "-- header; comment\ncreate table A (ID int); /* block; comment */\nselect /*+ INDEX(A) */ ID from A -- trailing;\n;";
+        assertThat(split(false, from),
+                contains("create table A (ID int)", "select /*+ INDEX(A) */ ID from A"));
+    }
+
+    @Test
+    public void testShouldSplitByDialectDelimiterLine() throws Exception {
+        String from = "create table A (\n  ID int\n)\nGO\ncreate table B (ID int)\n/\n";
+        assertThat(split(false, from), contains("create table A (\n  ID int\n)", "create table B (ID int)"));
+    }
+
+    private static List<String> splitByLine(String script) throws IOException {
+        final List<String> statements = new ArrayList<>();
+        final BufferedReader reader = new BufferedReader(new StringReader(script));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            for (String it : CREATE_DROP_PATTERN.matcher(line).replaceAll(";$1").split(";")) {
+                if (!it.trim().isEmpty()) {
+                    statements.add(it.trim());
+                }
+            }
+        }
+        return statements;
+    }
+
+    private static String providerScript(int statements) {
+        final StringBuilder script = new StringBuilder();
+        for (int i = 0; i < statements; i++) {
+            switch (i % 3) {
+                case 0:
+                    script.append("create table TABLE_").append(i)
+                            .append(" (ID bigint not null, NAME varchar(255), primary key (ID))");
+                    break;
+                case 1:
+                    script.append("create sequence SEQ_").append(i).append(" start with 1 increment by 50");
+                    break;
+                default:
+                    script.append("alter table TABLE_").append(i - 2).append(" add constraint FK_").append(i)
+                            .append(" foreign key (ID) references TABLE_").append(i - 2);
+                    break;
+            }
+            script.append("\r\n");
+        }
+        return script.toString();
+    }
+
+    /**
+     * Lexer splits provider output like line-based splitter it replaced.
+     */
+    @Test
+    public void testShouldMatchLineBasedSplitterOnProviderScript() throws Exception {
+        final String script = providerScript(COMPARISON_STATEMENTS);
+        assertThat(split(true, script), is(splitByLine(script)));
+    }
+}
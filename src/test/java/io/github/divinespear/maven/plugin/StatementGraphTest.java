@@ -0,0 +1,79 @@
+package io.github.divinespear.maven.plugin;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class StatementGraphTest {
+
+    @Test
+    public void testShouldBuildCreateGraph() {
+        StatementGraph graph = StatementGraph.build(Arrays.asList(
+                "create sequence ORDER_SEQ start with 1",
+                "create table CUSTOMER (ID bigint, primary key (ID))",
+                "create table ORDERS (ID bigint default nextval('ORDER_SEQ'), CUSTOMER_ID bigint, primary key (ID))",
+                "create table AUDIT (ID bigint, primary key (ID))",
+                "create index IDX_ORDERS_CUSTOMER on ORDERS (CUSTOMER_ID)",
+                "create index IDX_AUDIT on AUDIT (ID)",
+                "alter table ORDERS add constraint FK_ORDERS_CUSTOMER foreign key (CUSTOMER_ID) references CUSTOMER (ID)",
+                "insert into AUDIT (ID) values (1)"));
+
+        assertThat(graph.getDependencies(0), is(new int[0]));
+        assertThat(graph.getDependencies(1), is(new int[0]));
+        assertThat(graph.getDependencies(2), is(new int[]{0}));
+        assertThat(graph.getDependencies(3), is(new int[0]));
+        assertThat(graph.getDependencies(4), is(new int[]{2}));
+        assertThat(graph.getDependencies(5), is(new int[]{3}));
+        assertThat(graph.getDependencies(6), is(new int[]{1, 4}));
+        assertThat(graph.getDependencies(7), is(new int[]{5, 6}));
+
+        assertThat(graph.getCriticalPath(), is(5));
+        assertThat(graph.getMaxParallelism(), is(3));
+    }
+
+    @Test
+    public void testShouldFindQuotedSequenceRegardlessOfLocale() {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            StatementGraph graph = StatementGraph.build(Arrays.asList(
+                    "create sequence ID_SEQ start with 1",
+                    "create table ITEM (ID bigint default nextval('id_seq'), primary key (ID))"));
+            assertThat(graph.getDependencies(1), is(new int[]{0}));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void testShouldDropTablesAfterConstraints() {
+        StatementGraph graph = StatementGraph.build(Arrays.asList(
+                "alter table ORDERS drop constraint FK_ORDERS_CUSTOMER",
+                "drop table CUSTOMER",
+                "drop table ORDERS",
+                "drop sequence ORDER_SEQ"));
+
+        assertThat(graph.getDependencies(1), is(new int[]{0}));
+        assertThat(graph.getDependencies(2), is(new int[]{0}));
+        assertThat(graph.getDependencies(3), is(new int[]{0, 1, 2}));
+        assertThat(graph.getMaxParallelism(), is(2));
+    }
+
+    @Test
+    public void testShouldWriteJson() {
+        StatementGraph graph = StatementGraph.build(Arrays.asList(
+                "create table A (ID bigint)",
+                "create index IDX_A on A (ID)"));
+
+        String json = graph.toJson("create.sql", "\n");
+        assertThat(json, containsString("\"criticalPath\": 2"));
+        assertThat(json, containsString("\"maxParallelism\": 1"));
+        assertThat(json, containsString("\"dependsOn\": [1]"));
+        assertThat(json, containsString("\"sql\": \"create index IDX_A on A (ID)\""));
+    }
+}
@@ -0,0 +1,8 @@
+package io.github.divinespear.maven.plugin.stub;
+
+public class AggregateProjectStub extends AbstractProjectStub {
+    @Override
+    public String getProjectPath() {
+        return "aggregate-test";
+    }
+}
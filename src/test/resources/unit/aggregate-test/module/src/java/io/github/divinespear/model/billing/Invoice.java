@@ -0,0 +1,36 @@
+package io.github.divinespear.model.billing;
+
+import java.math.BigDecimal;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "INVOICE")
+public class Invoice {
+
+    @Id
+    @Column(name = "INVOICE_NO", length = 32)
+    private String number;
+
+    @Column(name = "AMOUNT", precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    public String getNumber() {
+        return number;
+    }
+
+    public void setNumber(String number) {
+        this.number = number;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+}